@@ -0,0 +1,87 @@
+package ie.atu.sw;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The BloomFilter object answers "might this word be in the set?"
+ *          without looking at the words themselves, so that most words which
+ *          are not in a Dictionary can be turned away before it's hash table
+ *          is searched. It never says no to a word which is in the set, and
+ *          says yes to fewer than 1 in 100 words which are not (about 1 in 300
+ *          as sized here).
+ *
+ *          The filter is blocked: each word sets 4 bits of a single 64 bit
+ *          long, picked along with the long from the word's hash. A check
+ *          therefore reads one long (one memory access) and tests it with a
+ *          single mask. The filter gives each word 16 to 32 bits (the number of
+ *          longs is rounded up to a power of two), so a filter of 100,000 words
+ *          takes 256KB, small enough to stay in the CPU's cache.
+ *
+ *          Words are added as their 32 bit hash, which must be well mixed (see
+ *          Dictionary.hash()). A BloomFilter is not thread safe while being
+ *          built, but may be shared once it has been.
+ */
+public class BloomFilter {
+
+	private static final int BITS_PER_WORD = 16;
+
+	private final long[] blocks;
+	private final int mask; // blocks.length - 1
+
+	/**
+	 * Constructor for the BloomFilter object
+	 *
+	 * @param expected the number of words to be added
+	 */
+	public BloomFilter(int expected) { // Big(O) = O(n) - defined by the number of words
+		int size = Integer.highestOneBit(Math.max(1, expected * BITS_PER_WORD / Long.SIZE) * 2 - 1);
+		blocks = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds a word to the filter.
+	 *
+	 * @param hash the hash of the word
+	 */
+	public void add(int hash) { // Big(O) = O(1) - No loops
+		long bits = bits(hash);
+		blocks[block(hash)] |= bits;
+	}
+
+	/**
+	 * Checks if a word might have been added to the filter.
+	 *
+	 * @param hash the hash of the word
+	 * @return false if the word was certainly not added, true if it may have been
+	 */
+	public boolean mightContain(int hash) { // Big(O) = O(1) - No loops
+		long bits = bits(hash);
+		return (blocks[block(hash)] & bits) == bits;
+	}
+
+	/**
+	 * @return the number of bytes the filter takes up
+	 */
+	public int sizeInBytes() { // Big(O) = O(1) - No loops
+		return blocks.length * Long.BYTES;
+	}
+
+	/**
+	 * Picks the long a word's bits go in, from the top bits of it's hash (the low
+	 * bits pick the word's slot in the Dictionary's table).
+	 */
+	private int block(int hash) { // Big(O) = O(1) - No loops
+		return Integer.rotateRight(hash, 16) & mask;
+	}
+
+	/**
+	 * Picks 4 bits of a long from a second hash made from the word's hash.
+	 */
+	private static long bits(int hash) { // Big(O) = O(1) - No loops
+		int g = hash * 0x9E3779B9; // a different spread of the same hash; it's top bits depend on all of hash
+		return (1L << (g >>> 8)) | (1L << (g >>> 14)) | (1L << (g >>> 20)) | (1L << (g >>> 26));
+	}
+}
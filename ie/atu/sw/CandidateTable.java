@@ -0,0 +1,151 @@
+package ie.atu.sw;
+
+import java.util.Arrays;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The CandidateTable object holds every distinct token read from part
+ *          of a source file, before it is known which of them are defined in
+ *          the dictionary, together with the pages each appears on and the
+ *          number of times it was read. It lets the input file be tokenized
+ *          while the dictionary is still loading; once the dictionary is ready,
+ *          the candidates are looked up in it once each, rather than once for
+ *          every time they were read.
+ *
+ *          Tokens are kept as bytes, copied one after another into a single
+ *          array, and found through an open-addressing hash table, so adding a
+ *          token already in the table creates no objects. A CandidateTable is
+ *          not thread safe; each worker thread is given it's own.
+ */
+public class CandidateTable {
+
+	private byte[] arena = new byte[1 << 12]; // the bytes of every token, one after the other
+	private int arenaUsed;
+	private int[] offsets = new int[64]; // token i is arena[offsets[i], offsets[i] + lengths[i])
+	private int[] lengths = new int[64];
+	private int[] hashes = new int[64];
+	private long[] counts = new long[64]; // times token i was read
+	private PageSet[] pages = new PageSet[64]; // pages token i was read on
+	private int size;
+	private int[] slots = new int[128]; // open-addressing slots: token index + 1, 0 being an empty slot
+
+	/**
+	 * Callback which receives each candidate of a table.
+	 */
+	@FunctionalInterface
+	public interface CandidateConsumer {
+		/**
+		 * @param bytes  the array holding the token
+		 * @param offset the position of the first byte of the token
+		 * @param length the number of bytes of the token
+		 * @param count  the number of times the token was read
+		 * @param pages  the pages the token was read on
+		 */
+		void accept(byte[] bytes, int offset, int length, long count, PageSet pages);
+	}
+
+	/**
+	 * Adds a token and the page it was read on to the table.
+	 *
+	 * @param buf  the bytes of the token
+	 * @param off  the position of the first byte of the token
+	 * @param len  the number of bytes of the token
+	 * @param page the page the token was read on
+	 */
+	public void add(byte[] buf, int off, int len, int page) { // Big(O) = O(1) - hash table
+
+		int h = hash(buf, off, len);
+		int mask = slots.length - 1;
+		int slot = h & mask;
+		for (int s = slots[slot]; s != 0; s = slots[slot]) {
+			int i = s - 1;
+			if (hashes[i] == h && Arrays.equals(arena, offsets[i], offsets[i] + lengths[i], buf, off, off + len)) {
+				counts[i]++;
+				pages[i].add(page);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		// a new token: copy it to the arena and give it a slot
+		if (size == offsets.length) {
+			grow();
+			add(buf, off, len, page);
+			return;
+		}
+		if (arenaUsed + len > arena.length) {
+			arena = Arrays.copyOf(arena, Math.max(arenaUsed + len, arena.length * 2));
+		}
+		System.arraycopy(buf, off, arena, arenaUsed, len);
+		offsets[size] = arenaUsed;
+		lengths[size] = len;
+		hashes[size] = h;
+		counts[size] = 1;
+		pages[size] = new PageSet();
+		pages[size].add(page);
+		arenaUsed += len;
+		slots[slot] = ++size;
+	}
+
+	/**
+	 * @return the number of distinct tokens in the table
+	 */
+	public int size() { // Big(O) = O(1) - No loops
+		return size;
+	}
+
+	/**
+	 * Passes every candidate in the table to action, in no particular order.
+	 *
+	 * @param action the action to perform on each candidate
+	 */
+	public void forEach(CandidateConsumer action) { // Big(O) = O(n) - defined by the number of tokens
+		for (int i = 0; i < size; i++) {
+			action.accept(arena, offsets[i], lengths[i], counts[i], pages[i]);
+		}
+	}
+
+	/**
+	 * Doubles the room for tokens and rebuilds the slots, keeping them at most
+	 * half full.
+	 */
+	private void grow() { // Big(O) = O(n) - defined by the number of tokens
+
+		int capacity = offsets.length * 2;
+		offsets = Arrays.copyOf(offsets, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+		counts = Arrays.copyOf(counts, capacity);
+		pages = Arrays.copyOf(pages, capacity);
+
+		slots = new int[capacity * 2];
+		int mask = slots.length - 1;
+		for (int i = 0; i < size; i++) {
+			int slot = hashes[i] & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = i + 1;
+		}
+	}
+
+	/**
+	 * FNV-1a hash of the len bytes of buf from off, finished with the Murmur3 mixing
+	 * step so the low bits used to pick a slot are well spread.
+	 */
+	private static int hash(byte[] buf, int off, int len) { // Big(O) = O(n) - length of the token
+
+		int h = 0x811C9DC5;
+		for (int i = off; i < off + len; i++) {
+			h = (h ^ (buf[i] & 0xFF)) * 0x01000193;
+		}
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+}
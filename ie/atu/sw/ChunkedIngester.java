@@ -0,0 +1,300 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The ChunkedIngester object splits a source file into byte-range
+ *          chunks which always end on a line boundary, and passes every line of
+ *          every chunk to a LineHandler. Chunks are processed in parallel in two
+ *          passes: the first pass counts the lines in each chunk, a prefix-sum
+ *          of those counts then gives the number of the first line in each
+ *          chunk, and the second pass hands each line to the handler along with
+ *          its absolute line number. Line numbers (and so page numbers) are
+ *          therefore exactly those a single threaded read of the file would
+ *          produce, regardless of the order in which the chunks are processed.
+ *
+ *          Lines are terminated by '\n', '\r' or "\r\n", matching
+ *          Files.lines(). The line handed to the handler excludes the
+ *          terminator.
+ */
+public class ChunkedIngester {
+
+	public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024; // 8MB per chunk
+
+	private static final byte LF = '\n';
+	private static final byte CR = '\r';
+
+	/**
+	 * Callback which receives each line of the file. The line is the range
+	 * [from, to) of the chunk buffer. The buffer is shared by every line of the
+	 * chunk, so implementations must only use absolute gets on it.
+	 */
+	@FunctionalInterface
+	public interface LineHandler {
+		void line(ByteBuffer chunk, int from, int to, int lineNum);
+
+		/**
+		 * Called once, before any line is handed over, with the number of lines in
+		 * the file.
+		 */
+		default void begin(int lines) {
+		}
+	}
+
+	private final Path file;
+	private final int chunkSize;
+	private final AtomicInteger queued = new AtomicInteger(); // chunks handed to the executor, not yet started
+	private volatile int maxQueued; // the most chunks waiting at once during the last run
+
+	/**
+	 * Constructor for the ChunkedIngester object
+	 *
+	 * @param newFile      the file to be read
+	 * @param newChunkSize the target size, in bytes, of each chunk. Chunks are
+	 *                     extended to the end of the line they finish on.
+	 */
+	public ChunkedIngester(Path newFile, int newChunkSize) { // Big(O) = O(1) - No loops
+
+		if (newChunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + newChunkSize);
+		}
+		file = newFile;
+		chunkSize = newChunkSize;
+	}
+
+	/**
+	 * Constructor for the ChunkedIngester object using the default chunk size.
+	 *
+	 * @param newFile the file to be read
+	 */
+	public ChunkedIngester(Path newFile) { // Big(O) = O(1) - No loops
+		this(newFile, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Reads the file on a pool of platform threads, one per available core.
+	 *
+	 * @param handler the handler each line is passed to
+	 * @return the number of lines in the file
+	 * @throws IOException if the file could not be read
+	 */
+	public int run(LineHandler handler) throws IOException { // Big(O) = O(n) - defined by the size of the file
+
+		try (ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+			return run(handler, pool);
+		}
+	}
+
+	/**
+	 * Reads the file, running the work for each chunk on the given executor.
+	 *
+	 * @param handler  the handler each line is passed to
+	 * @param executor the executor the chunks are processed on
+	 * @return the number of lines in the file
+	 * @throws IOException if the file could not be read
+	 */
+	public int run(LineHandler handler, Executor executor) throws IOException { // Big(O) = O(n) - defined by the
+																				// size of the file
+
+		MappedByteBuffer[] chunks = mapChunks();
+		int[] counts = new int[chunks.length];
+
+		// pass 1: count the lines held in each chunk
+		CompletableFuture<?>[] tasks = new CompletableFuture<?>[chunks.length];
+		for (int i = 0; i < chunks.length; i++) {
+			final int c = i;
+			tasks[i] = CompletableFuture.runAsync(() -> counts[c] = countLines(chunks[c]), executor);
+		}
+		await(tasks);
+
+		// prefix-sum the counts to find the number of the first line in each chunk
+		int[] firstLine = new int[chunks.length];
+		int total = 0;
+		for (int i = 0; i < chunks.length; i++) {
+			firstLine[i] = total + 1;
+			total = Math.addExact(total, counts[i]);
+		}
+
+		// pass 2: pass each line, with its absolute line number, to the handler
+		handler.begin(total);
+		maxQueued = 0;
+		for (int i = 0; i < chunks.length; i++) {
+			final int c = i;
+			maxQueued = Math.max(maxQueued, queued.incrementAndGet());
+			tasks[i] = CompletableFuture.runAsync(() -> {
+				queued.decrementAndGet();
+				readLines(chunks[c], firstLine[c], handler);
+			}, executor);
+		}
+		await(tasks);
+
+		return total;
+	}
+
+	/**
+	 * @return the most chunks that were waiting for a thread at once during the
+	 *         second pass of the last run
+	 */
+	public int maxQueueDepth() { // Big(O) = O(1) - No loops
+		return maxQueued;
+	}
+
+	/**
+	 * Splits the file into chunks of roughly chunkSize bytes, moving the end of
+	 * each chunk forward to just after the next '\n' so that no line (and no
+	 * "\r\n" pair) is split between two chunks.
+	 *
+	 * @return a read only mapping of each chunk, in file order
+	 * @throws IOException if the file could not be read
+	 */
+	private MappedByteBuffer[] mapChunks() throws IOException { // Big(O) = O(c) - defined by the number of chunks
+
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = ch.size();
+			long[] bounds = new long[(int) (size / chunkSize) + 2];
+			int count = 0;
+			long pos = 0;
+			ByteBuffer probe = ByteBuffer.allocate(4096);
+
+			while (pos < size) {
+				long end = Math.min(pos + chunkSize, size);
+
+				// extend the chunk to the end of the line it finishes in
+				if (end < size && !endsLine(ch, end, probe)) {
+					end = nextLineEnd(ch, end, size, probe);
+				}
+				bounds[count++] = pos;
+				pos = end;
+			}
+			bounds[count] = size;
+
+			MappedByteBuffer[] chunks = new MappedByteBuffer[count];
+			for (int i = 0; i < count; i++) {
+				chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]);
+			}
+			return chunks;
+		}
+	}
+
+	/**
+	 * @return true if the byte just before position is '\n'
+	 */
+	private static boolean endsLine(FileChannel ch, long position, ByteBuffer probe) throws IOException { // Big(O) = O(1)
+		probe.clear().limit(1);
+		ch.read(probe, position - 1);
+		return probe.get(0) == LF;
+	}
+
+	/**
+	 * @return the position just after the next '\n' at or beyond position, or
+	 *         size if there is none
+	 */
+	private static long nextLineEnd(FileChannel ch, long position, long size, ByteBuffer probe) throws IOException {
+		// Big(O) = O(l) - defined by the length of the line
+
+		while (position < size) {
+			probe.clear();
+			int read = ch.read(probe, position);
+			for (int i = 0; i < read; i++) {
+				if (probe.get(i) == LF) {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Counts the lines in a chunk. A trailing line with no terminator (only
+	 * possible in the last chunk) is counted as a line.
+	 *
+	 * @param buf the chunk to be counted
+	 * @return the number of lines in the chunk
+	 */
+	private static int countLines(ByteBuffer buf) { // Big(O) = O(n) - defined by the size of the chunk
+
+		int lines = 0;
+		int limit = buf.limit();
+		for (int i = 0; i < limit; i++) {
+			byte b = buf.get(i);
+			if (b == LF || (b == CR && (i + 1 == limit || buf.get(i + 1) != LF))) {
+				lines++;
+			}
+		}
+		if (limit > 0) {
+			byte last = buf.get(limit - 1);
+			if (last != LF && last != CR) {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Passes each line of a chunk to the handler.
+	 *
+	 * @param buf       the chunk to be read
+	 * @param firstLine the absolute line number of the first line in the chunk
+	 * @param handler   the handler each line is passed to
+	 */
+	private static void readLines(ByteBuffer buf, int firstLine, LineHandler handler) { // Big(O) = O(n) - defined by
+																						// the size of the chunk
+
+		int lineNum = firstLine;
+		int start = 0;
+		int limit = buf.limit();
+		int i = 0;
+		while (i < limit) {
+			byte b = buf.get(i);
+			if (b == LF || b == CR) {
+				handler.line(buf, start, i, lineNum++);
+				// a "\r\n" pair is a single terminator
+				if (b == CR && i + 1 < limit && buf.get(i + 1) == LF) {
+					i++;
+				}
+				start = i + 1;
+			}
+			i++;
+		}
+		if (start < limit) {
+			handler.line(buf, start, limit, lineNum);
+		}
+	}
+
+	/**
+	 * Waits for all tasks to finish, rethrowing the first failure.
+	 */
+	private static void await(CompletableFuture<?>[] tasks) throws IOException { // Big(O) = O(c) - defined by the
+																					// number of chunks
+		try {
+			CompletableFuture.allOf(tasks).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException u) {
+				throw u.getCause();
+			} else if (cause instanceof RuntimeException r) {
+				throw r;
+			} else if (cause instanceof Error err) {
+				throw err;
+			}
+			throw e;
+		}
+	}
+}
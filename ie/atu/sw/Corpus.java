@@ -0,0 +1,186 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The Corpus class works out which files make up a corpus of
+ *          documents to be indexed together. A corpus is given either as a
+ *          directory, in which case every regular file directly inside it is a
+ *          document, or as a glob pattern such as "C:\\texts\\*.txt" or
+ *          "texts/**.txt", in which case every regular file matching the
+ *          pattern is. Documents are always returned in path order, so
+ *          document numbers are the same from one run to the next, and are
+ *          named by their path from the root of the corpus (the directory, or
+ *          the directory before the first wildcard of the pattern), so
+ *          "a/ch1.txt" and "b/ch1.txt" are told apart.
+ *
+ *          The files the indexer writes itself are never documents, so an
+ *          output file inside the corpus directory doesn't change the corpus
+ *          from one run to the next: the output file, the output of each
+ *          document beside it (e.g. Output-1-Genesis.txt), and any index,
+ *          page hashes, dictionary snapshot or run metrics file.
+ */
+public class Corpus {
+
+	private static final String GLOB_CHARS = "*?[{";
+	private static final String[] OWN_SUFFIXES = { ".idx", ".pages", ".snap", ".metrics.json" }; // written by the
+																									// indexer
+
+	/**
+	 * Checks if an input path names a corpus (a directory or glob pattern) rather
+	 * than a single file.
+	 *
+	 * @param input the input path given by the user
+	 * @return true if the input is a directory or a glob pattern
+	 */
+	public static boolean isCorpus(String input) { // Big(O) = O(n) - defined by the length of the path
+		return isGlob(input) || Files.isDirectory(Path.of(input));
+	}
+
+	/**
+	 * Finds the documents of a corpus.
+	 *
+	 * @param input a directory or glob pattern
+	 * @return the documents, in path order
+	 * @throws IOException if the directory could not be read, or no documents
+	 *                     were found
+	 */
+	public static List<Path> documents(String input) throws IOException { // Big(O) = O(n log n) - sorting the files
+		return documents(input, null);
+	}
+
+	/**
+	 * Finds the documents of a corpus, leaving out the files written when it's
+	 * indexed to output.
+	 *
+	 * @param input  a directory or glob pattern
+	 * @param output the output file of the index, or null if there is none
+	 * @return the documents, in path order
+	 * @throws IOException if the directory could not be read, or no documents
+	 *                     were found
+	 */
+	public static List<Path> documents(String input, String output) throws IOException { // Big(O) = O(n log n) -
+																							// sorting the files
+
+		List<Path> docs;
+		Path root = root(input);
+		if (!isGlob(input)) {
+			try (Stream<Path> files = Files.list(root)) {
+				docs = files.filter(Files::isRegularFile).filter(p -> !isOwnFile(p, output)).sorted().toList();
+			}
+		} else {
+			// walk from the deepest directory before the first wildcard
+			String pattern = input.substring(rootLength(input)).replace('\\', '/');
+			PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+			try (Stream<Path> files = Files.walk(root)) {
+				docs = files.filter(Files::isRegularFile)
+						.filter(p -> matcher.matches(Path.of(root.relativize(p).toString().replace('\\', '/'))))
+						.filter(p -> !isOwnFile(p, output)).sorted().toList();
+			}
+		}
+
+		if (docs.isEmpty()) {
+			throw new IOException("No documents found for " + input);
+		}
+		return docs;
+	}
+
+	/**
+	 * Finds the root of a corpus, which the documents are named from.
+	 *
+	 * @param input a directory or glob pattern
+	 * @return the directory, or the deepest directory before the first wildcard
+	 *         of the pattern (empty for the current directory)
+	 */
+	public static Path root(String input) { // Big(O) = O(n) - defined by the length of the path
+		return isGlob(input) ? Path.of(input.substring(0, rootLength(input))) : Path.of(input);
+	}
+
+	/**
+	 * Names a document by it's path from the root of the corpus, with '/' between
+	 * directories whatever the platform, e.g. "a/ch1.txt".
+	 *
+	 * @param root     the root of the corpus (see root())
+	 * @param document a document of the corpus
+	 * @return the name of the document
+	 */
+	public static String name(Path root, Path document) { // Big(O) = O(n) - defined by the length of the path
+		Path relative = root.toAbsolutePath().normalize().relativize(document.toAbsolutePath().normalize());
+		return relative.toString().replace('\\', '/');
+	}
+
+	/**
+	 * @param file   a file of the corpus
+	 * @param output the output file of the index, or null if there is none
+	 * @return true if the file was written by the indexer: the output file, the
+	 *         output of one of it's documents (see CorpusIndex.documentOutput()),
+	 *         or an index, page hashes, snapshot or metrics file
+	 */
+	private static boolean isOwnFile(Path file, String output) { // Big(O) = O(n) - defined by the length of the
+																	// names
+		String name = file.getFileName().toString();
+		for (String suffix : OWN_SUFFIXES) {
+			if (name.endsWith(suffix)) {
+				return true;
+			}
+		}
+		if (output == null) {
+			return false;
+		}
+
+		Path out = Path.of(output).toAbsolutePath().normalize();
+		Path abs = file.toAbsolutePath().normalize();
+		if (abs.equals(out)) {
+			return true;
+		}
+		if (!abs.getParent().equals(out.getParent())) {
+			return false;
+		}
+		String outName = out.getFileName().toString();
+		int dot = outName.lastIndexOf('.');
+		String base = dot > 0 ? outName.substring(0, dot) : outName;
+		String ext = dot > 0 ? outName.substring(dot) : "";
+		return Pattern.matches(Pattern.quote(base) + "-\\d+-.*" + Pattern.quote(ext), name);
+	}
+
+	/**
+	 * @return the length of the directory part of a glob pattern, up to and
+	 *         including the last separator before the first wildcard
+	 */
+	private static int rootLength(String input) { // Big(O) = O(n) - defined by the length of the path
+		int wild = firstGlobChar(input);
+		return Math.max(input.lastIndexOf('/', wild), input.lastIndexOf('\\', wild)) + 1;
+	}
+
+	/**
+	 * @return true if the input contains any glob wildcard characters
+	 */
+	private static boolean isGlob(String input) { // Big(O) = O(n) - defined by the length of the path
+		return firstGlobChar(input) < input.length();
+	}
+
+	/**
+	 * @return the index of the first glob wildcard character, or the length of
+	 *         input if there is none
+	 */
+	private static int firstGlobChar(String input) { // Big(O) = O(n) - defined by the length of the path
+		for (int i = 0; i < input.length(); i++) {
+			if (GLOB_CHARS.indexOf(input.charAt(i)) >= 0) {
+				return i;
+			}
+		}
+		return input.length();
+	}
+}
@@ -0,0 +1,178 @@
+package ie.atu.sw;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The CorpusIndex object combines the indexes of the documents of a
+ *          corpus into one index, in which each word is mapped to it's postings:
+ *          the pages it appears on in each document, keyed by document number
+ *          and then page. The index of each single document is kept as well,
+ *          so each document can also be exported on it's own. Documents are
+ *          listed, and their outputs named, by their path from the root of the
+ *          corpus (see Corpus.name()), so documents of the same name in
+ *          different directories are told apart.
+ */
+public class CorpusIndex {
+
+	private final Path root;
+	private final List<Path> documents;
+	private final WordPages[] perDocument;
+	private final Map<String, PageSet[]> postings = new TreeMap<String, PageSet[]>(); // word -> pages by document
+
+	/**
+	 * Constructor for the CorpusIndex object. Merges the index of each document.
+	 *
+	 * @param newRoot        the root of the corpus (see Corpus.root())
+	 * @param newDocuments   the documents of the corpus
+	 * @param newPerDocument the index of each document, in the same order
+	 */
+	public CorpusIndex(Path newRoot, List<Path> newDocuments, WordPages[] newPerDocument) { // Big(O) = O(n log n) -
+																							// defined by the words
+																							// of every document
+		root = newRoot;
+		documents = List.copyOf(newDocuments);
+		perDocument = newPerDocument.clone();
+
+		for (int doc = 0; doc < perDocument.length; doc++) {
+			for (String word : perDocument[doc].returnWords()) {
+				postings.computeIfAbsent(word, w -> new PageSet[perDocument.length])[doc] = perDocument[doc]
+						.getPages(word);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of distinct words across the corpus
+	 */
+	public int size() { // Big(O) = O(1) - No loops
+		return postings.size();
+	}
+
+	/**
+	 * @return the documents of the corpus, in document number order
+	 */
+	public List<Path> documents() { // Big(O) = O(1) - No loops
+		return documents;
+	}
+
+	/**
+	 * @param doc a document number
+	 * @return the index of that document alone
+	 */
+	public WordPages document(int doc) { // Big(O) = O(1) - No loops
+		return perDocument[doc];
+	}
+
+	/**
+	 * @return every word in the corpus, in alphabetical order
+	 */
+	public ArrayList<String> returnWords() { // Big(O) = O(n) - defined by the number of words
+		return new ArrayList<String>(postings.keySet());
+	}
+
+	/**
+	 * Returns the postings of a word: the pages it appears on in each document.
+	 *
+	 * @param word the word to be looked up
+	 * @return the pages for each document, indexed by document number, with null
+	 *         for documents the word does not appear in. Null if the word is not
+	 *         in the corpus.
+	 */
+	public PageSet[] getPostings(String word) { // Big(O) = O(log n) - get on a map object
+		return postings.get(word);
+	}
+
+	/**
+	 * Formats the postings of a word, e.g. "Genesis.txt [1, 2]; Exodus.txt [7]".
+	 *
+	 * @param word the word
+	 * @return the documents and pages the word appears on
+	 */
+	public String describe(String word) { // Big(O) = O(d + p) - defined by the documents and pages
+		return describe(root, documents, postings.get(word));
+	}
+
+	/**
+	 * Formats the pages of a word in each document of a corpus, e.g. "Genesis.txt
+	 * [1, 2]; Exodus.txt [7]".
+	 *
+	 * @param root      the root of the corpus
+	 * @param documents the documents of the corpus
+	 * @param pages     the pages for each document, with null for documents the
+	 *                  word does not appear in, or null
+	 * @return the documents and pages the word appears on
+	 */
+	public static String describe(Path root, List<Path> documents, PageSet[] pages) { // Big(O) = O(d + p) - defined by the
+																			// documents and pages
+		StringBuilder sb = new StringBuilder();
+		for (int doc = 0; pages != null && doc < pages.length; doc++) {
+			if (pages[doc] != null) {
+				if (sb.length() > 0) {
+					sb.append("; ");
+				}
+				sb.append(label(root, documents, doc)).append(' ').append(pages[doc]);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the name a document of a corpus is listed under in the combined
+	 * index: it's path from the root of the corpus, e.g. "Genesis.txt" or
+	 * "law/Genesis.txt".
+	 *
+	 * @param root      the root of the corpus
+	 * @param documents the documents of the corpus
+	 * @param doc       a document number
+	 * @return the name of that document
+	 */
+	public static String label(Path root, List<Path> documents, int doc) { // Big(O) = O(1) - No loops
+		return Corpus.name(root, documents.get(doc));
+	}
+
+	/**
+	 * Works out where the index of a single document is exported to: beside the
+	 * corpus output, named after both and numbered, e.g. Output-1-Genesis.txt, or
+	 * Output-1-law-Genesis.txt for law/Genesis.txt.
+	 *
+	 * @param output the corpus output file
+	 * @param doc    a document number
+	 * @return the output file for that document
+	 */
+	public Path documentOutput(Path output, int doc) { // Big(O) = O(1) - No loops
+		return documentOutput(output, root, documents, doc);
+	}
+
+	/**
+	 * Works out where the index of a single document of a corpus is exported to
+	 * (see documentOutput(Path, int)).
+	 *
+	 * @param output    the corpus output file
+	 * @param root      the root of the corpus
+	 * @param documents the documents of the corpus
+	 * @param doc       a document number
+	 * @return the output file for that document
+	 */
+	public static Path documentOutput(Path output, Path root, List<Path> documents, int doc) { // Big(O) = O(1) -
+																								// No loops
+		String name = output.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		String base = dot > 0 ? name.substring(0, dot) : name;
+		String ext = dot > 0 ? name.substring(dot) : "";
+		String docName = label(root, documents, doc);
+		int docDot = docName.lastIndexOf('.');
+		if (docDot > docName.lastIndexOf('/') + 1) { // an extension of the file, not of a directory
+			docName = docName.substring(0, docDot);
+		}
+		docName = docName.replace('/', '-');
+		return output.resolveSibling(base + "-" + (doc + 1) + "-" + docName + ext);
+	}
+}
@@ -0,0 +1,359 @@
+package ie.atu.sw;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The CsvReader object reads the rows of a CSV file one at a time,
+ *          straight from the bytes of the file, following RFC 4180:
+ *
+ *          > fields are separated by commas and rows by line breaks (LF or
+ *          CRLF). > a field may be enclosed in double quotes, in which case it
+ *          may hold commas and line breaks, and a double quote is written as
+ *          two. > a double quote part way through a field which is not quoted
+ *          is kept as it is.
+ *
+ *          The file is read through a fixed size buffer, so the memory used is
+ *          the same however large the file is. Bytes are only turned into
+ *          Strings (as UTF-8) for the fields asked for.
+ *
+ *          A row which breaks the rules (a quoted field which is never closed,
+ *          or text between a closing quote and the next comma) is passed to a
+ *          ProblemHandler and skipped, and reading carries on with the next
+ *          row. A quoted field which is never closed would otherwise run to the
+ *          end of the file, taking every row after it, so the reader goes back
+ *          to the start of that row and reads it again up to the end of it's
+ *          line, treating the quote as an ordinary character; only that row is
+ *          skipped. A quoted field is only read as far as maxQuoted bytes
+ *          (MAX_QUOTED unless given) looking for it's closing quote, and past
+ *          that is taken to be unclosed, so each stray quote costs at most that
+ *          much reading however large the file is.
+ */
+public class CsvReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	public static final int MAX_QUOTED = 1 << 20; // bytes a quoted field may run to by default
+	private static final String UNCLOSED = "quoted field is never closed";
+	private static final String TOO_LONG = "quoted field is not closed within ";
+
+	private final SeekableByteChannel in;
+	private final ProblemHandler problems;
+	private final int maxQuoted; // bytes a quoted field may run to before it's taken to be unclosed
+	private final byte[] buf = new byte[BUFFER_SIZE];
+	private int pos; // position in buf of the next byte to be read
+	private int limit; // bytes of buf read from the file
+	private long base; // position in the file of buf[0]
+	private long rowStart; // position in the file of the first byte of the current row
+	private boolean literal; // quotes are ordinary characters, while re-reading a row with an unclosed quote
+	private boolean eof;
+	private byte last; // the last byte read from the file
+	private int line = 1; // line of the file the next byte is on
+	private int rowLine; // line of the file the current row starts on
+	private byte[] row = new byte[256]; // the fields of the current row, one after another, separated by commas
+	private int used; // bytes of row in use
+	private int[] ends = new int[8]; // position in row just after each field
+	private int fields; // number of fields in the current row
+
+	/**
+	 * Callback which receives each malformed row.
+	 */
+	@FunctionalInterface
+	public interface ProblemHandler {
+		/**
+		 * @param line   the line of the file the row starts on
+		 * @param reason what is wrong with the row
+		 */
+		void malformed(int line, String reason);
+	}
+
+	/**
+	 * Constructor for the CsvReader object
+	 *
+	 * @param file        the file to be read
+	 * @param newProblems the action performed on each malformed row
+	 * @throws IOException if the file could not be opened
+	 */
+	public CsvReader(Path file, ProblemHandler newProblems) throws IOException { // Big(O) = O(1) - No loops
+		this(file, newProblems, MAX_QUOTED);
+	}
+
+	/**
+	 * Constructor for the CsvReader object
+	 *
+	 * @param file         the file to be read
+	 * @param newProblems  the action performed on each malformed row
+	 * @param newMaxQuoted the number of bytes a quoted field may run to before
+	 *                     it's taken to be unclosed
+	 * @throws IOException if the file could not be opened
+	 */
+	public CsvReader(Path file, ProblemHandler newProblems, int newMaxQuoted) throws IOException { // Big(O) = O(1)
+		if (newMaxQuoted < 1) {
+			throw new IllegalArgumentException("Quoted fields must be allowed at least one byte");
+		}
+		in = Files.newByteChannel(file);
+		problems = newProblems;
+		maxQuoted = newMaxQuoted;
+	}
+
+	/**
+	 * Moves to the next well formed row of the file, passing any malformed rows
+	 * before it to the ProblemHandler.
+	 *
+	 * @return true if there was another row
+	 * @throws IOException if the file could not be read
+	 */
+	public boolean next() throws IOException { // Big(O) = O(n) - defined by the length of the row
+
+		while (pos < limit || fill()) {
+			rowLine = line;
+			rowStart = base + pos;
+			used = 0;
+			fields = 0;
+			String problem = readRow();
+			if (problem == null) {
+				return true;
+			}
+			problems.malformed(rowLine, problem);
+		}
+		return false;
+	}
+
+	/**
+	 * @return the line of the file the current row starts on
+	 */
+	public int line() { // Big(O) = O(1) - No loops
+		return rowLine;
+	}
+
+	/**
+	 * @return the number of lines read so far
+	 */
+	public int lines() { // Big(O) = O(1) - No loops
+		return line - 1;
+	}
+
+	/**
+	 * @return the number of fields in the current row. An empty line is a row of
+	 *         one empty field
+	 */
+	public int fieldCount() { // Big(O) = O(1) - No loops
+		return fields;
+	}
+
+	/**
+	 * @param i the number of the field, from 0
+	 * @return the field, with any quotes around it removed
+	 */
+	public String field(int i) { // Big(O) = O(n) - defined by the length of the field
+		int start = start(i);
+		return new String(row, start, ends[i] - start, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param from the number of the first field
+	 * @return the fields from the one given to the end of the row, joined by
+	 *         commas
+	 */
+	public String join(int from) { // Big(O) = O(n) - defined by the length of the fields
+		int start = start(from);
+		return new String(row, start, ends[fields - 1] - start, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException { // Big(O) = O(1) - No loops
+		in.close();
+	}
+
+	/**
+	 * @return the position in row of the first byte of field i
+	 */
+	private int start(int i) { // Big(O) = O(1) - No loops
+		if (i < 0 || i >= fields) {
+			throw new IndexOutOfBoundsException("Field " + i + " of a row of " + fields);
+		}
+		return i == 0 ? 0 : ends[i - 1] + 1;
+	}
+
+	/**
+	 * Reads the fields of a row, up to and including the line break which ends
+	 * it.
+	 *
+	 * @return null if the row is well formed, otherwise what is wrong with it
+	 */
+	private String readRow() throws IOException { // Big(O) = O(n) - defined by the length of the row
+
+		String problem = null;
+		while (true) {
+			String p = !literal && (pos < limit || fill()) && buf[pos] == '"' ? readQuoted() : readUnquoted();
+			if (p == UNCLOSED || p == TOO_LONG) {
+				return rereadLiterally(p == UNCLOSED ? p : TOO_LONG + maxQuoted + " bytes");
+			}
+			if (problem == null) {
+				problem = p;
+			}
+			if (fields == ends.length) {
+				ends = Arrays.copyOf(ends, fields * 2);
+			}
+			ends[fields++] = used;
+			if (pos == limit && !fill()) {
+				if (last != '\n' && last != '\r') {
+					line++; // the end of the file ends the row, and it's line
+				}
+				return problem;
+			}
+			byte b = buf[pos++];
+			if (b == ',') {
+				append((byte) ',');
+				continue;
+			}
+			if (b == '\r' && (pos < limit || fill()) && buf[pos] == '\n') {
+				pos++;
+			}
+			line++;
+			return problem;
+		}
+	}
+
+	/**
+	 * Reads a field which doesn't start with a quote, up to the comma or line
+	 * break after it.
+	 */
+	private String readUnquoted() throws IOException { // Big(O) = O(n) - defined by the length of the field
+
+		while (true) {
+			int i = pos;
+			while (i < limit && buf[i] != ',' && buf[i] != '\n' && buf[i] != '\r') {
+				i++;
+			}
+			append(pos, i);
+			pos = i;
+			if (i < limit || !fill()) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Reads a field enclosed in quotes, leaving out the quotes and turning each
+	 * pair of quotes inside it into one. Gives up once the field runs past
+	 * maxQuoted bytes.
+	 */
+	private String readQuoted() throws IOException { // Big(O) = O(n) - defined by the length of the field, at most
+														// maxQuoted
+		long end = base + pos + 1 + maxQuoted; // the file position the closing quote must come before
+		pos++; // the opening quote
+		while (true) {
+			if (pos == limit && !fill()) {
+				return UNCLOSED;
+			}
+			if (base + pos > end) {
+				return TOO_LONG;
+			}
+			int i = pos;
+			int stop = (int) Math.min(limit, end + 1 - base); // no further than one byte past the end
+			while (i < stop && buf[i] != '"') {
+				if (buf[i] == '\n') {
+					line++;
+				}
+				i++;
+			}
+			append(pos, i);
+			pos = i;
+			if (i == stop) {
+				continue; // the field goes on past the end of the buffer, or too far
+			}
+			pos++; // the quote
+			if ((pos < limit || fill()) && buf[pos] == '"') {
+				append((byte) '"'); // an escaped quote
+				pos++;
+				continue;
+			}
+			break;
+		}
+		if ((pos < limit || fill()) && buf[pos] != ',' && buf[pos] != '\n' && buf[pos] != '\r') {
+			readUnquoted(); // skip the rest of the field
+			return "text after the closing quote of a field";
+		}
+		return null;
+	}
+
+	/**
+	 * Goes back to the start of the current row, whose quoted field ran to the
+	 * end of the file (or past maxQuoted bytes), and reads it again with quotes
+	 * as ordinary characters, so it ends at the end of it's first line and the
+	 * rows after it are read as usual.
+	 *
+	 * @param problem what is wrong with the row
+	 * @return the problem given
+	 */
+	private String rereadLiterally(String problem) throws IOException { // Big(O) = O(n) - defined by the length of
+																			// the row
+
+		in.position(rowStart);
+		base = rowStart;
+		pos = 0;
+		limit = 0;
+		eof = false;
+		line = rowLine;
+		used = 0;
+		fields = 0;
+		literal = true;
+		try {
+			readRow();
+		} finally {
+			literal = false;
+		}
+		return problem;
+	}
+
+	/**
+	 * Refills the buffer from the file, once every byte in it has been read.
+	 *
+	 * @return false at the end of the file
+	 */
+	private boolean fill() throws IOException { // Big(O) = O(b) - defined by the size of the buffer
+
+		if (eof) {
+			return false;
+		}
+		base += limit;
+		int n = in.read(ByteBuffer.wrap(buf));
+		if (n <= 0) {
+			eof = true;
+			pos = 0;
+			limit = 0;
+			return false;
+		}
+		pos = 0;
+		limit = n;
+		last = buf[n - 1];
+		return true;
+	}
+
+	private void append(int from, int to) { // Big(O) = O(n) - defined by the bytes appended
+		ensure(to - from);
+		System.arraycopy(buf, from, row, used, to - from);
+		used += to - from;
+	}
+
+	private void append(byte b) { // Big(O) = O(1) - amortised
+		ensure(1);
+		row[used++] = b;
+	}
+
+	private void ensure(int n) { // Big(O) = O(n) - amortised O(1) per byte
+		if (used + n > row.length) {
+			row = Arrays.copyOf(row, Math.max(used + n, row.length * 2));
+		}
+	}
+}
@@ -1,68 +1,186 @@
 package ie.atu.sw;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /** Dictionary
  * @author Brian Scott
  * @version 1.0
  * @since 19.0.1
- * 
+ *
  *          Each instance of the class <b>Dictionary</b> can contain one or more
  *          words. Each word is mapped to a definition of that word. Each word
  *          can have one and only one definition. Each word must be unique.
- * 
+ *
+ *          A Dictionary is built up with add() and is then frozen with
+ *          freeze(), after which it can only be read. While it is being built
+ *          the words are kept in a hash map, in no order; they are sorted once,
+ *          when it is frozen. Freezing copies the words
+ *          into an immutable open-addressing hash table, and the definitions
+ *          into a single block of UTF-8 bytes. Lookups on a frozen Dictionary
+ *          take O(1) time, take no locks and, through lookup(byte[], int),
+ *          need no String to be created for the word being looked up. Words
+ *          are numbered in alphabetical order, and that number (the word's id)
+ *          can be used to fetch the word and it's definition.
+ *
+ *          Most words looked up while indexing are not in the dictionary. A
+ *          BloomFilter of the words, built alongside the hash table, is checked
+ *          first, so nearly all of those are turned away after reading a single
+ *          long from a table small enough to stay in the CPU's cache, without
+ *          searching the hash table or comparing any characters.
+ *
+ *          A word may also be a phrase of several words separated by single
+ *          spaces, such as "holy spirit". Phrases are never matched by a
+ *          lookup of a single word, but are found in a stream of words by the
+ *          PhraseMatcher returned by phrases().
+ *
+ *          Words which are not in the dictionary but are spelt nearly the same
+ *          as one which is can be matched to it by the FuzzyMatcher returned by
+ *          fuzzy().
+ *
  */
 public class Dictionary {
 
-	private Map<String, String> mapDictionary = new ConcurrentSkipListMap<String, String>();
+	private Map<String, String> mapDictionary = new ConcurrentHashMap<String, String>();
+
+	// the frozen form of the dictionary, set up by freeze()
+	private volatile boolean frozen;
+	private String[] words; // the words, in alphabetical order, indexed by id
+	private byte[] defBytes; // every definition, encoded as UTF-8, one after the other
+	private int[] defOffsets; // definition of word id is defBytes[defOffsets[id], defOffsets[id + 1])
+	private long[] table; // open-addressing slots: (hash << 32) | (id + 1), 0 being an empty slot
+	private int mask; // table.length - 1
+	private BloomFilter filter; // the words' hashes, checked before the table is searched
+	private long fingerprint; // worked out on first use by fingerprint()
+	private volatile PhraseMatcher phrases; // built on first use by phrases()
+	private final AtomicReferenceArray<FuzzyMatcher> fuzzy = new AtomicReferenceArray<FuzzyMatcher>(
+			FuzzyMatcher.MAX_DISTANCE); // one per distance, built on first use by fuzzy()
 
 	/**
 	 * Adds a word and it's matching definition to the Dictionary object.
-	 * 
+	 *
 	 * @param newWord New Word to be added to the dictionary object
 	 * @param newDef  New definition for the word to be added to the dictionary
-	 * @return
+	 * @return 1 if the word was added, 0 if it was already defined
+	 * @throws IllegalStateException if the dictionary has been frozen
 	 */
-	public int add(String newWord, String newDef) { // Big(O) = O(log n) - Map object
+	public int add(String newWord, String newDef) { // Big(O) = O(1) - Map object
+
+		if (frozen) {
+			throw new IllegalStateException("Dictionary is frozen and can no longer be added to");
+		}
 
 		// if the dictionary doesn't contain the word, then add it. Otherwise, don't.
-		if (!mapDictionary.containsKey(newWord)) {
-			mapDictionary.put(newWord, newDef);
-			return 1;
-		} else {
-			return 0;
+		return mapDictionary.putIfAbsent(newWord, newDef) == null ? 1 : 0;
+
+	}
+
+	/**
+	 * Removes words from the Dictionary object, together with their definitions.
+	 *
+	 * @param remove the words to be removed
+	 * @throws IllegalStateException if the dictionary has been frozen
+	 */
+	public void removeAll(Collection<String> remove) { // Big(O) = O(m) - defined by the words removed
+
+		if (frozen) {
+			throw new IllegalStateException("Dictionary is frozen and can no longer be changed");
+		}
+		for (String word : remove) {
+			mapDictionary.remove(word);
+		}
+	}
+
+	/**
+	 * Freezes the dictionary, building the read only form used for all lookups
+	 * from then on. Calling freeze() on a frozen dictionary does nothing.
+	 */
+	public synchronized void freeze() { // Big(O) = O(n log n) - defined by number of words, which are sorted
+
+		if (frozen) {
+			return;
+		}
+
+		// the words in alphabetical order, which become their ids
+		words = sortWords(mapDictionary.keySet().toArray(new String[0]));
+		int n = words.length;
+		defOffsets = new int[n + 1];
+		byte[][] defs = new byte[n][];
+		int total = 0;
+		for (int id = 0; id < n; id++) {
+			defs[id] = mapDictionary.get(words[id]).getBytes(StandardCharsets.UTF_8);
+			total += defs[id].length;
+		}
+
+		defBytes = new byte[total];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(defs[i], 0, defBytes, defOffsets[i], defs[i].length);
+			defOffsets[i + 1] = defOffsets[i] + defs[i].length;
 		}
 
+		int capacity = tableCapacity(n);
+		table = new long[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < n; i++) {
+			int h = hash(words[i]);
+			int slot = h & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = ((long) h << 32) | (i + 1);
+		}
+		filter = buildFilter(table);
+
+		mapDictionary = Map.of();
+		frozen = true;
+	}
+
+	/**
+	 * @return true if the dictionary has been frozen
+	 */
+	public boolean isFrozen() { // Big(O) = O(1) - No loops
+		return frozen;
 	}
 
 	/**
 	 * Returns the size of the dictionary object (the amount of words help by the
 	 * object).
-	 * 
+	 *
 	 * @return An interegr representatio of the amount of words in the dictionary
 	 */
-	public int size() { // Big(O) = O(log n) - Map object
-		return mapDictionary.size();
+	public int size() { // Big(O) = O(1) - Map object
+		return frozen ? words.length : mapDictionary.size();
 	}
 
 	/**
 	 * Overrides Super toString() method to return a String representation of the
 	 * Dictionary contents
-	 * 
+	 *
 	 * @return String representation of all contents of the Dictionary object
 	 */
 	@Override
-	public String toString() { // Big(O) = O(log n) - Map object
+	public String toString() { // Big(O) = O(n log n) - Map object, sorted when not frozen
 
 		// Helper method for debugging. Used to display the content of the dictionary
 		// object.
 		StringBuilder sb = new StringBuilder("<<< Contents of Dictionary >>>\\r\\n");
 
-		// Gathers all elements contained in the dictionary map, builds a string
+		// Gathers all elements contained in the dictionary, builds a string
 		// representation and returns that String
-		for (Map.Entry<String, String> s : mapDictionary.entrySet()) {
-			sb.append(s.getKey() + " : " + s.getValue() + "\n");
+		if (frozen) {
+			for (int i = 0; i < words.length; i++) {
+				sb.append(words[i] + " : " + definitionAt(i) + "\n");
+			}
+		} else {
+			for (Map.Entry<String, String> s : new TreeMap<String, String>(mapDictionary).entrySet()) {
+				sb.append(s.getKey() + " : " + s.getValue() + "\n");
+			}
 		}
 
 		return sb.toString();
@@ -71,35 +189,479 @@ public class Dictionary {
 	/**
 	 * Used to identify if a word has already been entered into this dictionary (has
 	 * been defined in the dictionary.
-	 * 
+	 *
 	 * @param s The word that is to be checked for
 	 * @return True if the word is already in the dictionary. False if the word does
 	 *         not exist in the dictionary.
 	 */
-	public boolean isDefined(String s) { // Big(O) = O(log n) - Map object
-
-		// If the map contains the argument s then return true, otherwise return false.
-		if (mapDictionary.containsKey(s)) {
-			return true;
-		}
+	public boolean isDefined(String s) { // Big(O) = O(1) - hash table
 
-		return false;
+		// If the dictionary contains the argument s then return true, otherwise return
+		// false.
+		return frozen ? lookup(s) >= 0 : mapDictionary.containsKey(s);
 	}
 
 	/**
 	 * Returns the definition of a word stored in this dictionary.
-	 * 
+	 *
 	 * @param s The word that we wish to receive the definition for
-	 * @return A String representation of the definition for the word
+	 * @return A String representation of the definition for the word, or null if
+	 *         the word is not defined
 	 */
-	public String getDefinition(String s) { // Big(O) = O(log n) - Map object
+	public String getDefinition(String s) { // Big(O) = O(1) - hash table
 
-		// If the word is defined, return the definition, otherwise return null.
-		if (isDefined(s)) {
+		if (!frozen) {
 			return mapDictionary.get(s);
-		} else {
-			return null;
 		}
+		int id = lookup(s);
+		return id < 0 ? null : definitionAt(id);
+	}
+
+	/**
+	 * Finds the id of a word in a frozen dictionary.
+	 *
+	 * @param s the word to be looked up
+	 * @return the id of the word, or -1 if it is not defined
+	 */
+	public int lookup(String s) { // Big(O) = O(1) - hash table
+
+		checkFrozen();
+		int h = hash(s);
+		if (!filter.mightContain(h)) {
+			return -1;
+		}
+		for (int slot = h & mask;; slot = (slot + 1) & mask) {
+			long e = table[slot];
+			if (e == 0) {
+				return -1;
+			}
+			if ((int) (e >>> 32) == h && words[(int) e - 1].equals(s)) {
+				return (int) e - 1;
+			}
+		}
+	}
+
+	/**
+	 * Finds the id of a word, held as ASCII/Latin-1 bytes, in a frozen dictionary.
+	 * No objects are created, so this can be used straight on a Tokenizer's
+	 * buffer.
+	 *
+	 * @param buf the bytes of the word
+	 * @param len the number of bytes of buf holding the word
+	 * @return the id of the word, or -1 if it is not defined
+	 */
+	public int lookup(byte[] buf, int len) { // Big(O) = O(1) - hash table
+		return lookup(buf, 0, len);
+	}
+
+	/**
+	 * Finds the id of a word, held as ASCII/Latin-1 bytes part way through an
+	 * array, in a frozen dictionary. See lookup(byte[], int).
+	 *
+	 * @param buf the bytes holding the word
+	 * @param off the position of the first byte of the word
+	 * @param len the number of bytes of the word
+	 * @return the id of the word, or -1 if it is not defined
+	 */
+	public int lookup(byte[] buf, int off, int len) { // Big(O) = O(1) - hash table
+
+		checkFrozen();
+		int h = hash(buf, off, len);
+		if (!filter.mightContain(h)) {
+			return -1; // the usual case: one memory access
+		}
+		for (int slot = h & mask;; slot = (slot + 1) & mask) {
+			long e = table[slot];
+			if (e == 0) {
+				return -1;
+			}
+			if ((int) (e >>> 32) == h && matches(words[(int) e - 1], buf, off, len)) {
+				return (int) e - 1;
+			}
+		}
+	}
+
+	/**
+	 * Works out a 64 bit fingerprint of the words and definitions of a frozen
+	 * dictionary. Two dictionaries with the same fingerprint can be taken to hold
+	 * the same words and definitions.
+	 *
+	 * @return the fingerprint
+	 */
+	public long fingerprint() { // Big(O) = O(n) on first call, O(1) after
+
+		checkFrozen();
+		if (fingerprint == 0) {
+			long f = ((long) Arrays.hashCode(table) << 32) ^ (Arrays.hashCode(defOffsets) & 0xFFFFFFFFL);
+			f = f * 0x9E3779B97F4A7C15L + Arrays.hashCode(defBytes);
+			fingerprint = f == 0 ? 1 : f;
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the automaton which finds the phrases of a frozen dictionary (it's
+	 * words of more than one word). Built on first use.
+	 *
+	 * @return the PhraseMatcher, which finds nothing if there are no phrases
+	 */
+	public PhraseMatcher phrases() { // Big(O) = O(n) on first call, O(1) after
+
+		checkFrozen();
+		PhraseMatcher p = phrases;
+		if (p == null) {
+			synchronized (this) {
+				if (phrases == null) {
+					phrases = PhraseMatcher.build(this);
+				}
+				p = phrases;
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Returns the deletion index which finds the word of a frozen dictionary
+	 * closest to a word not in it (see FuzzyMatcher). One is built for each
+	 * distance on first use and kept, so runs asking for different distances
+	 * don't rebuild each other's; it's cache of results is kept with it, so is
+	 * shared by every run using this dictionary with that distance.
+	 *
+	 * @param maxDistance the most edits allowed, 1 or 2
+	 * @return the FuzzyMatcher
+	 */
+	public FuzzyMatcher fuzzy(int maxDistance) { // Big(O) = O(n * l^d) on first call, O(1) after
+
+		checkFrozen();
+		if (maxDistance < 1 || maxDistance > FuzzyMatcher.MAX_DISTANCE) {
+			throw new IllegalArgumentException("Edit distance must be from 1 to " + FuzzyMatcher.MAX_DISTANCE);
+		}
+		FuzzyMatcher f = fuzzy.get(maxDistance - 1);
+		if (f == null) {
+			synchronized (this) {
+				f = fuzzy.get(maxDistance - 1);
+				if (f == null) {
+					f = new FuzzyMatcher(this, maxDistance);
+					fuzzy.set(maxDistance - 1, f);
+				}
+			}
+		}
+		return f;
+	}
+
+	/**
+	 * @param id the id of a word in a frozen dictionary
+	 * @return the word
+	 */
+	public String wordAt(int id) { // Big(O) = O(1) - No loops
+		checkFrozen();
+		return words[id];
+	}
+
+	/**
+	 * @param id the id of a word in a frozen dictionary
+	 * @return the definition of the word
+	 */
+	public String definitionAt(int id) { // Big(O) = O(n) - defined by the length of the definition
+		checkFrozen();
+		return new String(defBytes, defOffsets[id], defOffsets[id + 1] - defOffsets[id], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Finds a word of a frozen dictionary by moving forward through the words in
+	 * alphabetical order, rather than by hashing it. Searching for words in
+	 * ascending order, each from the id found for the one before, takes a few
+	 * comparisons per word and creates nothing, so an index being written in
+	 * order of word can pick up each definition this way (see
+	 * IndexFile.Writer).
+	 *
+	 * @param s    the word to be found
+	 * @param from the id to start from, at or before the word's
+	 * @return the id of the word, or -1 if it isn't at or after from
+	 */
+	public int seek(String s, int from) { // Big(O) = O(log d) - defined by the distance moved
+
+		checkFrozen();
+		// gallop forward to a word at or after s, then binary search the last stride
+		int lo = from;
+		int step = 1;
+		int hi = from;
+		while (hi < words.length && words[hi].compareTo(s) < 0) {
+			lo = hi + 1;
+			hi += step;
+			step <<= 1;
+		}
+		hi = Math.min(hi, words.length - 1);
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = words[mid].compareTo(s);
+			if (c < 0) {
+				lo = mid + 1;
+			} else if (c > 0) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Writes the definition of a word of a frozen dictionary to a stream as it's
+	 * length (a varint) followed by it's UTF-8 bytes, copied as they are held
+	 * rather than decoded into a String.
+	 *
+	 * @param id  the id of the word
+	 * @param out the stream to write to
+	 */
+	void putDefinition(int id, ByteArrayOutputStream out) { // Big(O) = O(n) - defined by the length of the definition
+		checkFrozen();
+		int len = defOffsets[id + 1] - defOffsets[id];
+		Varint.write(out, len);
+		out.write(defBytes, defOffsets[id], len);
+	}
+
+	/**
+	 * @return the number of bytes taken up by the BloomFilter of a frozen
+	 *         dictionary
+	 */
+	public int filterSize() { // Big(O) = O(1) - No loops
+		checkFrozen();
+		return filter.sizeInBytes();
+	}
+
+	/**
+	 * @throws IllegalStateException if the dictionary has not been frozen
+	 */
+	private void checkFrozen() { // Big(O) = O(1) - No loops
+		if (!frozen) {
+			throw new IllegalStateException("Dictionary must be frozen before lookups by id");
+		}
+	}
+
+	/**
+	 * @return true if word holds exactly the len bytes of buf from off
+	 */
+	private static boolean matches(String word, byte[] buf, int off, int len) { // Big(O) = O(n) - length of the word
+
+		if (word.length() != len) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (word.charAt(i) != (buf[off + i] & 0xFF)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * FNV-1a hash of the characters of a word, finished with a mixing step so the
+	 * low bits used to pick a slot are well spread. Gives the same result as
+	 * hash(byte[], int, int) for a word held as Latin-1 bytes.
+	 */
+	private static int hash(String s) { // Big(O) = O(n) - length of the word
+
+		int h = 0x811C9DC5;
+		for (int i = 0; i < s.length(); i++) {
+			h = (h ^ s.charAt(i)) * 0x01000193;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * FNV-1a hash of the len bytes of buf from off. See hash(String).
+	 */
+	private static int hash(byte[] buf, int off, int len) { // Big(O) = O(n) - length of the word
+
+		int h = 0x811C9DC5;
+		for (int i = off; i < off + len; i++) {
+			h = (h ^ (buf[i] & 0xFF)) * 0x01000193;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * Sorts words into alphabetical order (that of String.compareTo()). Each
+	 * word's first 5 characters are packed, with it's position, into a long, and
+	 * the longs are sorted, which needs no access to the words themselves. Only
+	 * words which share their first 5 characters are then compared as Strings.
+	 *
+	 * @return the sorted words
+	 */
+	private static String[] sortWords(String[] unsorted) { // Big(O) = O(n log n) - defined by number of words
+
+		int n = unsorted.length;
+		if (n >= 1 << 24) {
+			Arrays.sort(unsorted); // too many to pack each position in 24 bits
+			return unsorted;
+		}
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			keys[i] = (prefix(unsorted[i]) << 24 | i) ^ Long.MIN_VALUE; // flipping the top bit sorts it as unsigned
+		}
+		Arrays.sort(keys);
+		String[] sorted = new String[n];
+		int from = 0;
+		for (int i = 0; i < n; i++) {
+			sorted[i] = unsorted[(int) (keys[i] & 0xFFFFFF)];
+			if (i > from && keys[i] >>> 24 != keys[from] >>> 24) {
+				sortRun(sorted, from, i);
+				from = i;
+			}
+		}
+		sortRun(sorted, from, n);
+		return sorted;
+	}
+
+	/**
+	 * Sorts words [from, to) which have the same prefix(), if there is more than
+	 * one.
+	 */
+	private static void sortRun(String[] words, int from, int to) { // Big(O) = O(m log m) - words in the run
+		if (to - from > 1) {
+			Arrays.sort(words, from, to);
+		}
+	}
+
+	/**
+	 * Packs the first 5 characters of a word into 40 bits, a byte each, in an
+	 * order which never contradicts String.compareTo(). A missing character
+	 * (after the end of the word) is 0, and each other character is one more
+	 * than it's value. Characters from 254 up are all 255, and as these may then
+	 * be in the wrong order the characters after them are left out.
+	 */
+	private static long prefix(String word) { // Big(O) = O(1) - at most 5 characters
+
+		long key = 0;
+		boolean capped = false;
+		for (int i = 0; i < 5; i++) {
+			int c = capped || i >= word.length() ? 0 : Math.min(word.charAt(i) + 1, 255);
+			capped |= c == 255;
+			key = key << 8 | c;
+		}
+		return key;
+	}
+
+	/**
+	 * Builds the BloomFilter of every word of a hash table, from the hashes it
+	 * already holds.
+	 */
+	private static BloomFilter buildFilter(long[] table) { // Big(O) = O(n) - defined by the size of the table
+
+		int n = 0;
+		for (long e : table) {
+			n += e == 0 ? 0 : 1;
+		}
+		BloomFilter f = new BloomFilter(n);
+		for (long e : table) {
+			if (e != 0) {
+				f.add((int) (e >>> 32));
+			}
+		}
+		return f;
+	}
+
+	/**
+	 * Murmur3 finaliser.
+	 */
+	private static int mix(int h) { // Big(O) = O(1) - No loops
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @param n the number of words
+	 * @return the number of slots of the hash table of a frozen dictionary of n
+	 *         words: a power of two, so the table is at most half full and probe
+	 *         sequences stay short
+	 */
+	private static int tableCapacity(int n) { // Big(O) = O(1) - No loops
+		return Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+	}
+
+	/**
+	 * Creates a frozen Dictionary straight from the arrays of it's frozen form, as
+	 * saved by a DictionarySnapshot. The arrays are used as they are, not copied,
+	 * but are checked first, so a damaged snapshot is rejected rather than giving
+	 * wrong definitions or lookups which never end.
+	 *
+	 * @param words      the words, in alphabetical order
+	 * @param defBytes   every definition, encoded as UTF-8
+	 * @param defOffsets the start of each word's definition in defBytes, plus the
+	 *                   end of the last
+	 * @param table      the open-addressing hash table
+	 * @return the frozen dictionary
+	 * @throws IllegalArgumentException if the arrays are not a frozen form as
+	 *                                  freeze() makes it
+	 */
+	static Dictionary frozen(String[] words, byte[] defBytes, int[] defOffsets, long[] table) { // Big(O) = O(n) -
+																								// defined by words
+		// the table must be as freeze() sizes it, and hold each word exactly once:
+		// an id past the last word would fail lookups, and a full table would leave
+		// lookups of missing words probing forever
+		if (defOffsets.length != words.length + 1 || table.length != tableCapacity(words.length)) {
+			throw new IllegalArgumentException("Inconsistent frozen dictionary");
+		}
+		boolean[] seen = new boolean[words.length];
+		int entries = 0;
+		for (long e : table) {
+			if (e != 0) {
+				int id = (int) e - 1;
+				if (id < 0 || id >= words.length || seen[id]) {
+					throw new IllegalArgumentException("Inconsistent frozen dictionary: bad id in hash table");
+				}
+				seen[id] = true;
+				entries++;
+			}
+		}
+		if (entries != words.length || entries == table.length) {
+			throw new IllegalArgumentException("Inconsistent frozen dictionary: hash table does not hold every word");
+		}
+		if (defOffsets[0] != 0 || defOffsets[words.length] != defBytes.length) {
+			throw new IllegalArgumentException("Inconsistent frozen dictionary: bad definition offsets");
+		}
+		for (int id = 0; id < words.length; id++) {
+			if (defOffsets[id] > defOffsets[id + 1]) {
+				throw new IllegalArgumentException("Inconsistent frozen dictionary: bad definition offsets");
+			}
+		}
+		Dictionary d = new Dictionary();
+		d.words = words;
+		d.defBytes = defBytes;
+		d.defOffsets = defOffsets;
+		d.table = table;
+		d.mask = table.length - 1;
+		d.filter = buildFilter(table); // cheap to rebuild, so not saved in the snapshot
+		d.mapDictionary = Map.of();
+		d.frozen = true;
+		return d;
+	}
+
+	/*
+	 * Package level access to the frozen form, used to save it to a
+	 * DictionarySnapshot.
+	 */
+	String[] frozenWords() { // Big(O) = O(1) - No loops
+		checkFrozen();
+		return words;
+	}
+
+	byte[] frozenDefBytes() { // Big(O) = O(1) - No loops
+		checkFrozen();
+		return defBytes;
+	}
+
+	int[] frozenDefOffsets() { // Big(O) = O(1) - No loops
+		checkFrozen();
+		return defOffsets;
+	}
 
+	long[] frozenTable() { // Big(O) = O(1) - No loops
+		checkFrozen();
+		return table;
 	}
 }
@@ -0,0 +1,207 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The DictionarySnapshot class saves a frozen Dictionary, already
+ *          stripped and filtered against the common words, to a binary file
+ *          next to the dictionary CSV (the CSV's name with a hash of the path
+ *          of the common words file and ".snap" added, so each pair of files
+ *          has a snapshot of it's own, e.g. dictionary.csv.1f3a9c0b.snap). On
+ *          later runs the snapshot is memory-mapped and the arrays of the
+ *          frozen dictionary are copied straight out of it, which is far
+ *          quicker than parsing the CSV again.
+ *
+ *          The snapshot records the size and last modified time of the CSV and
+ *          of the common words file (and the path of the latter) it was built
+ *          from. If any of these no longer match, or the snapshot was written
+ *          by a different version of the format, load() returns null and the
+ *          caller rebuilds it from the CSV.
+ *
+ *          Layout (big-endian): magic, version, CSV size, CSV modified time,
+ *          common words size, common words modified time, common words path,
+ *          word count, table length, definition bytes length, then the word
+ *          offsets, the words (UTF-8), the definition offsets, the definitions
+ *          (UTF-8) and the hash table.
+ */
+public class DictionarySnapshot {
+
+	private static final int MAGIC = 0x49445844; // "IDXD"
+	private static final int VERSION = 2; // bump whenever the layout or the word stripping rules change
+
+	/**
+	 * @param dictionary  the path to the dictionary CSV
+	 * @param commonWords the path to the common words file
+	 * @return the path of the snapshot for that dictionary filtered against those
+	 *         common words
+	 */
+	public static Path pathFor(String dictionary, String commonWords) { // Big(O) = O(l) - defined by the length of
+																		// the path
+		String common = Path.of(commonWords).toAbsolutePath().toString(); // as recorded in the snapshot
+		return Path.of(dictionary + "." + String.format("%08x", common.hashCode()) + ".snap");
+	}
+
+	/**
+	 * Loads a frozen Dictionary from a snapshot, if the snapshot exists and is
+	 * still up to date with the CSV and common words files.
+	 *
+	 * @param snap        the snapshot file
+	 * @param csv         the dictionary CSV the snapshot should have been built
+	 *                    from
+	 * @param commonWords the common words file the snapshot should have been
+	 *                    filtered against
+	 * @return the dictionary, or null if the snapshot is missing, stale or
+	 *         unreadable
+	 */
+	public static Dictionary load(Path snap, Path csv, Path commonWords) { // Big(O) = O(n) - defined by number of
+																			// words
+		if (!Files.isRegularFile(snap)) {
+			return null;
+		}
+
+		try (FileChannel ch = FileChannel.open(snap, StandardOpenOption.READ)) {
+			MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+				return null;
+			}
+			BasicFileAttributes csvAttr = Files.readAttributes(csv, BasicFileAttributes.class);
+			BasicFileAttributes commonAttr = Files.readAttributes(commonWords, BasicFileAttributes.class);
+			if (buf.getLong() != csvAttr.size() || buf.getLong() != csvAttr.lastModifiedTime().toMillis()
+					|| buf.getLong() != commonAttr.size()
+					|| buf.getLong() != commonAttr.lastModifiedTime().toMillis()
+					|| !getString(buf).equals(commonWords.toAbsolutePath().toString())) {
+				return null;
+			}
+
+			int n = buf.getInt();
+			int capacity = buf.getInt();
+			int defLength = buf.getInt();
+
+			int[] wordOffsets = new int[n + 1];
+			buf.asIntBuffer().get(wordOffsets);
+			buf.position(buf.position() + 4 * (n + 1));
+			String[] words = new String[n];
+			int wordStart = buf.position();
+			for (int i = 0; i < n; i++) {
+				words[i] = getString(buf, wordStart + wordOffsets[i], wordOffsets[i + 1] - wordOffsets[i]);
+			}
+			buf.position(wordStart + wordOffsets[n]);
+
+			int[] defOffsets = new int[n + 1];
+			buf.asIntBuffer().get(defOffsets);
+			buf.position(buf.position() + 4 * (n + 1));
+			byte[] defBytes = new byte[defLength];
+			buf.get(defBytes);
+
+			long[] table = new long[capacity];
+			buf.asLongBuffer().get(table);
+
+			return Dictionary.frozen(words, defBytes, defOffsets, table);
+		} catch (IOException | RuntimeException e) {
+			// a damaged or truncated snapshot is simply rebuilt
+			System.out.println("Dictionary snapshot unreadable, rebuilding: " + e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Saves a frozen Dictionary to a snapshot. The snapshot is written to a
+	 * temporary file which is then moved into place, so a run reading the
+	 * snapshot never sees it half written.
+	 *
+	 * @param snap        the snapshot file
+	 * @param dict        the frozen dictionary to be saved
+	 * @param csv         the dictionary CSV it was built from
+	 * @param commonWords the common words file it was filtered against
+	 * @throws IOException if the snapshot could not be written
+	 */
+	public static void write(Path snap, Dictionary dict, Path csv, Path commonWords) throws IOException { // Big(O) =
+																											// O(n)
+		String[] words = dict.frozenWords();
+		byte[] defBytes = dict.frozenDefBytes();
+		int[] defOffsets = dict.frozenDefOffsets();
+		long[] table = dict.frozenTable();
+
+		byte[][] wordBytes = new byte[words.length][];
+		int[] wordOffsets = new int[words.length + 1];
+		for (int i = 0; i < words.length; i++) {
+			wordBytes[i] = words[i].getBytes(StandardCharsets.UTF_8);
+			wordOffsets[i + 1] = wordOffsets[i] + wordBytes[i].length;
+		}
+		byte[] common = commonWords.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8);
+
+		long size = 4 + 4 + 8 * 4 + 4 + common.length + 4 * 3 + 4L * (words.length + 1) + wordOffsets[words.length]
+				+ 4L * (words.length + 1) + defBytes.length + 8L * table.length;
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Dictionary too large for a snapshot");
+		}
+
+		BasicFileAttributes csvAttr = Files.readAttributes(csv, BasicFileAttributes.class);
+		BasicFileAttributes commonAttr = Files.readAttributes(commonWords, BasicFileAttributes.class);
+
+		ByteBuffer buf = ByteBuffer.allocate((int) size);
+		buf.putInt(MAGIC).putInt(VERSION);
+		buf.putLong(csvAttr.size()).putLong(csvAttr.lastModifiedTime().toMillis());
+		buf.putLong(commonAttr.size()).putLong(commonAttr.lastModifiedTime().toMillis());
+		buf.putInt(common.length).put(common);
+		buf.putInt(words.length).putInt(table.length).putInt(defBytes.length);
+		for (int offset : wordOffsets) {
+			buf.putInt(offset);
+		}
+		for (byte[] w : wordBytes) {
+			buf.put(w);
+		}
+		for (int offset : defOffsets) {
+			buf.putInt(offset);
+		}
+		buf.put(defBytes);
+		buf.asLongBuffer().put(table);
+		buf.position(buf.limit());
+		buf.flip();
+
+		Path tmp = Files.createTempFile(snap.toAbsolutePath().getParent(), snap.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				while (buf.hasRemaining()) {
+					ch.write(buf);
+				}
+			}
+			Files.move(tmp, snap, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Reads a length prefixed UTF-8 String from the buffer.
+	 */
+	private static String getString(ByteBuffer buf) { // Big(O) = O(n) - defined by the length of the String
+		int len = buf.getInt();
+		String s = getString(buf, buf.position(), len);
+		buf.position(buf.position() + len);
+		return s;
+	}
+
+	/**
+	 * Decodes len bytes of UTF-8 at position at of the buffer.
+	 */
+	private static String getString(ByteBuffer buf, int at, int len) { // Big(O) = O(n) - defined by len
+		byte[] b = new byte[len];
+		buf.get(at, b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+}
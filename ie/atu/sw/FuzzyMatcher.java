@@ -0,0 +1,239 @@
+package ie.atu.sw;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The FuzzyMatcher object finds the word of a frozen Dictionary
+ *          closest to a word which is not in it, such as a spelling variant
+ *          ("honor" for "honour") or an archaic form, within a small number of
+ *          edits. An edit is inserting, deleting or changing a letter, or
+ *          swapping two letters next to each other.
+ *
+ *          Comparing a word with every word of the dictionary would be far too
+ *          slow, so the matcher is built on a deletion index (the SymSpell
+ *          method): every way of deleting up to maxDistance letters from each
+ *          word of the dictionary is worked out once, and the hash of each
+ *          result is kept, with the word's id, in a sorted array. Two words
+ *          within d edits of each other always have some deletion of at most d
+ *          letters in common, so the candidates for a word are found by working
+ *          out it's own deletions and looking each up in the array; only those
+ *          candidates are compared, letter by letter, with the word.
+ *
+ *          Short words are too close to too many others to be matched: words
+ *          shorter than MIN_LENGTH are never matched, and the edits allowed
+ *          grow with the length of the shorter word, one for every
+ *          MIN_LENGTH letters, up to maxDistance. Of the words within reach,
+ *          the one fewest edits away is taken, the first alphabetically when
+ *          there are several. Phrases are not matched.
+ *
+ *          Text repeats the same words over and over, so the result for each
+ *          distinct word looked up (matched or not) is kept, and every later
+ *          lookup of it is a single hash table read. A FuzzyMatcher may be
+ *          shared between threads.
+ */
+public class FuzzyMatcher {
+
+	public static final int MIN_LENGTH = 4; // shortest word matched, and letters per edit allowed
+	public static final int MAX_DISTANCE = 2; // most edits a FuzzyMatcher may be built for
+
+	private static final int CACHE_LIMIT = 1 << 20; // distinct words whose results are kept
+
+	private final Dictionary dictionary;
+	private final int maxDistance;
+	private final long[] deletes; // (hash of a deletion << 32) | id of the word it's from, sorted
+	private final ConcurrentHashMap<String, Integer> cache = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * Builds the deletion index of a frozen dictionary.
+	 *
+	 * @param newDictionary  the frozen dictionary
+	 * @param newMaxDistance the most edits a word may be from the dictionary word
+	 *                       it's matched to, 1 or 2
+	 * @throws IllegalArgumentException if newMaxDistance is out of range
+	 */
+	public FuzzyMatcher(Dictionary newDictionary, int newMaxDistance) { // Big(O) = O(n * l^d) - defined by the
+																		// words and their deletions
+		if (newMaxDistance < 1 || newMaxDistance > MAX_DISTANCE) {
+			throw new IllegalArgumentException("Edit distance must be from 1 to " + MAX_DISTANCE);
+		}
+		dictionary = newDictionary;
+		maxDistance = newMaxDistance;
+
+		long[] index = new long[1024];
+		int size = 0;
+		Set<String> variants = new HashSet<String>();
+		for (int id = 0; id < dictionary.size(); id++) {
+			String word = dictionary.wordAt(id);
+			if (word.length() < MIN_LENGTH || word.indexOf(' ') >= 0) {
+				continue;
+			}
+			variants.clear();
+			addDeletes(word, allowed(word.length()), variants);
+			if (index.length < size + variants.size()) {
+				index = Arrays.copyOf(index, Math.max(index.length * 2, size + variants.size()));
+			}
+			for (String v : variants) {
+				index[size++] = ((long) v.hashCode() << 32) | id;
+			}
+		}
+		deletes = Arrays.copyOf(index, size);
+		Arrays.sort(deletes);
+	}
+
+	/**
+	 * @return the most edits a word may be from the dictionary word it's matched
+	 *         to
+	 */
+	public int maxDistance() { // Big(O) = O(1) - No loops
+		return maxDistance;
+	}
+
+	/**
+	 * @return the number of distinct words whose results are kept
+	 */
+	public int cached() { // Big(O) = O(1) - No loops
+		return cache.size();
+	}
+
+	/**
+	 * Finds the dictionary word closest to a word which is not in the
+	 * dictionary.
+	 *
+	 * @param word the word, in lower case
+	 * @return the id of the closest dictionary word, or -1 if there is none
+	 *         within reach
+	 */
+	public int lookup(String word) { // Big(O) = O(1) once the word has been seen, O(l^d * c) the first time
+		if (word.length() < MIN_LENGTH) {
+			return -1;
+		}
+		Integer id = cache.get(word);
+		if (id == null) {
+			id = match(word);
+			if (cache.size() < CACHE_LIMIT) {
+				cache.put(word, id);
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Searches the deletion index for the dictionary word closest to word.
+	 */
+	private int match(String word) { // Big(O) = O(l^d * c) - defined by the deletions of the word and their
+										// candidates
+		int allowed = allowed(word.length());
+		Set<String> variants = new HashSet<String>();
+		addDeletes(word, allowed, variants);
+
+		Set<Integer> compared = new HashSet<Integer>();
+		int best = -1;
+		int bestDistance = allowed + 1;
+		for (String v : variants) {
+			long key = (long) v.hashCode() << 32;
+			for (int i = first(key); i < deletes.length && (deletes[i] & 0xFFFFFFFF00000000L) == key; i++) {
+				int id = (int) deletes[i];
+				if (!compared.add(id)) {
+					continue;
+				}
+				String candidate = dictionary.wordAt(id);
+				int reach = Math.min(allowed, allowed(candidate.length()));
+				if (Math.abs(candidate.length() - word.length()) > reach) {
+					continue;
+				}
+				int d = distance(word, candidate, reach);
+				if (d > reach) {
+					continue;
+				}
+				if (d < bestDistance || (d == bestDistance && id < best)) {
+					best = id;
+					bestDistance = d;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the position of the first entry of the deletion index at or after
+	 *         key
+	 */
+	private int first(long key) { // Big(O) = O(log m) - binary search of the index
+		int lo = 0;
+		int hi = deletes.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (deletes[mid] < key) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * @return the edits allowed for a word of the given length
+	 */
+	private int allowed(int length) { // Big(O) = O(1) - No loops
+		return Math.min(maxDistance, length / MIN_LENGTH);
+	}
+
+	/**
+	 * Adds word, and every way of deleting up to d letters from it, to variants.
+	 */
+	private static void addDeletes(String word, int d, Set<String> variants) { // Big(O) = O(l^d) - defined by the
+																				// length of the word
+		if (!variants.add(word) || d == 0) {
+			return; // already reached another way, so are it's deletions
+		}
+		for (int i = 0; i < word.length(); i++) {
+			addDeletes(word.substring(0, i) + word.substring(i + 1), d - 1, variants);
+		}
+	}
+
+	/**
+	 * Counts the edits between two words: inserting, deleting or changing a
+	 * letter, or swapping two letters next to each other (the optimal string
+	 * alignment distance). Gives up once more than limit edits are certain.
+	 *
+	 * @return the number of edits, or limit + 1 if there are more than limit
+	 */
+	private static int distance(String a, String b, int limit) { // Big(O) = O(l^2) - defined by the lengths of
+																	// the words
+		int[] before = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int lowest = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					d = Math.min(d, before[j - 2] + 1);
+				}
+				current[j] = d;
+				lowest = Math.min(lowest, d);
+			}
+			if (lowest > limit) {
+				return limit + 1;
+			}
+			int[] t = before;
+			before = previous;
+			previous = current;
+			current = t;
+		}
+		return Math.min(previous[b.length()], limit + 1);
+	}
+}
@@ -0,0 +1,386 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The IndexDaemon object indexes files without the menu, taking it's
+ *          jobs from a spool directory, for indexing many files one after
+ *          another. The exclusions and frozen dictionary are kept loaded
+ *          between jobs in a ResourceCache, and only loaded again when their
+ *          files change, so each job goes straight to reading it's text file.
+ *          The files are checked every couple of seconds; a changed dictionary
+ *          is loaded in the background while jobs carry on with the one before
+ *          it, and jobs started after it's swapped in use the new one.
+ *
+ *          A job is a properties file ending in ".job" placed in the spool
+ *          directory (write it under another name and rename it, so it's never
+ *          read half written):
+ *
+ *          > input, output - the text file (or corpus) and the output file, as
+ *          for the menu. > dictionary, common - the dictionary and common words
+ *          files, if not those the daemon was started with. > counts,
+ *          positions, incremental - true to switch them on. > budget - the
+ *          memory budget in MB. > fuzzy - the edits allowed in fuzzy matching,
+ *          1 or 2 (0, exact matches only, if not given). > priority - from 1 to
+ *          10 (5 if not given).
+ *
+ *          Relative paths are taken from the spool directory. A job is moved to
+ *          "work" while it runs, then to "done" or "failed" along with a ".log"
+ *          file holding what the Parser printed. Jobs are taken in the order
+ *          they arrived, and run at the same time on the shared worker pool of
+ *          a JobScheduler, which shares the workers between them by priority
+ *          and holds jobs back while the inputs of those running are too large.
+ *          Placing a file named "stop" in the spool directory stops the daemon
+ *          once the jobs already taken have finished.
+ */
+public class IndexDaemon {
+
+	public static final String JOB_SUFFIX = ".job";
+	public static final String STOP_FILE = "stop";
+	private static final long POLL_MILLIS = 2_000; // checked for jobs at least this often, in case an event is missed
+
+	private final Path spool;
+	private final Path work;
+	private final Path done;
+	private final Path failed;
+	private final String dictionary;
+	private final String commonWords;
+	private final ResourceCache cache = new ResourceCache();
+	private final JobScheduler scheduler;
+	private final AtomicInteger jobsDone = new AtomicInteger();
+	private final AtomicInteger jobsFailed = new AtomicInteger();
+	private volatile boolean running = true;
+	private PrintStream console; // System.out before the daemon started
+
+	// the log of the job being run by a thread, passed on to the threads it starts
+	private static final InheritableThreadLocal<PrintStream> LOG = new InheritableThreadLocal<PrintStream>();
+
+	/**
+	 * Constructor for the IndexDaemon object. Creates the work, done and failed
+	 * directories inside the spool directory if need be, and puts any job left in
+	 * work by a daemon which was stopped part way through back in the spool.
+	 *
+	 * @param newSpool       the spool directory
+	 * @param newDictionary  the dictionary used by jobs which don't give one
+	 * @param newCommonWords the common words file used by jobs which don't give
+	 *                       one
+	 * @throws IOException if the directories could not be created
+	 */
+	public IndexDaemon(Path newSpool, String newDictionary, String newCommonWords)
+			throws IOException { // Big(O) = O(j) - defined by the jobs left in work
+		this(newSpool, newDictionary, newCommonWords, new JobScheduler());
+	}
+
+	/**
+	 * Constructor for an IndexDaemon running it's jobs with a given scheduler,
+	 * which is closed when the daemon stops.
+	 *
+	 * @param newSpool       the spool directory
+	 * @param newDictionary  the dictionary used by jobs which don't give one
+	 * @param newCommonWords the common words file used by jobs which don't give
+	 *                       one
+	 * @param newScheduler   the scheduler the jobs are run by
+	 * @throws IOException if the directories could not be created
+	 */
+	public IndexDaemon(Path newSpool, String newDictionary, String newCommonWords, JobScheduler newScheduler)
+			throws IOException { // Big(O) = O(j) - defined by the jobs left in work
+		scheduler = newScheduler;
+		spool = newSpool.toAbsolutePath();
+		work = Files.createDirectories(spool.resolve("work"));
+		done = Files.createDirectories(spool.resolve("done"));
+		failed = Files.createDirectories(spool.resolve("failed"));
+		dictionary = newDictionary;
+		commonWords = newCommonWords;
+
+		for (Path job : jobsIn(work)) {
+			Files.move(job, spool.resolve(job.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Runs jobs as they arrive in the spool directory, until stopped by stop() or
+	 * a stop file. The spool directory is watched for new files, and also checked
+	 * every couple of seconds. While the daemon runs, System.out is replaced by
+	 * a stream which sends what each job prints to it's log.
+	 *
+	 * @throws IOException          if the spool directory could not be read
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void run() throws IOException, InterruptedException { // Big(O) = O(j) - defined by the number of jobs
+
+		console = System.out;
+		System.setOut(routed(console));
+		try (WatchService watcher = spool.getFileSystem().newWatchService()) {
+			spool.register(watcher, StandardWatchEventKinds.ENTRY_CREATE);
+			System.out.println("Indexing daemon watching " + spool + " for " + JOB_SUFFIX + " files...");
+			while (running) {
+				for (Path job : jobsIn(spool)) {
+					process(job);
+				}
+				if (Files.deleteIfExists(spool.resolve(STOP_FILE))) {
+					break;
+				}
+				cache.refresh(); // reload the dictionaries whose files have changed, in the background
+				WatchKey key = watcher.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (key != null) {
+					key.pollEvents();
+					key.reset();
+				}
+			}
+		} finally {
+			try {
+				scheduler.close(); // waits for the jobs taken
+			} finally {
+				System.setOut(console);
+			}
+		}
+		System.out.println("Indexing daemon stopped - " + jobsDone + " jobs done, " + jobsFailed + " failed, "
+				+ cache.loads() + " dictionary loads.");
+	}
+
+	/**
+	 * Stops the daemon once the jobs already taken have finished.
+	 */
+	public void stop() { // Big(O) = O(1) - No loops
+		running = false;
+	}
+
+	/**
+	 * Claims a job, by moving it to the work directory (so it's skipped if
+	 * another daemon has claimed it already), and submits it to the scheduler
+	 * with it's priority and the size of it's input. Everything printed while it
+	 * runs goes to it's log.
+	 *
+	 * @param job the job file in the spool directory
+	 */
+	private void process(Path job) throws IOException { // Big(O) = O(1) - the job runs on the scheduler
+
+		String name = job.getFileName().toString();
+		Path claimed = work.resolve(name);
+		try {
+			Files.move(job, claimed, StandardCopyOption.ATOMIC_MOVE);
+		} catch (NoSuchFileException | AtomicMoveNotSupportedException e) {
+			return; // claimed by someone else
+		}
+
+		// the priority and size are only used for scheduling; a job which can't be
+		// read fails when it runs, with the reason in it's log
+		int priority = JobScheduler.NORM_PRIORITY;
+		long size = 0;
+		try {
+			Properties p = read(claimed);
+			priority = Math.max(JobScheduler.MIN_PRIORITY, Math.min(JobScheduler.MAX_PRIORITY,
+					Integer.parseInt(p.getProperty("priority", "" + JobScheduler.NORM_PRIORITY).trim())));
+			size = new Parser(resolve(p.getProperty("output")), resolve(p.getProperty("input")), null, null)
+					.estimateInputSize();
+		} catch (Exception e) {
+			// scheduled as a small job of normal priority
+		}
+
+		long start = System.nanoTime();
+		Path log = work.resolve(name + ".log");
+		JobScheduler.Job submitted = scheduler.submit(name, priority, size, executor -> {
+			boolean ok = false;
+			try (PrintStream out = new PrintStream(Files.newOutputStream(log), true, StandardCharsets.UTF_8)) {
+				LOG.set(out);
+				try {
+					ok = runJob(claimed, executor);
+				} catch (Throwable t) {
+					// anything runJob doesn't handle still fails the job, with the reason in it's log
+					System.out.println("Error: job stopped - " + t);
+				}
+			} finally {
+				LOG.remove();
+			}
+
+			Path to = ok ? done : failed;
+			Files.move(claimed, to.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(log, to.resolve(log.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+			(ok ? jobsDone : jobsFailed).incrementAndGet();
+			System.out.println("Job " + name + (ok ? " done" : " failed") + " in "
+					+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+		});
+
+		// if the job couldn't be finished (it's log couldn't be written, or it couldn't
+		// be moved out of work), fail it here, so it's not left in work to be run again
+		// every time the daemon starts
+		submitted.result().whenComplete((result, thrown) -> {
+			if (thrown != null) {
+				abandon(name, claimed, log, thrown instanceof CompletionException && thrown.getCause() != null
+						? thrown.getCause()
+						: thrown);
+			}
+		});
+	}
+
+	/**
+	 * Moves a job which could not be finished, and any log it has, to the failed
+	 * directory, adding the reason to the log.
+	 *
+	 * @param name    the name of the job
+	 * @param claimed the job file, in work unless already moved
+	 * @param log     the job's log, in work unless already moved
+	 * @param reason  why it could not be finished
+	 */
+	private void abandon(String name, Path claimed, Path log, Throwable reason) { // Big(O) = O(1) - No loops
+
+		jobsFailed.incrementAndGet();
+		System.out.println("Job " + name + " failed - " + reason);
+		try {
+			if (Files.exists(claimed)) {
+				Files.move(claimed, failed.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+			}
+			Path failedLog = failed.resolve(log.getFileName());
+			if (Files.exists(log)) {
+				Files.move(log, failedLog, StandardCopyOption.REPLACE_EXISTING);
+			}
+			Files.writeString(failedLog, "Error: job could not be finished - " + reason + System.lineSeparator(),
+					StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			System.out.println("Error: job " + name + " could not be moved to " + failed + " - "
+					+ e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Reads a job and runs a Parser for it, with the cached exclusions and
+	 * dictionary, handing it's chunks to the scheduler.
+	 *
+	 * @return true if the index was written
+	 */
+	private boolean runJob(Path job, Executor executor) { // Big(O) = O(n) - defined by the job
+
+		Properties p;
+		try {
+			p = read(job);
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Error: job could not be read - " + e.getLocalizedMessage());
+			return false;
+		}
+		String input = resolve(p.getProperty("input"));
+		String output = resolve(p.getProperty("output"));
+		if (input == null || output == null) {
+			System.out.println("Error: a job needs an input and an output");
+			return false;
+		}
+		String dict = p.containsKey("dictionary") ? resolve(p.getProperty("dictionary")) : dictionary;
+		String common = p.containsKey("common") ? resolve(p.getProperty("common")) : commonWords;
+
+		try {
+			ResourceCache.Resources resources = cache.get(dict, common);
+			System.out.println("Using dictionary version " + resources.version() + " - "
+					+ resources.dictionary().size() + " words defined.");
+			Parser parser = new Parser(output, input, dict, common);
+			parser.setResources(resources.dictionary(), resources.exclusions());
+			parser.setExecutor(executor);
+			parser.setIncremental(Boolean.parseBoolean(p.getProperty("incremental")));
+			parser.setCounts(Boolean.parseBoolean(p.getProperty("counts")));
+			parser.setPositions(Boolean.parseBoolean(p.getProperty("positions")));
+			parser.setMemoryBudget(Long.parseLong(p.getProperty("budget", "0").trim()) * 1024L * 1024L);
+			parser.setFuzzy(Integer.parseInt(p.getProperty("fuzzy", "0").trim()));
+			parser.run(false);
+			return !parser.hasFailed();
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Error: " + e.getLocalizedMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * @return the properties of a job file
+	 */
+	private static Properties read(Path job) throws IOException { // Big(O) = O(1) - a few lines
+
+		Properties p = new Properties();
+		try (Reader in = Files.newBufferedReader(job, StandardCharsets.UTF_8)) {
+			p.load(in);
+		}
+		return p;
+	}
+
+	/**
+	 * @return a stream which writes to the log of the job the calling thread is
+	 *         running, or to the console if none
+	 */
+	private static PrintStream routed(PrintStream console) { // Big(O) = O(1) - No loops
+
+		return new PrintStream(new OutputStream() {
+			private PrintStream target() { // Big(O) = O(1) - No loops
+				PrintStream log = LOG.get();
+				return log != null ? log : console;
+			}
+
+			@Override
+			public void write(int b) { // Big(O) = O(1) - No loops
+				target().write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) { // Big(O) = O(n) - defined by len
+				target().write(b, off, len);
+			}
+
+			@Override
+			public void flush() { // Big(O) = O(1) - No loops
+				target().flush();
+			}
+		}, true, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return a path from a job, taken from the spool directory if relative
+	 */
+	private String resolve(String path) { // Big(O) = O(1) - No loops
+		return path == null ? null : spool.resolve(path.trim()).toString();
+	}
+
+	/**
+	 * @return the job files in a directory, oldest first
+	 */
+	private static List<Path> jobsIn(Path dir) throws IOException { // Big(O) = O(j log j) - sorting the jobs
+
+		Map<Path, Long> modified = new HashMap<Path, Long>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + JOB_SUFFIX)) {
+			for (Path f : files) {
+				try {
+					if (Files.isRegularFile(f)) {
+						modified.put(f, Files.getLastModifiedTime(f).toMillis());
+					}
+				} catch (NoSuchFileException e) {
+					// claimed by someone else
+				}
+			}
+		}
+		List<Path> jobs = new ArrayList<Path>(modified.keySet());
+		jobs.sort(Comparator.comparing((Path f) -> modified.get(f)).thenComparing(Comparator.naturalOrder()));
+		return jobs;
+	}
+}
@@ -1,7 +1,5 @@
 package ie.atu.sw;
 
-import java.util.concurrent.*;
-
 /**
  * @author Brian Scott
  * @version 1.0
@@ -10,14 +8,14 @@ import java.util.concurrent.*;
  *          The IndexEntry object contains all items necessary to define an
  *          index item. word: the word being defined. definition: the definition
  *          for the word. setWordPages: a record of all pages the word appears
- *          on, help in a collection. <i>Note: this class was not used in the
- *          final version of the project</i>
+ *          on, help in a collection. IndexEntry objects are handed back when
+ *          an IndexFile is read.
  */
 public class IndexEntry {
 
 	private String word;
 	private String definition;
-	private ConcurrentSkipListSet<String> setWordPages;
+	private PageSet setWordPages;
 
 	/**
 	 * Getters and setters foe the private variables word, definition and
@@ -39,11 +37,11 @@ public class IndexEntry {
 		this.definition = definition;
 	}
 
-	public ConcurrentSkipListSet<String> getWordPages() {
+	public PageSet getWordPages() {
 		return setWordPages;
 	}
 
-	public void setWordPages(ConcurrentSkipListSet<String> setWordPages) {
+	public void setWordPages(PageSet setWordPages) {
 		this.setWordPages = setWordPages;
 	}
 
@@ -56,13 +54,13 @@ public class IndexEntry {
 	 *                 object
 	 * @param newPages the collection of pages that word appears in the sample text
 	 */
-	public IndexEntry(String newWord, String def, ConcurrentSkipListSet<String> newPages) { // Big(O) = O(1) - Set
+	public IndexEntry(String newWord, String def, PageSet newPages) { // Big(O) = O(1) - Set
 																							// object, being constructed
 
 		// Object contains three variables: a word, it;s definition and the pages it
 		// appears on.
 		setWord(newWord);
-		setDefinition(definition);
+		setDefinition(def);
 		setWordPages(newPages);
 	}
 
@@ -0,0 +1,400 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The IndexExporter object turns a saved IndexFile into the plain text
+ *          index format: for each word, a separator line followed by the word,
+ *          it's definition and the pages it appears on.
+ *
+ *          Entries are taken from the index file in a single ordered pass
+ *          (IndexFile.Reader.scan), with no lookups per word. The word and
+ *          definition are copied across as the UTF-8 bytes already held in the
+ *          index, and page numbers are written out digit by digit, so no
+ *          Strings are built. Output is gathered into a ring of reusable
+ *          direct buffers which are written to a FileChannel together, in one
+ *          gathering write, each time they all fill up.
+ *
+ *          The combined index of a corpus is exported the same way from the
+ *          IndexFiles of it's documents, read side by side in order of word
+ *          (see exportCorpus), so the definitions come from those files rather
+ *          than from the dictionary, and each word is written once with the
+ *          pages of each document it appears in.
+ *
+ *          If the PostingList of each word is given (see setPostings), each
+ *          entry can also list the number of times the word occurs on each of
+ *          it's pages, and the line and column of every occurrence. These are
+ *          decoded straight from the PostingList into the ring.
+ *
+ *          The ring is a megabyte of direct memory, which is slow to allocate
+ *          and only freed by the garbage collector, so exporters are kept for
+ *          reuse: acquire() takes an idle one (or makes one if all are busy)
+ *          and release() gives it back. A daemon writing many outputs, on
+ *          whatever threads, reuses the same few rings.
+ */
+public class IndexExporter {
+
+	public static final int BUFFERS = 4; // buffers in the ring
+	public static final int BUFFER_SIZE = 256 * 1024; // bytes per buffer
+
+	private static final int IDLE_LIMIT = 4; // exporters kept for reuse
+	private static final ConcurrentLinkedQueue<IndexExporter> idle = new ConcurrentLinkedQueue<IndexExporter>();
+
+	private static final byte[] SEPARATOR = "-------------------------------------\nWord: "
+			.getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] DEFINITION = "\nDefinition: ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PAGES = "\nPages: [".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PAGE_GAP = ", ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] END = "]\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] COUNTS = "Counts: [".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] POSITIONS = "Positions: [".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] COLON = ":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CORPUS_PAGES = "\nPages: ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] DOCUMENT_GAP = "; ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] DOCUMENT_PAGES = " [".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CLOSE = "]".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NEW_LINE = "\n".getBytes(StandardCharsets.US_ASCII);
+
+	private final ByteBuffer[] ring = new ByteBuffer[BUFFERS];
+	private final byte[] digits = new byte[10];
+	private FileChannel out;
+	private int current; // buffer of the ring currently being filled
+	private long written; // bytes written to the channel
+	private Map<String, PostingList> postings; // occurrences of each word, if counts or positions are exported
+	private boolean counts; // list the occurrences on each page
+	private boolean positions; // list the line and column of each occurrence
+
+	/**
+	 * Constructor for the IndexExporter object. Allocates the ring of direct
+	 * buffers, which are reused for every export made with this object.
+	 */
+	public IndexExporter() { // Big(O) = O(1) - No loops
+		for (int i = 0; i < BUFFERS; i++) {
+			ring[i] = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+	}
+
+	/**
+	 * Writes the text form of an index to a file, overwriting the file if it
+	 * exists.
+	 *
+	 * @param index  the index to be exported
+	 * @param output the file to write to
+	 * @return the number of entries written
+	 * @throws IOException if the index could not be read or the file written
+	 */
+	public static int writeText(IndexFile.Reader index, Path output) throws IOException { // Big(O) = O(n) - defined
+																							// by number of entries
+		IndexExporter exporter = acquire();
+		try {
+			return exporter.export(index, output);
+		} finally {
+			exporter.release();
+		}
+	}
+
+	/**
+	 * Takes an exporter which is not in use, making one if there are none. It
+	 * should be given back with release() once it's exports are done.
+	 *
+	 * @return the exporter, exporting pages only
+	 */
+	public static IndexExporter acquire() { // Big(O) = O(1) - No loops
+		IndexExporter exporter = idle.poll();
+		return exporter != null ? exporter : new IndexExporter();
+	}
+
+	/**
+	 * Gives an exporter taken by acquire() back for reuse. It must not be used
+	 * again by the caller.
+	 */
+	public void release() { // Big(O) = O(1) - No loops
+		setPostings(null, false, false); // don't keep the last run's occurrences reachable
+		if (idle.size() < IDLE_LIMIT) {
+			idle.add(this);
+		}
+	}
+
+	/**
+	 * Sets the occurrences of each word, to be exported with the pages of each
+	 * entry. Entries whose word has no PostingList are exported without them.
+	 *
+	 * @param newPostings  the PostingList of each word, or null to export pages
+	 *                     only
+	 * @param newCounts    list the number of occurrences on each page
+	 * @param newPositions list the line and column of each occurrence
+	 */
+	public synchronized void setPostings(Map<String, PostingList> newPostings, boolean newCounts,
+			boolean newPositions) { // Big(O) = O(1) - No loops
+		postings = newPostings;
+		counts = newCounts;
+		positions = newPositions;
+	}
+
+	/**
+	 * Writes the text form of an index to a file, overwriting the file if it
+	 * exists. An IndexExporter may only run one export at a time.
+	 *
+	 * @param index  the index to be exported
+	 * @param output the file to write to
+	 * @return the number of entries written
+	 * @throws IOException if the index could not be read or the file written
+	 */
+	public synchronized int export(IndexFile.Reader index, Path output) throws IOException { // Big(O) = O(n)
+
+		int[] count = { 0 };
+		try (FileChannel ch = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			start(ch);
+			IOException[] failure = { null };
+			index.scan(e -> {
+				if (failure[0] != null) {
+					return;
+				}
+				try {
+					put(SEPARATOR, 0, SEPARATOR.length);
+					put(e.bytes(), e.wordOffset(), e.wordLength());
+					put(DEFINITION, 0, DEFINITION.length);
+					put(e.bytes(), e.definitionOffset(), e.definitionLength());
+					put(PAGES, 0, PAGES.length);
+					putPages(e);
+					put(END, 0, END.length);
+					if (postings != null && (counts || positions)) {
+						putPostings(postings.get(
+								new String(e.bytes(), e.wordOffset(), e.wordLength(), StandardCharsets.UTF_8)));
+					}
+					count[0]++;
+				} catch (IOException ex) {
+					failure[0] = ex;
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			flush();
+		} finally {
+			out = null;
+		}
+		return count[0];
+	}
+
+	/**
+	 * Writes the combined text index of a corpus to a file, overwriting the file
+	 * if it exists. The IndexFiles of the documents are read side by side, in
+	 * order of word, and each word is written once with it's definition and the
+	 * pages of each document it appears in, e.g. "Pages: Genesis.txt [1, 2];
+	 * Exodus.txt [7]". An IndexExporter may only run one export at a time.
+	 *
+	 * @param documents the index of each document, in document number order
+	 * @param labels    the name each document is listed under
+	 * @param output    the file to write to
+	 * @return the number of entries written
+	 * @throws IOException if an index could not be read or the file written
+	 */
+	public synchronized int exportCorpus(List<IndexFile.Reader> documents, List<String> labels, Path output)
+			throws IOException { // Big(O) = O(n * d) - defined by the entries and documents
+
+		int d = documents.size();
+		IndexFile.Cursor[] cursors = new IndexFile.Cursor[d];
+		boolean[] holding = new boolean[d]; // the documents holding the word being written
+		byte[][] names = new byte[d][];
+		for (int doc = 0; doc < d; doc++) {
+			cursors[doc] = documents.get(doc).cursor();
+			if (!cursors[doc].next()) {
+				cursors[doc] = null; // an empty index
+			}
+			names[doc] = labels.get(doc).getBytes(StandardCharsets.UTF_8);
+		}
+
+		int count = 0;
+		try (FileChannel ch = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			start(ch);
+			while (true) {
+				// the first word of any document not yet written
+				IndexFile.Cursor first = null;
+				for (IndexFile.Cursor c : cursors) {
+					if (c != null && (first == null || c.compareWord(first) < 0)) {
+						first = c;
+					}
+				}
+				if (first == null) {
+					break;
+				}
+
+				put(SEPARATOR, 0, SEPARATOR.length);
+				put(first.bytes(), first.wordOffset(), first.wordLength());
+				put(DEFINITION, 0, DEFINITION.length);
+				put(first.bytes(), first.definitionOffset(), first.definitionLength());
+				put(CORPUS_PAGES, 0, CORPUS_PAGES.length);
+				boolean gap = false;
+				for (int doc = 0; doc < d; doc++) {
+					IndexFile.Cursor c = cursors[doc];
+					holding[doc] = c != null && (c == first || c.compareWord(first) == 0);
+					if (!holding[doc]) {
+						continue;
+					}
+					if (gap) {
+						put(DOCUMENT_GAP, 0, DOCUMENT_GAP.length);
+					}
+					gap = true;
+					put(names[doc], 0, names[doc].length);
+					put(DOCUMENT_PAGES, 0, DOCUMENT_PAGES.length);
+					putPages(c);
+					put(CLOSE, 0, CLOSE.length);
+				}
+				put(NEW_LINE, 0, NEW_LINE.length);
+				count++;
+
+				for (int doc = 0; doc < d; doc++) {
+					if (holding[doc] && !cursors[doc].next()) {
+						cursors[doc] = null;
+					}
+				}
+			}
+			flush();
+		} finally {
+			out = null;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of bytes written by the last export
+	 */
+	public long bytesWritten() { // Big(O) = O(1) - No loops
+		return written;
+	}
+
+	/**
+	 * Starts an export to a newly opened file, emptying the ring for it.
+	 */
+	private void start(FileChannel ch) { // Big(O) = O(1) - No loops
+		out = ch;
+		written = 0;
+		current = 0;
+		for (ByteBuffer b : ring) {
+			b.clear();
+		}
+	}
+
+	/**
+	 * Writes the pages of an entry, separated by commas.
+	 */
+	private void putPages(IndexFile.Cursor e) throws IOException { // Big(O) = O(p) - defined by the pages
+		for (int i = 0; i < e.pageCount(); i++) {
+			if (i > 0) {
+				put(PAGE_GAP, 0, PAGE_GAP.length);
+			}
+			putNumber(e.nextPage());
+		}
+	}
+
+	/**
+	 * Writes the counts and positions lines of an entry from it's PostingList.
+	 */
+	private void putPostings(PostingList list) throws IOException { // Big(O) = O(n) - defined by the occurrences
+
+		if (list == null) {
+			return;
+		}
+		if (counts) {
+			put(COUNTS, 0, COUNTS.length);
+			IOException[] failure = { null };
+			boolean[] first = { true };
+			list.forEachPage((page, count) -> {
+				try {
+					if (!first[0]) {
+						put(PAGE_GAP, 0, PAGE_GAP.length);
+					}
+					first[0] = false;
+					putNumber(count);
+				} catch (IOException ex) {
+					failure[0] = ex;
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			put(END, 0, END.length);
+		}
+		if (positions) {
+			put(POSITIONS, 0, POSITIONS.length);
+			PostingList.Cursor c = list.cursor();
+			for (boolean first = true; c.next(); first = false) {
+				if (!first) {
+					put(PAGE_GAP, 0, PAGE_GAP.length);
+				}
+				putNumber(c.line());
+				put(COLON, 0, COLON.length);
+				putNumber(c.column());
+			}
+			put(END, 0, END.length);
+		}
+	}
+
+	/**
+	 * Copies bytes into the ring, moving on to the next buffer as each fills, and
+	 * writing the whole ring out once every buffer is full.
+	 */
+	private void put(byte[] src, int offset, int length) throws IOException { // Big(O) = O(n) - defined by length
+
+		while (length > 0) {
+			ByteBuffer buf = ring[current];
+			if (!buf.hasRemaining()) {
+				if (++current == BUFFERS) {
+					flush();
+				}
+				buf = ring[current];
+			}
+			int n = Math.min(length, buf.remaining());
+			buf.put(src, offset, n);
+			offset += n;
+			length -= n;
+		}
+	}
+
+	/**
+	 * Writes a non-negative number as ASCII digits.
+	 */
+	private void putNumber(int value) throws IOException { // Big(O) = O(1) - at most 10 digits
+
+		int i = digits.length;
+		do {
+			digits[--i] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		put(digits, i, digits.length - i);
+	}
+
+	/**
+	 * Writes the filled part of every buffer in the ring with a single gathering
+	 * write, then empties the ring for reuse.
+	 */
+	private void flush() throws IOException { // Big(O) = O(n) - defined by the bytes buffered
+
+		int used = Math.min(current + 1, BUFFERS);
+		for (int i = 0; i < used; i++) {
+			ring[i].flip();
+		}
+		while (ring[used - 1].hasRemaining()) {
+			written += out.write(ring, 0, used);
+		}
+		for (int i = 0; i < used; i++) {
+			ring[i].clear();
+		}
+		current = 0;
+	}
+}
@@ -0,0 +1,624 @@
+package ie.atu.sw;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The IndexFile class defines a compact binary file holding a finished
+ *          index: each word, it's definition and the pages it appears on,
+ *          sorted by word. Entries are grouped into blocks of up to
+ *          BLOCK_ENTRIES entries and each block is compressed with Deflate. A
+ *          sparse directory at the end of the file holds the first word of
+ *          each block and where the block starts, so a word can be found by a
+ *          binary search of the directory followed by reading and inflating a
+ *          single block, without loading the rest of the index.
+ *
+ *          Layout: magic and version, the blocks (each a compressed length, an
+ *          uncompressed length and the Deflate data), the directory (block
+ *          count, then the first word and file offset of each block), then a
+ *          fixed size footer giving the directory's offset and the number of
+ *          entries. Within a block each entry is the word and definition (both
+ *          length prefixed UTF-8), the number of pages, and the pages as
+ *          varint gaps from the previous page.
+ */
+public class IndexFile {
+
+	public static final int BLOCK_ENTRIES = 128; // entries per compressed block
+
+	private static final int MAGIC = 0x49445849; // "IDXI"
+	private static final int VERSION = 1;
+	private static final int HEADER = 8; // magic and version
+	private static final int FOOTER = 16; // directory offset, entry count and magic
+
+	/**
+	 * @param outputFile the path of the text output
+	 * @return the path of the index file saved alongside it
+	 */
+	public static Path pathFor(String outputFile) { // Big(O) = O(1) - No loops
+		return Path.of(outputFile + ".idx");
+	}
+
+	/**
+	 * Writes an index file. Entries must be added in strictly ascending order of
+	 * word. The file is only complete once the Writer is closed.
+	 */
+	public static class Writer implements Closeable {
+
+		private final FileChannel ch;
+		private final Dictionary dictionary; // gives the definitions of add(word, pages), or null
+		private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+		private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		private final List<String> firstWords = new ArrayList<String>();
+		private final List<Long> offsets = new ArrayList<Long>();
+		private String lastWord;
+		private int inBlock; // entries in the current block
+		private int entries; // entries in the file
+		private long position; // where the next block will be written
+		private int nextId; // the dictionary is searched from here for the next word
+
+		/**
+		 * Creates (or overwrites) an index file.
+		 *
+		 * @param file the file to be written
+		 * @throws IOException if the file could not be created
+		 */
+		public Writer(Path file) throws IOException { // Big(O) = O(1) - No loops
+			this(file, null);
+		}
+
+		/**
+		 * Creates (or overwrites) an index file whose definitions are taken from a
+		 * frozen dictionary as the words are added (see add(String, PageSet)).
+		 *
+		 * @param file       the file to be written
+		 * @param dictionary the dictionary holding the definitions, or null
+		 * @throws IOException if the file could not be created
+		 */
+		public Writer(Path file, Dictionary dictionary) throws IOException { // Big(O) = O(1) - No loops
+
+			this.dictionary = dictionary;
+			ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			write(ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).flip());
+		}
+
+		/**
+		 * Adds an entry to the index, with the definition of the word in the
+		 * Writer's dictionary. As words are added in order, the dictionary's words
+		 * are walked through alongside them (Dictionary.seek) and the definition
+		 * copied across as UTF-8, so no word is hashed and no String is made.
+		 *
+		 * @param word  the word
+		 * @param pages the pages the word appears on
+		 * @throws IOException if a block could not be written
+		 */
+		public void add(String word, PageSet pages) throws IOException { // Big(O) = O(p + log d) - defined by the
+																			// pages and the words passed over
+			startEntry(word);
+			int id = dictionary.seek(word, nextId);
+			if (id >= 0) {
+				dictionary.putDefinition(id, block);
+				nextId = id + 1;
+			} else {
+				putString(block, ""); // not a dictionary word
+			}
+			endEntry(word, pages);
+		}
+
+		/**
+		 * Adds an entry to the index.
+		 *
+		 * @param word       the word
+		 * @param definition the definition of the word
+		 * @param pages      the pages the word appears on
+		 * @throws IOException if a block could not be written
+		 */
+		public void add(String word, String definition, PageSet pages) throws IOException { // Big(O) = O(p) -
+																							// defined by the pages
+			startEntry(word);
+			putString(block, definition == null ? "" : definition);
+			endEntry(word, pages);
+		}
+
+		/**
+		 * Checks the order of a new entry and writes it's word.
+		 */
+		private void startEntry(String word) { // Big(O) = O(n) - defined by the length of the word
+
+			if (lastWord != null && word.compareTo(lastWord) <= 0) {
+				throw new IllegalArgumentException("Index entries out of order: " + word + " after " + lastWord);
+			}
+			if (inBlock == 0) {
+				firstWords.add(word);
+				offsets.add(position);
+			}
+			putString(block, word);
+		}
+
+		/**
+		 * Writes the pages of a new entry, after it's word and definition, writing
+		 * out the block once it is full.
+		 */
+		private void endEntry(String word, PageSet pages) throws IOException { // Big(O) = O(p) - defined by the pages
+
+			Varint.write(block, pages.size());
+			int[] previous = { 0 };
+			pages.forEach(p -> {
+				Varint.write(block, p - previous[0]);
+				previous[0] = p;
+			});
+
+			lastWord = word;
+			entries++;
+			if (++inBlock == BLOCK_ENTRIES) {
+				flushBlock();
+			}
+		}
+
+		/**
+		 * Writes the last block, the directory and the footer, and closes the file.
+		 */
+		@Override
+		public void close() throws IOException { // Big(O) = O(b) - defined by the number of blocks
+
+			try {
+				if (inBlock > 0) {
+					flushBlock();
+				}
+				long directory = position;
+				ByteArrayOutputStream dir = new ByteArrayOutputStream();
+				Varint.write(dir, firstWords.size());
+				for (int i = 0; i < firstWords.size(); i++) {
+					putString(dir, firstWords.get(i));
+					ByteBuffer offset = ByteBuffer.allocate(8).putLong(offsets.get(i));
+					dir.write(offset.array(), 0, 8);
+				}
+				write(ByteBuffer.wrap(dir.toByteArray()));
+				write(ByteBuffer.allocate(FOOTER).putLong(directory).putInt(entries).putInt(MAGIC).flip());
+			} finally {
+				deflater.end();
+				ch.close();
+			}
+		}
+
+		/**
+		 * Compresses the current block and writes it to the file.
+		 */
+		private void flushBlock() throws IOException { // Big(O) = O(n) - defined by the size of the block
+
+			byte[] raw = block.toByteArray();
+			deflater.reset();
+			deflater.setInput(raw);
+			deflater.finish();
+			byte[] packed = new byte[raw.length + 64];
+			int len = 0;
+			while (!deflater.finished()) {
+				if (len == packed.length) {
+					packed = Arrays.copyOf(packed, packed.length * 2);
+				}
+				len += deflater.deflate(packed, len, packed.length - len);
+			}
+
+			ByteBuffer out = ByteBuffer.allocate(8 + len).putInt(len).putInt(raw.length).put(packed, 0, len).flip();
+			write(out);
+			block.reset();
+			inBlock = 0;
+		}
+
+		private void write(ByteBuffer buf) throws IOException { // Big(O) = O(n) - defined by the size of buf
+			while (buf.hasRemaining()) {
+				position += ch.write(buf, position);
+			}
+		}
+	}
+
+	/**
+	 * Reads an index file. Only the directory is held in memory; blocks are read
+	 * from the file as they are needed. A Reader may be shared between threads.
+	 */
+	public static class Reader implements Closeable {
+
+		private final FileChannel ch;
+		private final String[] firstWords;
+		private final long[] offsets;
+		private final int entries;
+
+		/**
+		 * Opens an index file, reading it's directory.
+		 *
+		 * @param file the file to be read
+		 * @throws IOException if the file could not be read or is not an index file
+		 */
+		public Reader(Path file) throws IOException { // Big(O) = O(b) - defined by the number of blocks
+
+			ch = FileChannel.open(file, StandardOpenOption.READ);
+			try {
+				long size = ch.size();
+				if (size < HEADER + FOOTER) {
+					throw new IOException("Not an index file: " + file);
+				}
+				ByteBuffer header = read(0, HEADER);
+				ByteBuffer footer = read(size - FOOTER, FOOTER);
+				long directory = footer.getLong();
+				entries = footer.getInt();
+				if (header.getInt() != MAGIC || footer.getInt() != MAGIC) {
+					throw new IOException("Not an index file: " + file);
+				}
+				if (header.getInt() != VERSION) {
+					throw new IOException("Unsupported index file version: " + file);
+				}
+
+				ByteBuffer dir = read(directory, (int) (size - FOOTER - directory));
+				int blocks = Varint.read(dir);
+				firstWords = new String[blocks];
+				offsets = new long[blocks];
+				for (int i = 0; i < blocks; i++) {
+					firstWords[i] = getString(dir);
+					offsets[i] = dir.getLong();
+				}
+			} catch (IOException | RuntimeException e) {
+				ch.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * @return the number of entries in the index
+		 */
+		public int size() { // Big(O) = O(1) - No loops
+			return entries;
+		}
+
+		/**
+		 * Looks up a word in the index, reading only the block that could hold it.
+		 *
+		 * @param word the word to be found
+		 * @return the entry for the word, or null if it is not in the index
+		 * @throws IOException if the block could not be read
+		 */
+		public IndexEntry find(String word) throws IOException { // Big(O) = O(log n) - binary search of the directory
+
+			// find the last block whose first word is not after the word being found
+			int lo = 0;
+			int hi = firstWords.length - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				if (firstWords[mid].compareTo(word) <= 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid - 1;
+				}
+			}
+			if (hi < 0) {
+				return null;
+			}
+
+			ByteBuffer block = readBlock(hi);
+			while (block.hasRemaining()) {
+				String w = getString(block);
+				int c = w.compareTo(word);
+				if (c == 0) {
+					return readEntry(w, block);
+				} else if (c > 0) {
+					break;
+				}
+				skipEntry(block);
+			}
+			return null;
+		}
+
+		/**
+		 * Passes every entry in the index, in order of word, to action. Blocks are
+		 * read one at a time, so memory use does not grow with the index.
+		 *
+		 * @param action the action to perform on each entry
+		 * @throws IOException if a block could not be read
+		 */
+		public void forEach(Consumer<IndexEntry> action) throws IOException { // Big(O) = O(n) - defined by number of
+																				// entries
+			for (int i = 0; i < firstWords.length; i++) {
+				ByteBuffer block = readBlock(i);
+				while (block.hasRemaining()) {
+					action.accept(readEntry(getString(block), block));
+				}
+			}
+		}
+
+		/**
+		 * Passes every entry in the index, in order of word, to action without
+		 * decoding it: the action is given a Cursor over the entry's raw bytes. The
+		 * same Cursor is reused for every entry, so nothing is created per entry.
+		 *
+		 * @param action the action to perform on each entry
+		 * @throws IOException if a block could not be read
+		 */
+		public void scan(Consumer<Cursor> action) throws IOException { // Big(O) = O(n) - defined by number of
+																		// entries
+			Cursor cursor = new Cursor(null);
+			for (int i = 0; i < firstWords.length; i++) {
+				ByteBuffer block = readBlock(i);
+				while (block.hasRemaining()) {
+					cursor.read(block);
+					action.accept(cursor);
+					block.position(cursor.end);
+				}
+			}
+		}
+
+		/**
+		 * Opens a Cursor over the entries of the index, in order of word, which the
+		 * caller moves from entry to entry with Cursor.next(). Unlike scan(), several
+		 * indexes can be read side by side this way, such as the indexes of the
+		 * documents of a corpus being merged. Blocks are read one at a time.
+		 *
+		 * @return the Cursor, before the first entry
+		 */
+		public Cursor cursor() { // Big(O) = O(1) - No loops
+			return new Cursor(this);
+		}
+
+		@Override
+		public void close() throws IOException { // Big(O) = O(1) - No loops
+			ch.close();
+		}
+
+		/**
+		 * Reads and inflates block i.
+		 */
+		private ByteBuffer readBlock(int i) throws IOException { // Big(O) = O(n) - defined by the size of the block
+
+			ByteBuffer head = read(offsets[i], 8);
+			int packed = head.getInt();
+			byte[] raw = new byte[head.getInt()];
+			ByteBuffer data = read(offsets[i] + 8, packed);
+
+			Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(data);
+				int len = 0;
+				while (len < raw.length && !inflater.finished()) {
+					len += inflater.inflate(raw, len, raw.length - len);
+				}
+				if (len != raw.length) {
+					throw new IOException("Corrupt index block " + i);
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupt index block " + i, e);
+			} finally {
+				inflater.end();
+			}
+			return ByteBuffer.wrap(raw);
+		}
+
+		/**
+		 * Reads len bytes at position of the file.
+		 */
+		private ByteBuffer read(long position, int len) throws IOException { // Big(O) = O(n) - defined by len
+
+			ByteBuffer buf = ByteBuffer.allocate(len);
+			while (buf.hasRemaining()) {
+				if (ch.read(buf, position + buf.position()) < 0) {
+					throw new IOException("Unexpected end of index file");
+				}
+			}
+			return buf.flip();
+		}
+	}
+
+	/**
+	 * A view of the raw bytes of one index entry, handed out by Reader.scan() or
+	 * Reader.cursor(). The word and definition are UTF-8 bytes within bytes();
+	 * the pages are read in ascending order with nextPage(). A Cursor from scan()
+	 * is only valid during the call it is passed to; one from cursor() until
+	 * next() is called.
+	 */
+	public static final class Cursor {
+
+		private final Reader reader; // moved on by next(), or null if handed out by scan()
+		private int block = -1; // block of the reader being read
+		private byte[] bytes;
+		private int wordOffset, wordLength, definitionOffset, definitionLength;
+		private int pageCount, pagesRead, page;
+		private ByteBuffer pages;
+		private int end = -1; // position just after the entry, -1 before the first
+
+		private Cursor(Reader newReader) { // Big(O) = O(1) - No loops
+			reader = newReader;
+		}
+
+		/**
+		 * Moves a Cursor from Reader.cursor() on to the next entry.
+		 *
+		 * @return true if there is another entry, false once every entry is read
+		 * @throws IOException if a block could not be read
+		 */
+		public boolean next() throws IOException { // Big(O) = O(p) - defined by the pages, plus a block at a time
+
+			if (end >= 0) {
+				pages.position(end);
+			}
+			while (pages == null || !pages.hasRemaining()) {
+				if (reader == null || block + 1 >= reader.firstWords.length) {
+					return false;
+				}
+				pages = reader.readBlock(++block);
+			}
+			read(pages);
+			return true;
+		}
+
+		/**
+		 * Reads the entry starting at the position of a block, leaving the position
+		 * at it's pages.
+		 */
+		private void read(ByteBuffer in) { // Big(O) = O(p) - defined by the pages
+
+			bytes = in.array();
+			wordLength = Varint.read(in);
+			wordOffset = in.position();
+			in.position(wordOffset + wordLength);
+			definitionLength = Varint.read(in);
+			definitionOffset = in.position();
+			in.position(definitionOffset + definitionLength);
+			pageCount = Varint.read(in);
+			pagesRead = 0;
+			page = 0;
+			pages = in;
+			end = skipPages(in, pageCount);
+		}
+
+		/**
+		 * Compares the words of two entries in the order of String.compareTo, which
+		 * is the order of an index, straight from their UTF-8 bytes. Bytes sort in
+		 * the order of code points, which only differs for the characters outside
+		 * the Basic Multilingual Plane: as UTF-16 surrogate pairs they sort before
+		 * U+E000 to U+FFFF, so their lead bytes (F0 to F4) are moved before EE and
+		 * EF.
+		 *
+		 * @param other the entry of another Cursor
+		 * @return less than, equal to or greater than 0 as this entry's word is
+		 *         before, the same as or after the other's
+		 */
+		public int compareWord(Cursor other) { // Big(O) = O(n) - defined by the length of the words
+
+			int n = Math.min(wordLength, other.wordLength);
+			for (int i = 0; i < n; i++) {
+				int a = bytes[wordOffset + i] & 0xFF;
+				int b = other.bytes[other.wordOffset + i] & 0xFF;
+				if (a != b) {
+					if (a >= 0xEE && b >= 0xEE) {
+						a = a >= 0xF0 ? a - 8 : a;
+						b = b >= 0xF0 ? b - 8 : b;
+					}
+					return a - b;
+				}
+			}
+			return wordLength - other.wordLength;
+		}
+
+		/**
+		 * @return the array holding the word and definition
+		 */
+		public byte[] bytes() { // Big(O) = O(1) - No loops
+			return bytes;
+		}
+
+		public int wordOffset() { // Big(O) = O(1) - No loops
+			return wordOffset;
+		}
+
+		public int wordLength() { // Big(O) = O(1) - No loops
+			return wordLength;
+		}
+
+		public int definitionOffset() { // Big(O) = O(1) - No loops
+			return definitionOffset;
+		}
+
+		public int definitionLength() { // Big(O) = O(1) - No loops
+			return definitionLength;
+		}
+
+		/**
+		 * @return the number of pages the word appears on
+		 */
+		public int pageCount() { // Big(O) = O(1) - No loops
+			return pageCount;
+		}
+
+		/**
+		 * @return the next page the word appears on, in ascending order
+		 * @throws NoSuchElementException if every page has been read
+		 */
+		public int nextPage() { // Big(O) = O(1) - No loops
+			if (pagesRead++ == pageCount) {
+				throw new NoSuchElementException();
+			}
+			page += Varint.read(pages);
+			return page;
+		}
+	}
+
+	/**
+	 * Skips count page gaps from the current position of the block, leaving the
+	 * position where it was.
+	 *
+	 * @return the position just after the pages
+	 */
+	private static int skipPages(ByteBuffer block, int count) { // Big(O) = O(p) - defined by the pages
+
+		int start = block.position();
+		for (int i = 0; i < count; i++) {
+			Varint.read(block);
+		}
+		int end = block.position();
+		block.position(start);
+		return end;
+	}
+
+	/**
+	 * Reads the rest of an entry whose word has already been read.
+	 */
+	private static IndexEntry readEntry(String word, ByteBuffer block) { // Big(O) = O(p) - defined by the pages
+
+		String definition = getString(block);
+		int count = Varint.read(block);
+		PageSet pages = new PageSet();
+		int page = 0;
+		for (int i = 0; i < count; i++) {
+			page += Varint.read(block);
+			pages.add(page);
+		}
+		return new IndexEntry(word, definition, pages);
+	}
+
+	/**
+	 * Skips the rest of an entry whose word has already been read.
+	 */
+	private static void skipEntry(ByteBuffer block) { // Big(O) = O(p) - defined by the pages
+
+		int len = Varint.read(block);
+		block.position(block.position() + len);
+		int count = Varint.read(block);
+		for (int i = 0; i < count; i++) {
+			Varint.read(block);
+		}
+	}
+
+	/**
+	 * Writes a length prefixed UTF-8 String.
+	 */
+	private static void putString(ByteArrayOutputStream out, String s) { // Big(O) = O(n) - length of the String
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		Varint.write(out, b.length);
+		out.write(b, 0, b.length);
+	}
+
+	/**
+	 * Reads a length prefixed UTF-8 String.
+	 */
+	private static String getString(ByteBuffer in) { // Big(O) = O(n) - length of the String
+		int len = Varint.read(in);
+		String s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+		in.position(in.position() + len);
+		return s;
+	}
+}
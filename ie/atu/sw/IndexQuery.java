@@ -0,0 +1,378 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The IndexQuery object answers queries against a finished index
+ *          without scanning it's words: > an exact word > every word starting
+ *          with a prefix (e.g. sanct*) > every word matching a wildcard pattern,
+ *          ? standing for any one letter and * for any number of letters (e.g.
+ *          s?n*ify) > every word appearing on a range of pages (e.g. 100-140).
+ *
+ *          The words are held in a trie packed into arrays. Nodes are numbered
+ *          breadth first, so the edges leaving a node are next to each other,
+ *          sorted by letter, and edge e always leads to node e + 1; a node is
+ *          then only where it's edges start, plus the range of word numbers
+ *          below it (the words are sorted, so those below a node are
+ *          consecutive). A prefix query walks down the trie a letter at a time
+ *          and hands back that node's range; a wildcard query walks only the
+ *          branches the pattern allows. For page queries the index is also
+ *          held inverted, as the word numbers on each page, so a range of pages
+ *          reads just those pages' lists.
+ *
+ *          Everything is loaded from an IndexFile once, after which the
+ *          IndexQuery is never changed and may be shared between threads.
+ */
+public class IndexQuery {
+
+	private static final Pattern PAGE_RANGE = Pattern.compile("(\\d+)(?:\\s*-\\s*(\\d+))?");
+
+	// the words, in order, with their definitions and pages
+	private final String[] words;
+	private final String[] definitions;
+	private final int[] termStart; // the pages of word t are pages[termStart[t]] to pages[termStart[t + 1] - 1]
+	private final int[] pages;
+
+	// the trie
+	private final int[] edgeStart; // the edges of node n are edgeStart[n] to edgeStart[n + 1] - 1
+	private final char[] labels; // the letter of each edge; edge e leads to node e + 1
+	private final int[] termLo; // the words below node n are termLo[n] to termHi[n] - 1
+	private final int[] termHi;
+	private final BitSet terminal; // nodes at the end of a word, the word being termLo[n]
+
+	// the inverted lists: the words on page p are pageTerms[pageStart[p]] to
+	// pageTerms[pageStart[p + 1] - 1]
+	private final int[] pageStart;
+	private final int[] pageTerms;
+
+	/**
+	 * Loads an index file and builds the structures queried.
+	 *
+	 * @param file the index file (see IndexFile.pathFor())
+	 * @return the IndexQuery for the file
+	 * @throws IOException if the file could not be read or is not an index file
+	 */
+	public static IndexQuery load(Path file) throws IOException { // Big(O) = O(n + c) - defined by the entries
+																	// and the letters of their words
+		try (IndexFile.Reader reader = new IndexFile.Reader(file)) {
+			int n = reader.size();
+			String[] words = new String[n];
+			String[] definitions = new String[n];
+			int[] termStart = new int[n + 1];
+			int[][] pages = { new int[Math.max(16, n * 4)] };
+			int[] next = new int[2]; // the next word and page to fill
+
+			// read the raw entries, so no IndexEntry or PageSet is made per word
+			reader.scan(c -> {
+				int t = next[0]++;
+				words[t] = new String(c.bytes(), c.wordOffset(), c.wordLength(), StandardCharsets.UTF_8);
+				definitions[t] = new String(c.bytes(), c.definitionOffset(), c.definitionLength(),
+						StandardCharsets.UTF_8);
+				termStart[t] = next[1];
+				if (pages[0].length < next[1] + c.pageCount()) {
+					pages[0] = Arrays.copyOf(pages[0], Math.max(pages[0].length * 2, next[1] + c.pageCount()));
+				}
+				for (int i = 0; i < c.pageCount(); i++) {
+					pages[0][next[1]++] = c.nextPage();
+				}
+			});
+			termStart[n] = next[1];
+			return new IndexQuery(words, definitions, termStart, Arrays.copyOf(pages[0], next[1]));
+		}
+	}
+
+	/**
+	 * Builds the trie and inverted lists for a set of words, sorted and without
+	 * duplicates, and their pages.
+	 */
+	private IndexQuery(String[] newWords, String[] newDefinitions, int[] newTermStart, int[] newPages) { // Big(O) =
+																										// O(n + c)
+		words = newWords;
+		definitions = newDefinitions;
+		termStart = newTermStart;
+		pages = newPages;
+
+		// build the trie breadth first. Node k covers the words lo[k] to hi[k] - 1,
+		// which share their first depth[k] letters; it's children are made by
+		// splitting that range on the next letter. A node has no more nodes than
+		// there are letters in the words, plus the root.
+		int letters = 0;
+		for (String w : words) {
+			letters += w.length();
+		}
+		int[] lo = new int[letters + 1];
+		int[] hi = new int[letters + 1];
+		int[] depth = new int[letters + 1];
+		int[] starts = new int[letters + 2];
+		char[] edgeLabels = new char[letters];
+		BitSet ends = new BitSet();
+
+		int nodes = 1;
+		hi[0] = words.length;
+		for (int k = 0; k < nodes; k++) {
+			int i = lo[k];
+			int d = depth[k];
+			starts[k] = nodes - 1;
+			if (i < hi[k] && words[i].length() == d) {
+				ends.set(k); // a word ending here sorts before the longer words below it
+				i++;
+			}
+			while (i < hi[k]) {
+				char c = words[i].charAt(d);
+				int j = i + 1;
+				while (j < hi[k] && words[j].charAt(d) == c) {
+					j++;
+				}
+				edgeLabels[nodes - 1] = c;
+				lo[nodes] = i;
+				hi[nodes] = j;
+				depth[nodes] = d + 1;
+				nodes++;
+				i = j;
+			}
+		}
+		starts[nodes] = nodes - 1;
+
+		edgeStart = Arrays.copyOf(starts, nodes + 1);
+		labels = Arrays.copyOf(edgeLabels, nodes - 1);
+		termLo = Arrays.copyOf(lo, nodes);
+		termHi = Arrays.copyOf(hi, nodes);
+		terminal = ends;
+
+		// invert the pages: count the words on each page, then fill each page's
+		// list, in order of word
+		int lastPage = 0;
+		for (int p : pages) {
+			lastPage = Math.max(lastPage, p);
+		}
+		pageStart = new int[lastPage + 2];
+		for (int p : pages) {
+			pageStart[p + 1]++;
+		}
+		for (int p = 0; p <= lastPage; p++) {
+			pageStart[p + 1] += pageStart[p];
+		}
+		pageTerms = new int[pages.length];
+		int[] fill = Arrays.copyOf(pageStart, lastPage + 1);
+		for (int t = 0; t < words.length; t++) {
+			for (int i = termStart[t]; i < termStart[t + 1]; i++) {
+				pageTerms[fill[pages[i]]++] = t;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of words in the index
+	 */
+	public int size() { // Big(O) = O(1) - No loops
+		return words.length;
+	}
+
+	/**
+	 * Answers a query typed by the user: a range of pages (100-140) or a single
+	 * page (100); a prefix (sanct*); a wildcard pattern (s?n*ify); otherwise an
+	 * exact word. An empty query matches nothing.
+	 *
+	 * @param query the query
+	 * @return the matching entries, in order of word
+	 */
+	public List<IndexEntry> search(String query) { // Big(O) = O(m + k) - defined by the query and the matches
+
+		String q = query.strip();
+		if (q.isEmpty()) {
+			return List.of();
+		}
+		Matcher range = PAGE_RANGE.matcher(q);
+		if (range.matches()) {
+			try {
+				int from = Integer.parseInt(range.group(1));
+				int to = range.group(2) == null ? from : Integer.parseInt(range.group(2));
+				return pages(from, to);
+			} catch (NumberFormatException e) {
+				return List.of(); // beyond the last page
+			}
+		}
+		int wild = q.indexOf('?');
+		int star = q.indexOf('*');
+		if (wild < 0 && star == q.length() - 1) {
+			return prefix(q.substring(0, star));
+		}
+		if (wild >= 0 || star >= 0) {
+			return wildcard(q);
+		}
+		IndexEntry entry = find(q);
+		return entry == null ? List.of() : List.of(entry);
+	}
+
+	/**
+	 * @param word the word to be found
+	 * @return the entry for the word, or null if it is not in the index
+	 */
+	public IndexEntry find(String word) { // Big(O) = O(m) - defined by the length of the word
+		int node = walk(word);
+		return node >= 0 && terminal.get(node) ? entry(termLo[node]) : null;
+	}
+
+	/**
+	 * @param prefix the start of the words to be found
+	 * @return the entries of every word starting with prefix, in order of word
+	 */
+	public List<IndexEntry> prefix(String prefix) { // Big(O) = O(m + k) - defined by the prefix and the matches
+		int node = walk(prefix);
+		return node < 0 ? List.of() : entries(termLo[node], termHi[node]);
+	}
+
+	/**
+	 * @param pattern the pattern, ? matching any one letter and * any number of
+	 *                letters (including none)
+	 * @return the entries of every word matching the whole pattern, in order of
+	 *         word
+	 */
+	public List<IndexEntry> wildcard(String pattern) { // Big(O) = O(v + k) - defined by the trie nodes the pattern
+														// allows, and the matches
+		String p = pattern.replaceAll("\\*+", "*");
+		BitSet found = new BitSet(words.length);
+
+		// with more than one *, the same node can be reached at the same point in the
+		// pattern by more than one path; remember where we've been so it's only
+		// searched once
+		boolean stars = p.indexOf('*') != p.lastIndexOf('*');
+		match(0, p, 0, found, stars ? new HashSet<Long>() : null);
+		return entries(found);
+	}
+
+	/**
+	 * @param from the first page
+	 * @param to   the last page
+	 * @return the entries of every word appearing on any page from from to to,
+	 *         inclusive, in order of word
+	 */
+	public List<IndexEntry> pages(int from, int to) { // Big(O) = O(r + k) - defined by the words listed on the pages
+														// and the matches
+		int first = Math.max(from, 0);
+		int last = Math.min(to, pageStart.length - 2);
+		BitSet found = new BitSet(words.length);
+		if (first <= last) {
+			for (int i = pageStart[first]; i < pageStart[last + 1]; i++) {
+				found.set(pageTerms[i]);
+			}
+		}
+		return entries(found);
+	}
+
+	/**
+	 * Follows the letters of s down from the root.
+	 *
+	 * @return the node reached, or -1 if no word starts with s
+	 */
+	private int walk(String s) { // Big(O) = O(m) - defined by the length of s
+		int node = 0;
+		for (int i = 0; i < s.length() && node >= 0; i++) {
+			node = child(node, s.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * @return the child of node along the edge labelled c, or -1 if there is none
+	 */
+	private int child(int node, char c) { // Big(O) = O(log a) - binary search of the node's edges
+		int lo = edgeStart[node];
+		int hi = edgeStart[node + 1] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (labels[mid] < c) {
+				lo = mid + 1;
+			} else if (labels[mid] > c) {
+				hi = mid - 1;
+			} else {
+				return mid + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Marks in found every word below node matching the pattern from pos on.
+	 */
+	private void match(int node, String pattern, int pos, BitSet found, Set<Long> visited) { // Big(O) = O(v) -
+																								// defined by the nodes
+		if (visited != null && !visited.add((long) node * (pattern.length() + 1) + pos)) {
+			return;
+		}
+		if (pos == pattern.length()) {
+			if (terminal.get(node)) {
+				found.set(termLo[node]);
+			}
+			return;
+		}
+
+		char c = pattern.charAt(pos);
+		if (c == '*') {
+			if (pos == pattern.length() - 1) {
+				found.set(termLo[node], termHi[node]); // a trailing * matches everything below
+				return;
+			}
+			match(node, pattern, pos + 1, found, visited); // * matching no more letters
+			for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+				match(e + 1, pattern, pos, found, visited); // * matching one more letter
+			}
+		} else if (c == '?') {
+			for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+				match(e + 1, pattern, pos + 1, found, visited);
+			}
+		} else {
+			int next = child(node, c);
+			if (next >= 0) {
+				match(next, pattern, pos + 1, found, visited);
+			}
+		}
+	}
+
+	/**
+	 * @return the entries of the words lo to hi - 1
+	 */
+	private List<IndexEntry> entries(int lo, int hi) { // Big(O) = O(k) - defined by the matches
+		List<IndexEntry> result = new ArrayList<IndexEntry>(hi - lo);
+		for (int t = lo; t < hi; t++) {
+			result.add(entry(t));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the entries of the words marked in found
+	 */
+	private List<IndexEntry> entries(BitSet found) { // Big(O) = O(k) - defined by the matches
+		List<IndexEntry> result = new ArrayList<IndexEntry>(found.cardinality());
+		for (int t = found.nextSetBit(0); t >= 0; t = found.nextSetBit(t + 1)) {
+			result.add(entry(t));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the entry of word t
+	 */
+	private IndexEntry entry(int t) { // Big(O) = O(p) - defined by the pages of the word
+		PageSet set = new PageSet();
+		for (int i = termStart[t]; i < termStart[t + 1]; i++) {
+			set.add(pages[i]);
+		}
+		return new IndexEntry(words[t], definitions[t], set);
+	}
+}
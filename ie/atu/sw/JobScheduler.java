@@ -0,0 +1,437 @@
+package ie.atu.sw;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The JobScheduler object runs many jobs (each a Parser run, say) at
+ *          once on one shared pool of worker threads, a fixed number of them,
+ *          rather than each job starting pools of it's own. Each job is given
+ *          an Executor (see Parser.setExecutor()); the tasks it hands to it are
+ *          queued against the job, and a free worker picks which job to run a
+ *          task of next:
+ *
+ *          > fair share: each job has a priority from 1 to 10, and is given
+ *          worker time in proportion to it. The worker time a job has used,
+ *          divided by it's priority, is it's virtual time, and the job with
+ *          the least virtual time goes next (stride scheduling). A job which
+ *          arrives, or wakes up, starts from the virtual time of those already
+ *          running, so a small job behind a huge one gets it's share at once,
+ *          and a job which was idle can't take the workers to catch up. >
+ *          admission: the estimated size of the inputs of the jobs running at
+ *          once is limited, as is the number of them. Waiting jobs are admitted
+ *          highest priority first, then in the order they arrived; a job which
+ *          fits may go ahead of one which doesn't, but only a few times in a
+ *          row, so a large job is never held back for good. A job larger than
+ *          the limit is run once nothing else is.
+ *
+ *          Each job admitted runs on a virtual thread of it's own, which mostly
+ *          waits for it's tasks. Tasks should not wait for other tasks of the
+ *          pool.
+ */
+public class JobScheduler implements AutoCloseable {
+
+	public static final int MIN_PRIORITY = 1;
+	public static final int NORM_PRIORITY = 5;
+	public static final int MAX_PRIORITY = 10;
+	private static final int MAX_BYPASS = 4; // times in a row the first waiting job may be passed over
+	private static final long FIRST_TASK_NANOS = TimeUnit.MILLISECONDS.toNanos(1); // guess at a job's first task
+
+	/**
+	 * The work of a job, run with the Executor it's tasks are to be handed to.
+	 */
+	@FunctionalInterface
+	public interface Work {
+		void run(Executor executor) throws Exception;
+	}
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition ready = lock.newCondition(); // a task was queued, or the scheduler closed
+	private final Condition finished = lock.newCondition(); // a job finished
+	private final Thread[] workers;
+	private final int maxJobs;
+	private final long admissionBytes;
+	private final List<Job> running = new ArrayList<Job>();
+	private final TreeSet<Job> waiting = new TreeSet<Job>(
+			Comparator.comparingInt((Job j) -> -j.priority).thenComparingLong(j -> j.sequence));
+	private long admittedBytes; // estimated input size of the jobs running
+	private long clock; // virtual time of the last task started
+	private long sequence;
+	private int bypassed; // times in a row the first waiting job has been passed over
+	private boolean closed;
+
+	/**
+	 * A job submitted to the scheduler. It is also the Executor the job's tasks
+	 * are handed to.
+	 */
+	public final class Job implements Executor {
+
+		private final String name;
+		private final int priority;
+		private final long bytes;
+		private final Work work;
+		private final long sequence;
+		private final long submitted = System.nanoTime();
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+		private final CompletableFuture<Void> result = new CompletableFuture<Void>();
+		private long vtime; // worker time used divided by priority, in nanoseconds
+		private long meanTask = FIRST_TASK_NANOS; // running mean of the time a task takes
+		private int active; // tasks being run by workers
+		private long workerNanos;
+		private long admitted;
+
+		private Job(String newName, int newPriority, long newBytes, Work newWork, long newSequence) { // Big(O) = O(1)
+			name = newName;
+			priority = newPriority;
+			bytes = newBytes;
+			work = newWork;
+			sequence = newSequence;
+		}
+
+		/**
+		 * Queues a task of this job to be run by the pool.
+		 */
+		@Override
+		public void execute(Runnable task) { // Big(O) = O(1) - No loops
+			queue(this, task);
+		}
+
+		public String name() { // Big(O) = O(1) - No loops
+			return name;
+		}
+
+		public int priority() { // Big(O) = O(1) - No loops
+			return priority;
+		}
+
+		public long estimatedBytes() { // Big(O) = O(1) - No loops
+			return bytes;
+		}
+
+		/**
+		 * @return completes when the job has finished, exceptionally if it's work
+		 *         threw
+		 */
+		public CompletableFuture<Void> result() { // Big(O) = O(1) - No loops
+			return result;
+		}
+
+		/**
+		 * Waits for the job to finish.
+		 *
+		 * @throws ExecutionException   if the job's work threw
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		public void await() throws ExecutionException, InterruptedException { // Big(O) = O(1) - No loops
+			result.get();
+		}
+
+		/**
+		 * @return the worker time the job's tasks have taken, in nanoseconds
+		 */
+		public long workerNanos() { // Big(O) = O(1) - No loops
+			lock.lock();
+			try {
+				return workerNanos;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * @return the time the job waited to be admitted, in nanoseconds (so far,
+		 *         if it's still waiting)
+		 */
+		public long waitNanos() { // Big(O) = O(1) - No loops
+			lock.lock();
+			try {
+				return (admitted == 0 ? System.nanoTime() : admitted) - submitted;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Constructor for the JobScheduler object
+	 *
+	 * @param newWorkers        the number of worker threads
+	 * @param newMaxJobs        the most jobs run at once
+	 * @param newAdmissionBytes the most input, in bytes, of the jobs run at once
+	 */
+	public JobScheduler(int newWorkers, int newMaxJobs, long newAdmissionBytes) { // Big(O) = O(w) - defined by the
+																					// workers
+		if (newWorkers <= 0 || newMaxJobs <= 0 || newAdmissionBytes <= 0) {
+			throw new IllegalArgumentException("Workers, jobs and admission bytes must be more than 0");
+		}
+		maxJobs = newMaxJobs;
+		admissionBytes = newAdmissionBytes;
+		workers = new Thread[newWorkers];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread(this::work, "indexer-worker-" + (i + 1));
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Constructor for a JobScheduler with a worker per core, running up to twice
+	 * as many jobs as cores at once, with inputs of up to half the heap between
+	 * them.
+	 */
+	public JobScheduler() { // Big(O) = O(w) - defined by the workers
+		this(Runtime.getRuntime().availableProcessors(), 2 * Runtime.getRuntime().availableProcessors(),
+				Runtime.getRuntime().maxMemory() / 2);
+	}
+
+	/**
+	 * Submits a job, which is run once admitted.
+	 *
+	 * @param name           the name of the job, for the thread running it
+	 * @param priority       the job's priority, from MIN_PRIORITY to MAX_PRIORITY
+	 * @param estimatedBytes an estimate of the size of the job's input
+	 * @param work           the work of the job
+	 * @return the job
+	 */
+	public Job submit(String name, int priority, long estimatedBytes, Work work) { // Big(O) = O(j) - defined by
+																					// the jobs
+		if (priority < MIN_PRIORITY || priority > MAX_PRIORITY) {
+			throw new IllegalArgumentException("Priority must be from " + MIN_PRIORITY + " to " + MAX_PRIORITY);
+		}
+		lock.lock();
+		try {
+			if (closed) {
+				throw new IllegalStateException("Job scheduler is closed");
+			}
+			Job job = new Job(name, priority, Math.max(0, estimatedBytes), work, sequence++);
+			waiting.add(job);
+			admit();
+			return job;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of jobs running
+	 */
+	public int runningJobs() { // Big(O) = O(1) - No loops
+		lock.lock();
+		try {
+			return running.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of jobs waiting to be admitted
+	 */
+	public int waitingJobs() { // Big(O) = O(1) - No loops
+		lock.lock();
+		try {
+			return waiting.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits for every job submitted to finish, then stops the workers.
+	 */
+	@Override
+	public void close() { // Big(O) = O(w) - defined by the workers
+
+		lock.lock();
+		try {
+			while (!running.isEmpty() || !waiting.isEmpty()) {
+				finished.awaitUninterruptibly();
+			}
+			closed = true;
+			ready.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Admits waiting jobs while there is room. Called with the lock held.
+	 */
+	private void admit() { // Big(O) = O(j) - defined by the waiting jobs
+
+		while (!waiting.isEmpty() && running.size() < maxJobs) {
+			Job first = waiting.first();
+			if (fits(first)) {
+				bypassed = 0;
+				start(first);
+				continue;
+			}
+			if (bypassed >= MAX_BYPASS) {
+				return; // the first job has waited long enough; the others wait for it
+			}
+			Job other = null;
+			for (Job j : waiting) {
+				if (fits(j)) {
+					other = j;
+					break;
+				}
+			}
+			if (other == null) {
+				return;
+			}
+			bypassed++;
+			start(other);
+		}
+	}
+
+	private boolean fits(Job job) { // Big(O) = O(1) - No loops
+		return running.isEmpty() || admittedBytes + job.bytes <= admissionBytes;
+	}
+
+	/**
+	 * Starts a job on a virtual thread of it's own. Called with the lock held.
+	 */
+	private void start(Job job) { // Big(O) = O(1) - No loops
+
+		waiting.remove(job);
+		running.add(job);
+		admittedBytes += job.bytes;
+		job.vtime = clock;
+		job.admitted = System.nanoTime();
+		Thread.ofVirtual().name("job-" + job.name).start(() -> {
+			Throwable failure = null;
+			try {
+				job.work.run(job);
+			} catch (Throwable t) {
+				failure = t;
+			}
+			lock.lock();
+			try {
+				running.remove(job);
+				admittedBytes -= job.bytes;
+				admit();
+				finished.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			if (failure == null) {
+				job.result.complete(null);
+			} else {
+				job.result.completeExceptionally(failure);
+			}
+		});
+	}
+
+	/**
+	 * Queues a task of a job.
+	 */
+	private void queue(Job job, Runnable task) { // Big(O) = O(1) - No loops
+
+		lock.lock();
+		try {
+			if (job.tasks.isEmpty() && job.active == 0) {
+				job.vtime = Math.max(job.vtime, clock); // it was idle: no catching up
+			}
+			job.tasks.add(task);
+			ready.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * The loop of each worker: takes the next task, of the job with the least
+	 * virtual time, and runs it. The job is charged it's mean task time when the
+	 * task is taken, so that other workers see it's share used straight away,
+	 * and the difference once the task has finished.
+	 */
+	private void work() { // Big(O) = O(t * j) - defined by the tasks and jobs
+
+		while (true) {
+			Job job;
+			Runnable task;
+			long charged;
+			lock.lock();
+			try {
+				while ((job = next()) == null) {
+					if (closed) {
+						return;
+					}
+					ready.awaitUninterruptibly();
+				}
+				task = job.tasks.poll();
+				clock = Math.max(clock, job.vtime);
+				charged = job.meanTask;
+				job.vtime += weighted(charged, job.priority);
+				job.active++;
+			} finally {
+				lock.unlock();
+			}
+
+			long start = System.nanoTime();
+			try {
+				task.run();
+			} catch (Throwable t) {
+				System.out.println("Error: a task of job " + job.name + " failed - " + t.getLocalizedMessage());
+			}
+			long took = System.nanoTime() - start;
+
+			lock.lock();
+			try {
+				job.active--;
+				job.workerNanos += took;
+				job.vtime += weighted(took - charged, job.priority);
+				job.meanTask += (took - job.meanTask) / 8;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return the running job with tasks queued and the least virtual time (then
+	 *         the highest priority, then the oldest), or null if none has tasks.
+	 *         Called with the lock held.
+	 */
+	private Job next() { // Big(O) = O(j) - defined by the running jobs
+
+		Job best = null;
+		for (Job j : running) {
+			if (!j.tasks.isEmpty() && (best == null || j.vtime < best.vtime
+					|| (j.vtime == best.vtime && (j.priority > best.priority
+							|| (j.priority == best.priority && j.sequence < best.sequence))))) {
+				best = j;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return worker time divided by priority (scaled so a job of the highest
+	 *         priority is charged the time itself)
+	 */
+	private static long weighted(long nanos, int priority) { // Big(O) = O(1) - No loops
+		return nanos * MAX_PRIORITY / priority;
+	}
+}
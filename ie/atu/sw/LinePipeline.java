@@ -0,0 +1,233 @@
+package ie.atu.sw;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The LinePipeline object reads a text file through a staged pipeline
+ *          joined by bounded queues:
+ *
+ *          > reader - reads the file line by line, on it's own thread, and
+ *          batches the lines up. > workers - one per core, each takes a batch
+ *          and turns it into a result. > aggregator - the calling thread, which
+ *          is handed the results one at a time, in file order.
+ *
+ *          At most a fixed number of batches (the window) are in the pipeline
+ *          at once, counting those waiting for a worker, being worked on, and
+ *          waiting for the aggregator. When the window is full the reader
+ *          stalls until the aggregator has taken a batch, so the memory used
+ *          stays the same however large the file is.
+ *
+ *          Because the aggregator sees results in file order, whatever the
+ *          order the workers finish in, the outcome of a run is the same as
+ *          reading the file on a single thread.
+ */
+public class LinePipeline {
+
+	public static final int DEFAULT_BATCH_LINES = 2048; // lines per batch
+
+	private final Path file;
+	private final int batchLines;
+	private final int workers;
+	private final int window;
+	private volatile int maxQueued; // the most batches waiting for a worker at once during the last run
+
+	/**
+	 * Turns a batch of lines into a result. Called on the worker threads, so must
+	 * be safe to call from several threads at once.
+	 */
+	@FunctionalInterface
+	public interface BatchWorker<T> {
+		/**
+		 * @param lines     the lines of the batch. The array may be longer than the
+		 *                  batch
+		 * @param count     the number of lines in the batch
+		 * @param firstLine the line number, from 1, of lines[0] in the file
+		 * @return the result of the batch, passed on to the aggregator
+		 */
+		T process(String[] lines, int count, int firstLine);
+	}
+
+	// a batch of lines, or its result, and it's place in the file
+	private record Batch(long seq, String[] lines, int count, int firstLine) {
+	}
+
+	private record Done(long seq, Object result, Throwable failure) {
+	}
+
+	private static final Batch NO_MORE_BATCHES = new Batch(-1, null, 0, 0);
+
+	/**
+	 * Constructor for the LinePipeline object
+	 *
+	 * @param newFile       the file to be read
+	 * @param newBatchLines the number of lines in each batch
+	 * @param newWorkers    the number of worker threads
+	 * @param newWindow     the most batches in the pipeline at once
+	 */
+	public LinePipeline(Path newFile, int newBatchLines, int newWorkers, int newWindow) { // Big(O) = O(1)
+
+		if (newBatchLines <= 0 || newWorkers <= 0 || newWindow <= 0) {
+			throw new IllegalArgumentException("Batch size, workers and window must be positive");
+		}
+		file = newFile;
+		batchLines = newBatchLines;
+		workers = newWorkers;
+		window = newWindow;
+	}
+
+	/**
+	 * Constructor for the LinePipeline object using the default batch size, one
+	 * worker per core, and a window of four batches per worker.
+	 *
+	 * @param newFile the file to be read
+	 */
+	public LinePipeline(Path newFile) { // Big(O) = O(1) - No loops
+		this(newFile, DEFAULT_BATCH_LINES, Runtime.getRuntime().availableProcessors(),
+				4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Reads the file through the pipeline.
+	 *
+	 * @param worker     turns each batch of lines into a result
+	 * @param aggregator is handed each result, in file order, on the calling
+	 *                   thread
+	 * @return the number of lines in the file
+	 * @throws IOException if the file could not be read
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> int run(BatchWorker<T> worker, Consumer<T> aggregator) throws IOException { // Big(O) = O(n) - defined
+																							// by the size of the file
+
+		BlockingQueue<Batch> batches = new ArrayBlockingQueue<Batch>(window + workers);
+		// never blocks: it holds at most the window, one end marker and a failure
+		// from each thread
+		BlockingQueue<Done> results = new ArrayBlockingQueue<Done>(window + workers + 2);
+		Semaphore inFlight = new Semaphore(window);
+		int[] lines = { 0 };
+		maxQueued = 0;
+
+		ExecutorService threads = Executors.newFixedThreadPool(workers + 1);
+		try {
+			threads.execute(() -> read(batches, results, inFlight, lines));
+			for (int i = 0; i < workers; i++) {
+				threads.execute(() -> work(batches, results, worker));
+			}
+
+			// hand the results to the aggregator in file order, holding back any that
+			// finish early
+			Map<Long, Object> early = new HashMap<Long, Object>();
+			long next = 0;
+			long total = Long.MAX_VALUE; // number of batches, known once the reader is done
+			while (next < total) {
+				Done d = results.take();
+				if (d.failure() != null) {
+					throw d.failure();
+				}
+				if (d.seq() < 0) {
+					total = (Long) d.result();
+					continue;
+				}
+				early.put(d.seq(), d.result());
+				while (early.containsKey(next)) {
+					aggregator.accept((T) early.remove(next++));
+					inFlight.release();
+				}
+			}
+			return lines[0];
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading " + file, e);
+		} catch (IOException e) {
+			throw e;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IOException(e);
+		} finally {
+			threads.shutdownNow(); // stops the reader and workers early if something failed
+			threads.close();
+		}
+	}
+
+	/**
+	 * @return the most batches that were waiting for a worker at once during the
+	 *         last run
+	 */
+	public int maxQueueDepth() { // Big(O) = O(1) - No loops
+		return maxQueued;
+	}
+
+	/**
+	 * The reader stage. Reads the lines of the file into batches and queues them
+	 * for the workers, waiting for room in the window before each batch.
+	 */
+	private void read(BlockingQueue<Batch> batches, BlockingQueue<Done> results, Semaphore inFlight, int[] lines) {
+		// Big(O) = O(n) - defined by the size of the file
+
+		long seq = 0;
+		try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			int lineNum = 1;
+			String line = in.readLine();
+			while (line != null) {
+				String[] batch = new String[batchLines];
+				int count = 0;
+				while (line != null && count < batchLines) {
+					batch[count++] = line;
+					line = in.readLine();
+				}
+				inFlight.acquire(); // backpressure: wait until the aggregator has caught up
+				batches.put(new Batch(seq++, batch, count, lineNum));
+				maxQueued = Math.max(maxQueued, batches.size());
+				lineNum += count;
+			}
+			lines[0] = lineNum - 1;
+			results.put(new Done(-1, seq, null));
+		} catch (InterruptedException e) {
+			return; // the pipeline is being shut down
+		} catch (Throwable e) {
+			results.offer(new Done(seq, null, e));
+		} finally {
+			for (int i = 0; i < workers; i++) {
+				batches.offer(NO_MORE_BATCHES);
+			}
+		}
+	}
+
+	/**
+	 * The worker stage. Takes batches and passes their results on until the
+	 * reader is done.
+	 */
+	private static void work(BlockingQueue<Batch> batches, BlockingQueue<Done> results, BatchWorker<?> worker) {
+		// Big(O) = O(n) - defined by the lines in the batches taken
+
+		try {
+			for (Batch b = batches.take(); b != NO_MORE_BATCHES; b = batches.take()) {
+				results.put(new Done(b.seq(), worker.process(b.lines(), b.count(), b.firstLine()), null));
+			}
+		} catch (InterruptedException e) {
+			return; // the pipeline is being shut down
+		} catch (Throwable e) {
+			results.offer(new Done(-2, null, e));
+		}
+	}
+}
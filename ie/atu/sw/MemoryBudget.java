@@ -0,0 +1,126 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The MemoryBudget object limits how much heap the words and pages
+ *          gathered while reading the input may take up. Each
+ *          WordPagesAccumulator given the budget reports what it's tables take
+ *          up as they grow; once the total goes over the limit, the thread
+ *          adding at the time writes it's table out to disk as a sorted run
+ *          (see RunFile) and starts a new one. The runs are merged back
+ *          together, in order of word, as the index is written.
+ *
+ *          One budget may be shared by several accumulators (one per document
+ *          of a corpus), so the limit is on all of them together. The figures
+ *          are estimates (see PageSet.bytes()); the dictionary and the rest of
+ *          the program are not counted.
+ */
+public class MemoryBudget {
+
+	private final long limit;
+	private final Path directory;
+	private final AtomicLong used = new AtomicLong();
+	private final AtomicInteger runs = new AtomicInteger();
+	private final AtomicLong spilled = new AtomicLong();
+
+	/**
+	 * Constructor for the MemoryBudget object, writing runs to the default
+	 * temporary directory.
+	 *
+	 * @param newLimit the number of bytes the tables may take up
+	 */
+	public MemoryBudget(long newLimit) { // Big(O) = O(1) - No loops
+		this(newLimit, Path.of(System.getProperty("java.io.tmpdir")));
+	}
+
+	/**
+	 * Constructor for the MemoryBudget object
+	 *
+	 * @param newLimit     the number of bytes the tables may take up
+	 * @param newDirectory the directory runs are written to
+	 */
+	public MemoryBudget(long newLimit, Path newDirectory) { // Big(O) = O(1) - No loops
+		if (newLimit <= 0) {
+			throw new IllegalArgumentException("Memory budget must be more than 0 bytes");
+		}
+		limit = newLimit;
+		directory = newDirectory;
+	}
+
+	/**
+	 * Records that a table has grown (or, if bytes is negative, shrunk).
+	 *
+	 * @param bytes the number of bytes
+	 * @return true if the tables now take up more than the limit
+	 */
+	public boolean grow(long bytes) { // Big(O) = O(1) - No loops
+		return used.addAndGet(bytes) > limit;
+	}
+
+	/**
+	 * @return true if the tables take up more than the limit
+	 */
+	public boolean isExceeded() { // Big(O) = O(1) - No loops
+		return used.get() > limit;
+	}
+
+	/**
+	 * Creates a new, empty file for a run. The file is deleted when the program
+	 * exits if it hasn't been already (by a run which ended in an error).
+	 *
+	 * @return the file
+	 * @throws IOException if the file could not be created
+	 */
+	public Path newRun() throws IOException { // Big(O) = O(1) - No loops
+		runs.incrementAndGet();
+		Path run = Files.createTempFile(directory, "indexer-run-", ".tmp");
+		run.toFile().deleteOnExit();
+		return run;
+	}
+
+	/**
+	 * Records the size of a run once written.
+	 *
+	 * @param bytes the size of the run file
+	 */
+	public void written(long bytes) { // Big(O) = O(1) - No loops
+		spilled.addAndGet(bytes);
+	}
+
+	/**
+	 * @return the number of bytes the tables may take up
+	 */
+	public long limit() { // Big(O) = O(1) - No loops
+		return limit;
+	}
+
+	/**
+	 * @return the number of bytes the tables take up at the moment
+	 */
+	public long used() { // Big(O) = O(1) - No loops
+		return used.get();
+	}
+
+	/**
+	 * @return the number of runs written to disk
+	 */
+	public int runs() { // Big(O) = O(1) - No loops
+		return runs.get();
+	}
+
+	/**
+	 * @return the number of bytes written to disk in runs
+	 */
+	public long spilledBytes() { // Big(O) = O(1) - No loops
+		return spilled.get();
+	}
+}
@@ -1,5 +1,8 @@
 package ie.atu.sw;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -23,6 +26,12 @@ public class Menu {
 	private String dictionary; // location of dictionary
 	private String commonWords; // location of exclusions
 	private String outputFile; // location of output file
+	private boolean incremental; // only re-index the pages of the text file changed since the last run
+	private int occurrences; // 0: pages only, 1: also count occurrences per page, 2: also list their positions
+	private int memoryBudget; // megabytes the words and pages found may take up before going to disk, 0: no limit
+	private int fuzzyDistance; // edits a misspelt word may be from a dictionary word and still be indexed, 0: off
+
+	private static final int QUERY_RESULTS_SHOWN = 20; // matches listed for each query
 
 	/**
 	 * Constructor class for the Menu object. Sets default variable values and
@@ -58,7 +67,7 @@ public class Menu {
 
 		int choice = 0;
 
-		while (choice != 7) {
+		while (choice != 12) {
 			//clearScreen(); // clears the screen (Note: chose to remove as it only output characters in runtime)
 			scMenu = new Scanner(System.in);
 			choice = 0;
@@ -77,11 +86,16 @@ public class Menu {
 			System.out.println("(4) Specify Output File \t(Currently: " + outputFile + ")");
 			System.out.println("(5) Execute & Write to Output File");
 			System.out.println("(6) Execute & Print to Screen");
-			System.out.println("(7) Quit");
+			System.out.println("(7) Toggle Incremental Re-indexing \t(Currently: " + (incremental ? "On" : "Off") + ")");
+			System.out.println("(8) Toggle Occurrences \t\t(Currently: " + describeOccurrences() + ")");
+			System.out.println("(9) Set Memory Budget \t\t(Currently: " + describeMemoryBudget() + ")");
+			System.out.println("(10) Toggle Fuzzy Matching \t(Currently: " + describeFuzzy() + ")");
+			System.out.println("(11) Query Index of Output File");
+			System.out.println("(12) Quit");
 
 			// Output a menu of options and solicit text from the user
 			System.out.print(ConsoleColour.BLACK_BOLD_BRIGHT);
-			System.out.print("Select Option [1-7]>");
+			System.out.print("Select Option [1-12]>");
 			System.out.println();
 
 			try {
@@ -97,7 +111,12 @@ public class Menu {
 			case 4 -> setOutputFile(); // redefine output file location
 			case 5 -> runParserFile(); // run the parser and output to file
 			case 6 -> runParserScreen(); // run the parser and output to screen
-			case 7 -> System.out.println("Quitting."); // quit
+			case 7 -> toggleIncremental(); // switch incremental re-indexing on or off
+			case 8 -> toggleOccurrences(); // cycle through pages only, counts, and counts & positions
+			case 9 -> setMemoryBudget(); // limit the memory used for the words found before going to disk
+			case 10 -> toggleFuzzy(); // cycle through exact matches only, and matching within 1 or 2 edits
+			case 11 -> queryIndex(); // look up words, prefixes, wildcards and pages in the saved index
+			case 12 -> System.out.println("Quitting."); // quit
 			default -> System.out.println("Invalid Selection!"); // invalid option
 			}
 		}
@@ -157,6 +176,78 @@ public class Menu {
 
 	}
 
+	/**
+	 * Switches incremental re-indexing on or off. When on, writing to the output
+	 * file updates the index saved by the last run, re-reading only the pages of
+	 * the text file which have changed since.
+	 */
+	private void toggleIncremental() { // Big(O) = O(1) - No loops
+		incremental = !incremental;
+		System.out.print("Incremental Re-indexing set to: " + (incremental ? "On" : "Off"));
+	}
+
+	/**
+	 * Cycles what the index lists for each word: it's pages only; the number of
+	 * times it occurs on each page; or the counts and the line and column of
+	 * every occurrence.
+	 */
+	private void toggleOccurrences() { // Big(O) = O(1) - No loops
+		occurrences = (occurrences + 1) % 3;
+		System.out.print("Occurrences set to: " + describeOccurrences());
+	}
+
+	private String describeOccurrences() { // Big(O) = O(1) - No loops
+		return switch (occurrences) {
+		case 1 -> "Counts";
+		case 2 -> "Counts & Positions";
+		default -> "Off";
+		};
+	}
+
+	/**
+	 * Sets the memoryBudget variable: the megabytes the words and pages found in
+	 * the text file may take up before they are written to disk in sorted runs,
+	 * for text files whose index is too large to hold in memory.
+	 */
+	private void setMemoryBudget() { // Big(O) = O(1) - No loops
+
+		// prompts user for the budget in megabytes
+		System.out.print("Memory Budget in MB (0 for no limit): ");
+		try {
+			int input = Integer.parseInt(scInput.nextLine().trim());
+			if (input < 0) {
+				throw new NumberFormatException("the budget can't be negative");
+			}
+			memoryBudget = input;
+			System.out.print("Memory Budget set to: " + describeMemoryBudget());
+		} catch (NumberFormatException e) {
+			System.out.print("Invalid Memory Budget! - " + e.getLocalizedMessage());
+		}
+	}
+
+	private String describeMemoryBudget() { // Big(O) = O(1) - No loops
+		return memoryBudget == 0 ? "No Limit" : memoryBudget + " MB";
+	}
+
+	/**
+	 * Cycles how words which are not in the dictionary are treated: left out;
+	 * or indexed under the dictionary word they are within 1, or 2, edits of
+	 * (a letter added, removed, changed or swapped with the next), so that
+	 * spelling variants such as "honor" are found under "honour".
+	 */
+	private void toggleFuzzy() { // Big(O) = O(1) - No loops
+		fuzzyDistance = (fuzzyDistance + 1) % (FuzzyMatcher.MAX_DISTANCE + 1);
+		System.out.print("Fuzzy Matching set to: " + describeFuzzy());
+	}
+
+	private String describeFuzzy() { // Big(O) = O(1) - No loops
+		return switch (fuzzyDistance) {
+		case 0 -> "Off";
+		case 1 -> "Within 1 Edit";
+		default -> "Within " + fuzzyDistance + " Edits";
+		};
+	}
+
 	/**
 	 * Creates a new Parser object, passing the required constructor arguments to
 	 * the new object. Sets the parser object to output to the defined file.
@@ -166,6 +257,11 @@ public class Menu {
 		// instantiates the Parser object and passes the required arguments
 		// runs the parser, outputting to the designated file
 		myParser = new Parser(outputFile, textFile, dictionary, commonWords);
+		myParser.setIncremental(incremental);
+		myParser.setCounts(occurrences >= 1);
+		myParser.setPositions(occurrences == 2);
+		myParser.setMemoryBudget(memoryBudget * 1024L * 1024L);
+		myParser.setFuzzy(fuzzyDistance);
 		myParser.run(false);
 	}
 
@@ -178,9 +274,55 @@ public class Menu {
 		// instantiates the Parser object and passes the required arguments
 		// runs the parser, outputting to the user's System.out
 		myParser = new Parser(outputFile, textFile, dictionary, commonWords);
+		myParser.setCounts(occurrences >= 1);
+		myParser.setPositions(occurrences == 2);
+		myParser.setMemoryBudget(memoryBudget * 1024L * 1024L);
+		myParser.setFuzzy(fuzzyDistance);
 		myParser.run(true);
 	}
 
+	/**
+	 * Loads the index saved beside the output file by the last Execute & Write
+	 * to Output File, then answers queries against it until a blank line is
+	 * entered: a word, a prefix (sanct*), a wildcard pattern (s?n*ify) or a range
+	 * of pages (100-140).
+	 */
+	private void queryIndex() { // Big(O) = O(q) - defined by the number of queries entered
+
+		Path index = IndexFile.pathFor(outputFile);
+		IndexQuery query;
+		try {
+			long start = System.nanoTime();
+			query = IndexQuery.load(index);
+			System.out.println("Index loaded - " + query.size() + " words, in "
+					+ (System.nanoTime() - start) / 1_000_000 + " ms.");
+		} catch (IOException e) {
+			System.out.println("Error: could not open the index " + index + " - " + e.getLocalizedMessage());
+			return;
+		}
+
+		while (true) {
+			System.out.print("Query (word, prefix*, wild?card, or pages 100-140; blank to return): ");
+			String input = scInput.nextLine().strip().toLowerCase();
+			if (input.isEmpty()) {
+				break;
+			}
+
+			long start = System.nanoTime();
+			List<IndexEntry> results = query.search(input);
+			long micros = (System.nanoTime() - start) / 1_000;
+
+			// list the first QUERY_RESULTS_SHOWN matches, then how many there were
+			for (IndexEntry e : results.subList(0, Math.min(results.size(), QUERY_RESULTS_SHOWN))) {
+				System.out.println(e.getWord() + " : " + e.getDefinition() + " : " + e.getWordPages());
+			}
+			if (results.size() > QUERY_RESULTS_SHOWN) {
+				System.out.println("... and " + (results.size() - QUERY_RESULTS_SHOWN) + " more.");
+			}
+			System.out.println(results.size() + " words found in " + micros + " microseconds.");
+		}
+	}
+
 	/**
 	 * Method to clear the user console/screen
 	 * <i>Note: not currently used as only outputs characters to console</i>
@@ -0,0 +1,398 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The Metrics object is a registry of the counters and timings of a
+ *          run of the Parser. Counters (lines read, tokens, dictionary hits,
+ *          bytes written...) can be added to from any thread. Maximums (such as
+ *          the deepest the queue of chunks waiting for a thread got) keep the
+ *          largest value reported.
+ *
+ *          Each stage of a run is timed by a Stage, which notes how much each
+ *          counter went up by while it ran and the largest value of each
+ *          maximum. Stages may run at the same time (such as the loaders
+ *          forked by Parser.loadOverlapped()), so what a thread adds is kept by
+ *          the stage that thread is running: the stage opened on it, or on the
+ *          thread which started it (threads inherit their stage, so a pool
+ *          made by a stage works for it). Threads with no stage, such as those
+ *          of a shared pool, add to the first stage still open. Each stage
+ *          is also recorded as an "ie.atu.sw.Stage" event for Java Flight
+ *          Recorder, so a run can be watched in JDK Mission Control or with
+ *          "jfr print --events ie.atu.sw.Stage".
+ *
+ *          The stages of a run, with their rates (lines/sec, tokens/sec) and
+ *          dictionary hit rate, can be exported as JSON.
+ */
+public class Metrics {
+
+	// names of the counters and maximums recorded by the Parser
+	public static final String LINES = "lines";
+	public static final String TOKENS = "tokens";
+	public static final String DICTIONARY_HITS = "dictionaryHits";
+	public static final String DICTIONARY_WORDS = "dictionaryWords";
+	public static final String ENTRIES = "entries";
+	public static final String ENTRIES_WRITTEN = "entriesWritten";
+	public static final String BYTES_WRITTEN = "bytesWritten";
+	public static final String QUEUE_DEPTH = "queueDepth";
+	public static final String OCCURRENCES = "occurrences";
+	public static final String POSTING_BYTES = "postingBytes";
+	public static final String MALFORMED_ROWS = "malformedRows";
+	public static final String SPILLED_RUNS = "spilledRuns";
+	public static final String SPILLED_BYTES = "spilledBytes";
+	public static final String FUZZY_HITS = "fuzzyHits";
+
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<String, LongAdder>();
+	private final Map<String, AtomicLong> maximums = new ConcurrentHashMap<String, AtomicLong>();
+	private final List<StageResult> stages = new ArrayList<StageResult>();
+	private final InheritableThreadLocal<Stage> current = new InheritableThreadLocal<Stage>(); // each thread's stage
+	private final ConcurrentLinkedDeque<Stage> open = new ConcurrentLinkedDeque<Stage>(); // stages open, oldest first
+	private final LongAdder runNanos = new LongAdder(); // time of the stages not run within another
+
+	/**
+	 * The figures recorded for one stage of a run.
+	 *
+	 * @param name     the name of the stage
+	 * @param nanos    the time the stage took
+	 * @param counters how much each counter went up by during the stage
+	 * @param maximums the largest value of each maximum during the stage
+	 */
+	public record StageResult(String name, long nanos, Map<String, Long> counters, Map<String, Long> maximums) {
+
+		/**
+		 * @return the named counter or maximum, or 0 if it was not recorded
+		 */
+		public long get(String key) { // Big(O) = O(1) - No loops
+			return counters.getOrDefault(key, maximums.getOrDefault(key, 0L));
+		}
+
+		/**
+		 * @return how many of the named counter were recorded per second
+		 */
+		public double perSecond(String key) { // Big(O) = O(1) - No loops
+			return nanos == 0 ? 0 : get(key) * 1e9 / nanos;
+		}
+
+		/**
+		 * @return the share of tokens which were found in the dictionary
+		 */
+		public double hitRate() { // Big(O) = O(1) - No loops
+			return get(TOKENS) == 0 ? 0 : (double) get(DICTIONARY_HITS) / get(TOKENS);
+		}
+	}
+
+	/**
+	 * A stage of a run being timed. Created with Metrics.stage(), and ended by
+	 * close(). Metrics.time() does both around a piece of work.
+	 */
+	public class Stage implements AutoCloseable {
+
+		private final String name;
+		private final long start = System.nanoTime();
+		private final Stage outer; // the stage of the thread which opened this one, if any
+		private final Map<String, LongAdder> counts = new ConcurrentHashMap<String, LongAdder>();
+		private final Map<String, AtomicLong> peaks = new ConcurrentHashMap<String, AtomicLong>();
+		private final StageEvent event = new StageEvent();
+		private volatile boolean closed;
+
+		private Stage(String newName) { // Big(O) = O(1) - No loops
+			name = newName;
+			outer = current.get();
+			current.set(this);
+			open.add(this);
+			event.begin();
+		}
+
+		/**
+		 * Ends the stage, recording it's figures and committing it's JFR event.
+		 */
+		@Override
+		public void close() { // Big(O) = O(c) - defined by the number of counters
+
+			long nanos = System.nanoTime() - start;
+			closed = true;
+			open.remove(this);
+			if (current.get() == this) {
+				current.set(outer);
+			}
+			if (outer == null) {
+				runNanos.add(nanos);
+			}
+
+			Map<String, Long> deltas = new LinkedHashMap<String, Long>();
+			new TreeMap<String, LongAdder>(counts).forEach((k, v) -> {
+				if (v.sum() != 0) { // leave out counters the stage didn't touch
+					deltas.put(k, v.sum());
+				}
+			});
+			Map<String, Long> highest = new LinkedHashMap<String, Long>();
+			new TreeMap<String, AtomicLong>(peaks).forEach((k, v) -> highest.put(k, v.get()));
+			StageResult result = new StageResult(name, nanos, deltas, highest);
+			synchronized (stages) {
+				stages.add(result);
+			}
+
+			event.end();
+			if (event.shouldCommit()) {
+				event.stage = name;
+				event.lines = result.get(LINES);
+				event.tokens = result.get(TOKENS);
+				event.dictionaryHits = result.get(DICTIONARY_HITS);
+				event.linesPerSecond = result.perSecond(LINES);
+				event.tokensPerSecond = result.perSecond(TOKENS);
+				event.queueDepth = result.get(QUEUE_DEPTH);
+				event.bytesWritten = result.get(BYTES_WRITTEN);
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * The JFR event recorded for each stage of a run.
+	 */
+	@Name("ie.atu.sw.Stage")
+	@Label("Indexer Stage")
+	@Category("Text Indexer")
+	@Description("A stage of a run of the Parser")
+	static class StageEvent extends Event {
+
+		@Label("Stage")
+		String stage;
+
+		@Label("Lines")
+		long lines;
+
+		@Label("Tokens")
+		long tokens;
+
+		@Label("Dictionary Hits")
+		long dictionaryHits;
+
+		@Label("Lines per Second")
+		double linesPerSecond;
+
+		@Label("Tokens per Second")
+		double tokensPerSecond;
+
+		@Label("Queue Depth")
+		@Description("The most chunks waiting for a thread at once")
+		long queueDepth;
+
+		@Label("Bytes Written")
+		@DataAmount
+		long bytesWritten;
+	}
+
+	/**
+	 * Starts timing a stage of a run.
+	 *
+	 * @param name the name of the stage
+	 * @return the stage, which must be closed when it ends
+	 */
+	public Stage stage(String name) { // Big(O) = O(1) - No loops
+		return new Stage(name);
+	}
+
+	/**
+	 * Runs a stage of a run, timing it.
+	 *
+	 * @param name  the name of the stage
+	 * @param stage the work of the stage
+	 */
+	public void time(String name, Runnable stage) { // Big(O) = O(1) - No loops, plus the work of the stage
+		Stage s = stage(name);
+		try {
+			stage.run();
+		} finally {
+			s.close();
+		}
+	}
+
+	/**
+	 * Runs a stage of a run which reports if it succeeded, timing it.
+	 *
+	 * @param name  the name of the stage
+	 * @param stage the work of the stage
+	 * @return the result of the stage
+	 */
+	public boolean time(String name, BooleanSupplier stage) { // Big(O) = O(1) - No loops, plus the work of the stage
+		Stage s = stage(name);
+		try {
+			return stage.getAsBoolean();
+		} finally {
+			s.close();
+		}
+	}
+
+	/**
+	 * Runs a stage of a run which may run at the same time as others, such as a
+	 * subtask forked in a structured task scope, timing it.
+	 *
+	 * @param name  the name of the stage
+	 * @param stage the work of the stage
+	 * @return the result of the stage
+	 * @throws Exception if the stage threw one
+	 */
+	public <T> T timeSubtask(String name, Callable<T> stage) throws Exception { // Big(O) = O(1) - No loops, plus
+																					// the work of the stage
+		Stage s = stage(name);
+		try {
+			return stage.call();
+		} finally {
+			s.close();
+		}
+	}
+
+	/**
+	 * Adds to a counter, and to the stage of the calling thread. May be called
+	 * from any thread.
+	 *
+	 * @param name   the name of the counter
+	 * @param amount the amount to add
+	 */
+	public void add(String name, long amount) { // Big(O) = O(1) - No loops
+		counters.computeIfAbsent(name, k -> new LongAdder()).add(amount);
+		Stage s = stageOfThread();
+		if (s != null) {
+			s.counts.computeIfAbsent(name, k -> new LongAdder()).add(amount);
+		}
+	}
+
+	/**
+	 * Reports a value of a maximum, keeping it if it is the largest so far. May be
+	 * called from any thread.
+	 *
+	 * @param name  the name of the maximum
+	 * @param value the value
+	 */
+	public void max(String name, long value) { // Big(O) = O(1) - No loops
+		maximums.computeIfAbsent(name, k -> new AtomicLong()).accumulateAndGet(value, Math::max);
+		Stage s = stageOfThread();
+		if (s != null) {
+			s.peaks.computeIfAbsent(name, k -> new AtomicLong()).accumulateAndGet(value, Math::max);
+		}
+	}
+
+	/**
+	 * @return the stage the calling thread is working for: it's own (or
+	 *         inherited) stage while that is open, otherwise the first stage
+	 *         still open, or null if none is
+	 */
+	private Stage stageOfThread() { // Big(O) = O(1) - No loops
+		Stage s = current.get();
+		return s != null && !s.closed ? s : open.peekFirst();
+	}
+
+	/**
+	 * @return the total of a counter over the whole run
+	 */
+	public long get(String name) { // Big(O) = O(1) - No loops
+		LongAdder c = counters.get(name);
+		return c == null ? 0 : c.sum();
+	}
+
+	/**
+	 * @return the stages recorded so far, in the order they ended
+	 */
+	public List<StageResult> stages() { // Big(O) = O(s) - defined by the number of stages
+		synchronized (stages) {
+			return List.copyOf(stages);
+		}
+	}
+
+	/**
+	 * Builds a JSON summary of the run: the figures of each stage, with the rates
+	 * worked out from them, and the total of each counter.
+	 *
+	 * @return the summary as a JSON object
+	 */
+	public String toJson() { // Big(O) = O(s * c) - defined by the stages and counters
+
+		StringBuilder sb = new StringBuilder("{\n  \"stages\": [");
+		List<StageResult> done = stages();
+		for (int i = 0; i < done.size(); i++) {
+			StageResult s = done.get(i);
+			sb.append(i == 0 ? "\n" : ",\n").append("    {\"name\": \"").append(escape(s.name())).append('"');
+			sb.append(", \"millis\": ").append(number(s.nanos() / 1e6));
+			s.counters().forEach((k, v) -> sb.append(", \"").append(escape(k)).append("\": ").append(v));
+			s.maximums().forEach((k, v) -> sb.append(", \"").append(escape(k)).append("\": ").append(v));
+			if (s.get(LINES) > 0) {
+				sb.append(", \"linesPerSecond\": ").append(number(s.perSecond(LINES)));
+			}
+			if (s.get(TOKENS) > 0) {
+				sb.append(", \"tokensPerSecond\": ").append(number(s.perSecond(TOKENS)));
+				if (s.get(DICTIONARY_HITS) > 0) { // overlapped loaders look tokens up in a later stage
+					sb.append(", \"hitRate\": ").append(number(s.hitRate()));
+				}
+			}
+			sb.append('}');
+		}
+		sb.append(done.isEmpty() ? "],\n" : "\n  ],\n");
+		sb.append("  \"totalMillis\": ").append(number(runNanos.sum() / 1e6));
+		Map<String, Long> totals = snapshot();
+		long tokens = totals.getOrDefault(TOKENS, 0L);
+		if (tokens > 0) {
+			sb.append(",\n  \"hitRate\": ").append(number((double) totals.getOrDefault(DICTIONARY_HITS, 0L) / tokens));
+		}
+		sb.append(",\n  \"totals\": {");
+		int n = 0;
+		for (Map.Entry<String, Long> e : totals.entrySet()) {
+			sb.append(n++ == 0 ? "" : ", ").append('"').append(escape(e.getKey())).append("\": ").append(e.getValue());
+		}
+		return sb.append("}\n}\n").toString();
+	}
+
+	/**
+	 * Saves the JSON summary of the run to a file.
+	 *
+	 * @param file the file to write, overwritten if it exists
+	 * @throws IOException if the file could not be written
+	 */
+	public void writeJson(Path file) throws IOException { // Big(O) = O(s * c) - defined by the stages and counters
+		Files.writeString(file, toJson(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the current total of every counter, by name in alphabetical order
+	 */
+	private Map<String, Long> snapshot() { // Big(O) = O(c log c) - defined by the number of counters
+
+		Map<String, Long> out = new TreeMap<String, Long>();
+		counters.forEach((k, v) -> out.put(k, v.sum()));
+		return out;
+	}
+
+	private static String number(double d) { // Big(O) = O(1) - No loops
+		return String.format(Locale.ROOT, "%.3f", d);
+	}
+
+	private static String escape(String s) { // Big(O) = O(n) - defined by the length of the string
+		return s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+}
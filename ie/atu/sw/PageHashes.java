@@ -0,0 +1,190 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The PageHashes object holds a 64 bit hash of the content of each
+ *          page of a source file. The hash of a page is the sum of the hashes
+ *          of it's lines, each line's hash taking in it's line number, so lines
+ *          can be added from any thread in any order while still detecting
+ *          lines which are changed, moved or swapped.
+ *
+ *          The hashes are saved alongside an index (the output file's name with
+ *          ".pages" added), together with everything else the entries of the
+ *          index depend on: the source file they describe, a fingerprint of the
+ *          dictionary the index was built with (which leaves out the common
+ *          words), the edit distance of any fuzzy matching, the lines on a page,
+ *          and the size and time of the IndexFile saved with them, so hashes are
+ *          never taken for an index written by another run. On the next run,
+ *          comparing the saved hashes with those of the current source file
+ *          gives the pages whose index entries need to be rebuilt.
+ */
+public class PageHashes {
+
+	private static final int MAGIC = 0x49445850; // "IDXP"
+	private static final int VERSION = 3; // 2: the fuzzy matching distance is saved, 3: lines a page and the index
+
+	private final AtomicLongArray hashes; // hashes.get(page - 1) is the hash of page
+
+	/**
+	 * Creates an empty set of hashes for a file with the given number of lines.
+	 *
+	 * @param lines the number of lines in the source file
+	 */
+	public PageHashes(int lines) { // Big(O) = O(p) - defined by the number of pages
+		hashes = new AtomicLongArray(lines == 0 ? 0 : Parser.pageOf(lines));
+	}
+
+	private PageHashes(long[] saved) { // Big(O) = O(p) - defined by the number of pages
+		hashes = new AtomicLongArray(saved);
+	}
+
+	/**
+	 * @param outputFile the path of the text output
+	 * @return the path of the page hashes saved alongside it
+	 */
+	public static Path pathFor(String outputFile) { // Big(O) = O(1) - No loops
+		return Path.of(outputFile + ".pages");
+	}
+
+	/**
+	 * Adds a line of the source file to the hash of the page it is on. May be
+	 * called from any thread.
+	 *
+	 * @param chunk   the buffer holding the line
+	 * @param from    the position of the first byte of the line
+	 * @param to      the position just after the last byte of the line
+	 * @param lineNum the line number of the line in the source file
+	 */
+	public void addLine(ByteBuffer chunk, int from, int to, int lineNum) { // Big(O) = O(n) - length of the line
+
+		// FNV-1a over the bytes of the line, seeded with the line number
+		long h = 0xCBF29CE484222325L ^ lineNum;
+		for (int i = from; i < to; i++) {
+			h = (h ^ (chunk.get(i) & 0xFF)) * 0x100000001B3L;
+		}
+		// mix the bits before summing, so similar lines don't cancel out
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		hashes.getAndAdd(Parser.pageOf(lineNum) - 1, h);
+	}
+
+	/**
+	 * @return the number of pages
+	 */
+	public int pages() { // Big(O) = O(1) - No loops
+		return hashes.length();
+	}
+
+	/**
+	 * Finds the pages whose content differs from an earlier set of hashes,
+	 * including pages which only exist in one of the two.
+	 *
+	 * @param old the earlier hashes
+	 * @return the changed pages, bit n being set if page n changed
+	 */
+	public BitSet changedSince(PageHashes old) { // Big(O) = O(p) - defined by the number of pages
+
+		BitSet changed = new BitSet();
+		int max = Math.max(pages(), old.pages());
+		for (int i = 0; i < max; i++) {
+			if (i >= pages() || i >= old.pages() || hashes.get(i) != old.hashes.get(i)) {
+				changed.set(i + 1);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Saves the hashes. The file is written to a temporary file which is then
+	 * moved into place.
+	 *
+	 * @param file        the file to write
+	 * @param source      the source file the hashes describe
+	 * @param index       the IndexFile the hashes are saved with, already written
+	 * @param fingerprint the fingerprint of the dictionary used for the index
+	 * @param fuzzy       the edit distance fuzzy matching was used with for the
+	 *                    index, 0 if it wasn't
+	 * @throws IOException if the file could not be written
+	 */
+	public void save(Path file, Path source, Path index, long fingerprint, int fuzzy) throws IOException { // Big(O) = O(p)
+
+		byte[] name = source.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buf = ByteBuffer.allocate(4 + 4 + 8 + 4 + 4 + 8 + 8 + 4 + name.length + 4 + 8 * pages());
+		buf.putInt(MAGIC).putInt(VERSION).putLong(fingerprint).putInt(fuzzy).putInt(Parser.LINES_PER_PAGE);
+		buf.putLong(Files.size(index)).putLong(Files.getLastModifiedTime(index).toMillis());
+		buf.putInt(name.length).put(name).putInt(pages());
+		for (int i = 0; i < pages(); i++) {
+			buf.putLong(hashes.get(i));
+		}
+		buf.flip();
+
+		Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				while (buf.hasRemaining()) {
+					ch.write(buf);
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Loads saved hashes, if they exist and were saved for the same source file,
+	 * dictionary, fuzzy matching distance and page size, with the IndexFile as
+	 * it is now.
+	 *
+	 * @param file        the saved hashes
+	 * @param source      the source file the hashes should describe
+	 * @param index       the IndexFile the hashes should have been saved with
+	 * @param fingerprint the fingerprint of the current dictionary
+	 * @param fuzzy       the edit distance of the current fuzzy matching, 0 if off
+	 * @return the hashes, or null if they are missing, unreadable or were saved
+	 *         for a different source file, dictionary, fuzzy matching distance,
+	 *         page size or IndexFile
+	 */
+	public static PageHashes load(Path file, Path source, Path index, long fingerprint, int fuzzy) { // Big(O) = O(p)
+
+		if (!Files.isRegularFile(file) || !Files.isRegularFile(index)) {
+			return null;
+		}
+		try {
+			ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getLong() != fingerprint
+					|| buf.getInt() != fuzzy || buf.getInt() != Parser.LINES_PER_PAGE) {
+				return null;
+			}
+			if (buf.getLong() != Files.size(index)
+					|| buf.getLong() != Files.getLastModifiedTime(index).toMillis()) {
+				return null; // the index has been written since, by a run which didn't save hashes
+			}
+			byte[] name = new byte[buf.getInt()];
+			buf.get(name);
+			if (!new String(name, StandardCharsets.UTF_8).equals(source.toAbsolutePath().toString())) {
+				return null;
+			}
+			long[] saved = new long[buf.getInt()];
+			buf.asLongBuffer().get(saved);
+			return new PageHashes(saved);
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+}
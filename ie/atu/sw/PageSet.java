@@ -0,0 +1,371 @@
+package ie.atu.sw;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The PageSet object holds the set of page numbers a word appears on,
+ *          as primitive ints kept in numeric order. The pages are stored in
+ *          whichever of three forms takes the least memory for how they are
+ *          spread out, re-chosen each time the number of pages doubles:
+ *
+ *          > ARRAY - a sorted array of page numbers, 4 bytes a page. Best for a
+ *          few pages scattered through the text. > BITMAP - one bit for every
+ *          page between the first and last. Best for a word on a large share of
+ *          the pages. > RUNS - pairs of first and last page of each run of
+ *          consecutive pages. Best for a word found on long stretches of pages.
+ *
+ *          A PageSet is not thread safe; callers sharing one between threads
+ *          must synchronise on it.
+ */
+public class PageSet {
+
+	private static final int ARRAY = 0;
+	private static final int BITMAP = 1;
+	private static final int RUNS = 2;
+
+	private int kind = ARRAY; // which form the pages are currently stored in
+	private int[] data = new int[2]; // ARRAY: sorted pages. RUNS: first/last pairs. BITMAP: unused
+	private int used; // number of ints of data in use
+	private long[] bits; // BITMAP: bit i of the set is page base + i
+	private int base; // BITMAP: page held by the first bit, always a multiple of 64
+	private int cardinality; // number of pages in the set
+	private int nextCheck = 8; // cardinality at which the storage form is next re-chosen
+
+	/**
+	 * Adds a page to the set.
+	 *
+	 * @param page the page number
+	 * @return true if the page was not already in the set
+	 */
+	public boolean add(int page) { // Big(O) = O(1) when pages arrive in order, O(n) worst case
+
+		boolean added = switch (kind) {
+		case ARRAY -> addToArray(page);
+		case BITMAP -> addToBitmap(page);
+		default -> addToRuns(page);
+		};
+
+		if (added && ++cardinality >= nextCheck) {
+			nextCheck = cardinality * 2;
+			optimise();
+		}
+		return added;
+	}
+
+	/**
+	 * Adds every page of another set to this set.
+	 *
+	 * @param other the set of pages to be added
+	 * @return true if any page was not already in the set
+	 */
+	public boolean addAll(PageSet other) { // Big(O) = O(m) when other's pages follow this set's, O(n * m) worst case
+
+		boolean[] added = { false };
+		other.forEach(p -> added[0] |= add(p));
+		return added[0];
+	}
+
+	/**
+	 * Removes a page from the set.
+	 *
+	 * @param page the page number
+	 * @return true if the page was in the set
+	 */
+	public boolean remove(int page) { // Big(O) = O(n) worst case - shifts the pages after it
+
+		if (!contains(page)) {
+			return false;
+		}
+		switch (kind) {
+		case ARRAY:
+			int at = Arrays.binarySearch(data, 0, used, page);
+			System.arraycopy(data, at + 1, data, at, used - at - 1);
+			used--;
+			break;
+		case BITMAP:
+			bits[(page - base) >> 6] &= ~(1L << (page - base));
+			break;
+		default:
+			int r = findRun(page);
+			if (data[r] == data[r + 1]) { // the run is just this page
+				System.arraycopy(data, r + 2, data, r, used - r - 2);
+				used -= 2;
+			} else if (page == data[r]) {
+				data[r]++;
+			} else if (page == data[r + 1]) {
+				data[r + 1]--;
+			} else { // split the run either side of the page
+				insert(r + 2, 2);
+				data[r + 3] = data[r + 1];
+				data[r + 2] = page + 1;
+				data[r + 1] = page - 1;
+			}
+		}
+		cardinality--;
+		return true;
+	}
+
+	/**
+	 * Checks if a page is in the set.
+	 *
+	 * @param page the page number
+	 * @return true if the page is in the set
+	 */
+	public boolean contains(int page) { // Big(O) = O(log n) - binary search
+
+		switch (kind) {
+		case ARRAY:
+			return Arrays.binarySearch(data, 0, used, page) >= 0;
+		case BITMAP:
+			int i = page - base;
+			return i >= 0 && (i >> 6) < bits.length && (bits[i >> 6] & (1L << i)) != 0;
+		default:
+			int r = findRun(page);
+			return r >= 0 && page <= data[r + 1];
+		}
+	}
+
+	/**
+	 * @return the number of pages in the set
+	 */
+	public int size() { // Big(O) = O(1) - No loops
+		return cardinality;
+	}
+
+	/**
+	 * @return true if the set contains no pages
+	 */
+	public boolean isEmpty() { // Big(O) = O(1) - No loops
+		return cardinality == 0;
+	}
+
+	/**
+	 * Passes every page in the set, in ascending order, to action.
+	 *
+	 * @param action the action to perform on each page
+	 */
+	public void forEach(IntConsumer action) { // Big(O) = O(n) - defined by the number of pages
+
+		switch (kind) {
+		case ARRAY:
+			for (int i = 0; i < used; i++) {
+				action.accept(data[i]);
+			}
+			break;
+		case BITMAP:
+			for (int w = 0; w < bits.length; w++) {
+				long word = bits[w];
+				while (word != 0) {
+					action.accept(base + (w << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			break;
+		default:
+			for (int i = 0; i < used; i += 2) {
+				for (int p = data[i]; p <= data[i + 1]; p++) {
+					action.accept(p);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the pages in the set as a new array, in ascending order
+	 */
+	public int[] toArray() { // Big(O) = O(n) - defined by the number of pages
+
+		if (kind == ARRAY) {
+			return Arrays.copyOf(data, used);
+		}
+		int[] out = new int[cardinality];
+		int[] n = { 0 };
+		forEach(p -> out[n[0]++] = p);
+		return out;
+	}
+
+	/**
+	 * @return an estimate of the heap used by this set, in bytes
+	 */
+	public long bytes() { // Big(O) = O(1) - No loops
+		return 40 + 16 + 4L * data.length + (bits == null ? 0 : 16 + 8L * bits.length);
+	}
+
+	/**
+	 * Overrides Super toString() method to return the pages in ascending order,
+	 * formatted like a Collection, e.g. "[1, 2, 10]".
+	 *
+	 * @return String representation of the pages in the set
+	 */
+	@Override
+	public String toString() { // Big(O) = O(n) - defined by the number of pages
+
+		StringBuilder sb = new StringBuilder("[");
+		forEach(p -> {
+			if (sb.length() > 1) {
+				sb.append(", ");
+			}
+			sb.append(p);
+		});
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Adds a page to the ARRAY form, appending when the page is after the last
+	 * (the usual case as the text is read in order).
+	 */
+	private boolean addToArray(int page) { // Big(O) = O(1) in order, O(n) out of order
+
+		int at = used;
+		if (used > 0 && page <= data[used - 1]) {
+			at = Arrays.binarySearch(data, 0, used, page);
+			if (at >= 0) {
+				return false;
+			}
+			at = -at - 1;
+		}
+		insert(at, 1);
+		data[at] = page;
+		return true;
+	}
+
+	/**
+	 * Adds a page to the BITMAP form, growing the bitmap at either end as needed.
+	 */
+	private boolean addToBitmap(int page) { // Big(O) = O(1) inside the bitmap, O(n) when it grows
+
+		if (page < base) {
+			int newBase = page & ~63;
+			int shift = (base - newBase) >> 6;
+			long[] grown = new long[bits.length + shift];
+			System.arraycopy(bits, 0, grown, shift, bits.length);
+			bits = grown;
+			base = newBase;
+		}
+		int i = page - base;
+		if ((i >> 6) >= bits.length) {
+			bits = Arrays.copyOf(bits, Math.max((i >> 6) + 1, bits.length + (bits.length >> 1)));
+		}
+		long mask = 1L << i;
+		if ((bits[i >> 6] & mask) != 0) {
+			return false;
+		}
+		bits[i >> 6] |= mask;
+		return true;
+	}
+
+	/**
+	 * Adds a page to the RUNS form, extending or joining the runs either side of
+	 * the page where they touch it.
+	 */
+	private boolean addToRuns(int page) { // Big(O) = O(log r) to find the run, O(r) to insert one
+
+		int r = findRun(page);
+		if (r >= 0 && page <= data[r + 1]) {
+			return false;
+		}
+		int next = r + 2; // index of the first run starting after page
+		boolean joinsPrev = r >= 0 && data[r + 1] == page - 1;
+		boolean joinsNext = next < used && data[next] == page + 1;
+
+		if (joinsPrev && joinsNext) {
+			data[r + 1] = data[next + 1];
+			System.arraycopy(data, next + 2, data, next, used - next - 2);
+			used -= 2;
+		} else if (joinsPrev) {
+			data[r + 1] = page;
+		} else if (joinsNext) {
+			data[next] = page;
+		} else {
+			insert(next, 2);
+			data[next] = page;
+			data[next + 1] = page;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the index in data of the last run starting at or before page, or -2
+	 *         if there is none
+	 */
+	private int findRun(int page) { // Big(O) = O(log r) - binary search over the runs
+
+		int lo = 0;
+		int hi = used / 2 - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (data[mid * 2] <= page) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return hi * 2;
+	}
+
+	/**
+	 * Opens a gap of count ints at index at of data, growing it if needed.
+	 */
+	private void insert(int at, int count) { // Big(O) = O(n) - shifts the ints after the gap
+
+		if (used + count > data.length) {
+			data = Arrays.copyOf(data, Math.max(used + count, data.length * 2));
+		}
+		System.arraycopy(data, at, data, at + count, used - at);
+		used += count;
+	}
+
+	/**
+	 * Re-chooses the storage form, converting the pages to whichever form takes
+	 * the least memory.
+	 */
+	private void optimise() { // Big(O) = O(n) - defined by the number of pages
+
+		int[] pages = toArray();
+		int first = pages[0];
+		int last = pages[pages.length - 1];
+		int runs = 1;
+		for (int i = 1; i < pages.length; i++) {
+			if (pages[i] != pages[i - 1] + 1) {
+				runs++;
+			}
+		}
+
+		long arrayBytes = 4L * pages.length;
+		long bitmapBytes = 8L * ((last >> 6) - (first >> 6) + 1);
+		long runBytes = 8L * runs;
+
+		bits = null;
+		if (runBytes < arrayBytes && runBytes <= bitmapBytes) {
+			kind = RUNS;
+			data = new int[runs * 2 + 2];
+			used = 0;
+			for (int i = 0; i < pages.length; i++) {
+				if (i == 0 || pages[i] != pages[i - 1] + 1) {
+					data[used++] = pages[i];
+					data[used++] = pages[i];
+				} else {
+					data[used - 1] = pages[i];
+				}
+			}
+		} else if (bitmapBytes < arrayBytes) {
+			kind = BITMAP;
+			data = new int[0];
+			used = 0;
+			base = first & ~63;
+			bits = new long[((last - base) >> 6) + 1];
+			for (int p : pages) {
+				bits[(p - base) >> 6] |= 1L << (p - base);
+			}
+		} else {
+			kind = ARRAY;
+			data = pages;
+			used = pages.length;
+		}
+	}
+}
@@ -1,13 +1,19 @@
 package ie.atu.sw;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * 
@@ -29,17 +35,36 @@ import java.util.Set;
  */
 public class Parser {
 
-	private boolean endrun; // switch to end the run if an error is found in the process
+	private volatile boolean endrun; // switch to end the run if an error is found in the process
 	private String inputFile;
 	private String dictionary;
 	private String commonWords;
 	private String outputFile;
-	private volatile int currentLine; // counter of current line in the source file
-	private volatile int currentPage = 1; // current page in the source file
+	private boolean incremental; // when writing to a file, only re-read the pages of the input that have changed
+	private boolean counts; // list the number of times each word occurs on each of it's pages
+	private boolean positions; // list the line and column of every occurrence of each word
+	private long memoryBudget; // bytes the words and pages of the input may take up before going to disk, 0: no limit
+	private int fuzzyDistance; // edits a word not in the dictionary may be from one that is to be matched, 0: off
+	private FuzzyMatcher fuzzy; // the matcher of the run, set by loadFuzzyIndex(), null: fuzzy matching off
+	private int malformedRows; // rows of the dictionary file skipped as malformed
+	private boolean preloaded; // the exclusions and dictionary were given by setResources(), not loaded by run()
+	private Executor executor; // runs the chunks of the input, null: a pool of this parser's own (see setExecutor())
+
+	public static final int LINES_PER_PAGE = 40; // number of lines of source text considered to be a page
+	private static final int SHARED_CHUNK_SIZE = 1024 * 1024; // chunks on a shared executor, so jobs take turns
+	private static final int MALFORMED_ROWS_SHOWN = 10; // malformed dictionary rows reported one by one
 
 	private Set<String> setExclusions = new ConcurrentSkipListSet<String>(); // set of words to be excluded
 	private Dictionary myDictionary = new Dictionary(); // a dictionary object - stores words and their definitions
 	private WordPages myWordPages = new WordPages(); // a wordPages object - stored words and their page occurrences
+	private PageHashes pageHashes; // hashes of the content of each page of the input file
+	private CorpusIndex corpus; // the combined index, when the input is a corpus of several documents
+	private WordPagesAccumulator[] spilled; // the words and pages of the input (or of each document), when on disk
+	private List<Path> spilledDocuments; // the documents of spilled, when the input is a corpus
+	private Path corpusRoot; // the root of the corpus, which it's documents are named from
+	private Map<String, PostingList> postings; // every occurrence of each word, when counts or positions are wanted
+	private final ThreadLocal<Tokenizer> tokenizer = ThreadLocal.withInitial(Tokenizer::new); // one per worker thread
+	private final Metrics metrics = new Metrics(); // counters and timings of each stage of the run
 
 	/**
 	 * Constructor for the parser object
@@ -81,13 +106,120 @@ public class Parser {
 		outputFile = newOutput;
 	}
 
+	public void setIncremental(boolean newIncremental) { // Big(O) = O(1) - No loops
+		incremental = newIncremental;
+	}
+
+	public void setCounts(boolean newCounts) { // Big(O) = O(1) - No loops
+		counts = newCounts;
+	}
+
+	public void setPositions(boolean newPositions) { // Big(O) = O(1) - No loops
+		positions = newPositions;
+	}
+
+	/**
+	 * Limits the heap the words and pages found in the input may take up. Past
+	 * the limit they are written to disk in sorted runs, which are merged as the
+	 * index is written (see MemoryBudget). The occurrences kept for counts and
+	 * positions are not limited.
+	 * 
+	 * @param newMemoryBudget the limit in bytes, or 0 for no limit
+	 */
+	public void setMemoryBudget(long newMemoryBudget) { // Big(O) = O(1) - No loops
+		memoryBudget = newMemoryBudget;
+	}
+
+	/**
+	 * Matches words of the input which are not in the dictionary to the closest
+	 * dictionary word within a number of edits (see FuzzyMatcher), so that
+	 * spelling variants are indexed under the dictionary's spelling. Words in
+	 * the exclusions list are not matched. An incremental update is not made
+	 * while on; the whole input is read.
+	 * 
+	 * @param newFuzzyDistance the most edits allowed, 1 or 2, or 0 for exact
+	 *                         matches only
+	 */
+	public void setFuzzy(int newFuzzyDistance) { // Big(O) = O(1) - No loops
+		if (newFuzzyDistance < 0 || newFuzzyDistance > FuzzyMatcher.MAX_DISTANCE) {
+			throw new IllegalArgumentException("Edit distance must be from 0 to " + FuzzyMatcher.MAX_DISTANCE);
+		}
+		fuzzyDistance = newFuzzyDistance;
+		fuzzy = null; // fetched for the new distance by loadFuzzyIndex()
+	}
+
+	/**
+	 * Gives the parser exclusions and a frozen dictionary already loaded (by an
+	 * earlier Parser, see ResourceCache), so run() goes straight to the input.
+	 * Both are only read, so may be shared by several parsers.
+	 * 
+	 * @param newDictionary the frozen dictionary
+	 * @param newExclusions the words to be excluded
+	 */
+	public void setResources(Dictionary newDictionary, Set<String> newExclusions) { // Big(O) = O(1) - No loops
+		myDictionary = newDictionary;
+		setExclusions = newExclusions;
+		preloaded = true;
+	}
+
+	/**
+	 * Runs the chunks of the input (and of each document of a corpus) on an
+	 * executor shared with other parsers, such as one given by a JobScheduler,
+	 * rather than on a pool of the parser's own for each stage.
+	 * 
+	 * @param newExecutor the executor, or null for a pool of the parser's own
+	 */
+	public void setExecutor(Executor newExecutor) { // Big(O) = O(1) - No loops
+		executor = newExecutor;
+	}
+
+	/**
+	 * @return an estimate of the size of the input, in bytes: the size of the
+	 *         input file, or of every document of a corpus
+	 * @throws IOException if the input could not be found
+	 */
+	public long estimateInputSize() throws IOException { // Big(O) = O(d) - defined by the number of documents
+
+		if (!Corpus.isCorpus(inputFile)) {
+			return Files.size(Paths.get(inputFile));
+		}
+		long size = 0;
+		for (Path doc : Corpus.documents(inputFile, outputFile)) {
+			size += Files.size(doc);
+		}
+		return size;
+	}
+
+	public Dictionary getDictionary() { // Big(O) = O(1) - No loops
+		return myDictionary;
+	}
+
+	public Set<String> getExclusions() { // Big(O) = O(1) - No loops
+		return setExclusions;
+	}
+
+	public Map<String, PostingList> getPostings() { // Big(O) = O(1) - No loops
+		return postings;
+	}
+
+	public Metrics getMetrics() { // Big(O) = O(1) - No loops
+		return metrics;
+	}
+
 	/**
 	 * The run method runs each subroutine in order to generate the index 1) load
 	 * the list of common words / exclusions from the commonwords file. 2) load the
-	 * dictionary from the dictionary file 3) load the input/source text 4) output
+	 * dictionary from the dictionary file 3) load the input/source text (in
+	 * incremental mode, only the pages changed since the last run), or each
+	 * document of the corpus when the input is a directory or glob 4) output
 	 * the results/index to the chosen destinaton (file/screen) If any error is
 	 * found during this process, the error will be displayed and the run,
-	 * terminated.
+	 * terminated. For a single file (other than an incremental update, or when
+	 * occurrence counts or positions are wanted, or a memory budget is set), steps
+	 * 1-3 run at the same time, see loadOverlapped(). Each step is timed, and
+	 * when writing to a file a summary of the run is saved beside it as JSON (the
+	 * output file's name with ".metrics.json" added). Steps 1 and 2 are skipped
+	 * when the exclusions and dictionary were given by setResources().
 	 * 
 	 * @param screen defines if the user wishes to display the results to the
 	 *               screen. True: print to console out. False: write to file.
@@ -96,16 +228,42 @@ public class Parser {
 
 		// runs through the steps required to generate the index in order
 		// if an error is found, the run breaks early.
-		loadCommonWords();
-		if (!endrun)
-			loadDictionary();
-		if (!endrun)
-			loadInputFile();
+		if (!preloaded && !Corpus.isCorpus(inputFile) && (!incremental || screen) && !wantsPostings()
+				&& memoryBudget == 0 && fuzzyDistance == 0) {
+			// a single file: the exclusions, dictionary and input are loaded together
+			metrics.time("loadOverlapped", this::loadOverlapped);
+		} else {
+			// a corpus, incremental update, positional index, memory budget or fuzzy
+			// matching needs the dictionary before it starts (which it has already, if
+			// preloaded)
+			if (!preloaded) {
+				metrics.time("loadCommonWords", this::loadCommonWords);
+				if (!endrun)
+					metrics.time("loadDictionary", this::loadDictionary);
+			}
+			if (!endrun && fuzzyDistance > 0)
+				metrics.time("loadFuzzyIndex", this::loadFuzzyIndex);
+			if (!endrun) {
+				if (Corpus.isCorpus(inputFile)) { // a directory or glob of several documents
+					metrics.time("loadCorpus", this::loadCorpus);
+				} else {
+					// update the index saved last time if there is one. Occurrences are not
+					// saved in the index, so a positional index always reads the whole file,
+					// as does a run under a memory budget (the saved index is read into memory)
+					// or with fuzzy matching (the saved index may have been made without it)
+					boolean updated = incremental && !wantsPostings() && memoryBudget == 0 && fuzzyDistance == 0
+							&& metrics.time("loadChangedPages", this::loadChangedPages);
+					if (!updated)
+						metrics.time("loadInputFile", this::loadInputFile);
+				}
+			}
+		}
 		if (!endrun) {
 			if (!screen) { // if the user wants to output to a file...
-				writeToFile();
+				metrics.time("writeToFile", this::writeToFile);
+				writeMetrics();
 			} else if (screen) { // if the user wants to output to the System.out...
-				writeToScreen();
+				metrics.time("writeToScreen", this::writeToScreen);
 			} else {
 				System.out.println("<Invalid output destination for results>");
 			}
@@ -113,58 +271,268 @@ public class Parser {
 	}
 
 	/**
-	 * Method to load the common words file. The method reads each line of the file
-	 * and passes the line to a virtual thread for processing.
+	 * @return true if the index is to list the occurrences of each word (their
+	 *         counts or positions), not only their pages. A corpus is always
+	 *         indexed by page only.
+	 */
+	private boolean wantsPostings() { // Big(O) = O(1) - No loops
+		return (counts || positions) && !Corpus.isCorpus(inputFile);
+	}
+
+	/**
+	 * Method to save the summary of the run beside the output file. Failing to
+	 * save it is not fatal, as the index itself has been written.
+	 */
+	private void writeMetrics() { // Big(O) = O(s) - defined by the number of stages
+
+		Path file = Paths.get(outputFile + ".metrics.json");
+		try {
+			metrics.writeJson(file);
+			System.out.println("Run metrics saved to " + file);
+		} catch (IOException e) {
+			System.out.println("Warning: run metrics not saved - " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Checks if an error has ended the run. The stages of a run (loadCommonWords,
+	 * loadDictionary, loadInputFile and writeToFile) can also be called one at a
+	 * time, in that order, for example to time each of them; this should then be
+	 * checked after each stage. The counters of each stage are still added to
+	 * getMetrics(), but the stages are only timed by run().
+	 * 
+	 * @return true if an error was found in a stage run so far
+	 */
+	public boolean hasFailed() { // Big(O) = O(1) - No loops
+		return endrun;
+	}
+
+	/**
+	 * Method to load the common words file. The file is read through a
+	 * LinePipeline, which passes batches of lines to worker threads for processing
+	 * by addToCommon, and adds the results to the exclusions list.
 	 */
-	private void loadCommonWords() { // Big(O) = O(n) - defined by number of lines in the file
+	public void loadCommonWords() { // Big(O) = O(n) - defined by number of lines in the file
 
 		System.out.println("Opening exclusions...");
 
-		// Load the exclusions file and pass to the exclusions list through a virtual
-		// thread
-		try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
-			Files.lines(Paths.get(commonWords)).forEach(text -> pool.execute(() -> addToCommon(text))); // pass each
-																										// line of the
-																										// file to a
-																										// threaded
-																										// addToCommon
+		// Load the exclusions file through the pipeline. The reader stalls whenever
+		// the workers fall behind, so the file is never held in memory all at once
+		try {
+			LinePipeline pipeline = new LinePipeline(Paths.get(commonWords));
+			int lines = pipeline.run(this::addToCommon, words -> setExclusions.addAll(words));
+			metrics.add(Metrics.LINES, lines);
+			metrics.max(Metrics.QUEUE_DEPTH, pipeline.maxQueueDepth());
 			System.out.println("Exclusions processed! - " + setExclusions.size() + " words ignored.");
 		} catch (Exception e) {
-			System.out.println("Error: " + e.getLocalizedMessage()); // if there was an error in the file write process,
-																		// output the error to the user
+			if (!Thread.currentThread().isInterrupted()) // interrupted if loadOverlapped was cancelled by another error
+				System.out.println("Error: " + e.getLocalizedMessage()); // if there was an error in the file write
+																			// process, output the error to the user
 			endrun = true;
 		}
 
 	}
 
 	/**
-	 * Method to add words to be excluded from the index.
+	 * Method to prepare a batch of words to be excluded from the index.
 	 * 
-	 * @param text the word to be added to the exclusion list.
+	 * @param text      the words to be added to the exclusion list.
+	 * @param count     the number of words in the batch
+	 * @param firstLine the line number of the first word (unused)
+	 * @return the words, stripped and converted to lowercase
 	 */
-	private void addToCommon(String text) { // Big(O) = O(1) - No loops
+	private List<String> addToCommon(String[] text, int count, int firstLine) { // Big(O) = O(n) - size of the batch
 
-		// add the stripped and converted to lowercase word to the exclusions object
-		setExclusions.add(StripAndLower(text));
+		List<String> words = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			words.add(Tokenizer.stripAndLower(text[i]));
+		}
+		return words;
 	}
 
 	/**
-	 * Method to load the dictionary file. The method reads each line of the file
-	 * and passes the line to a virtual thread for processing.
+	 * Method to load the dictionary. If an up to date snapshot of the dictionary
+	 * exists it is loaded from that. Otherwise the dictionary file is read a row
+	 * at a time by a CsvReader, each row being passed to addToDictionary in file
+	 * order (so where a word is defined twice, the first definition is always the
+	 * one kept). A snapshot is then saved for the next run.
 	 */
-	private void loadDictionary() {// Big(O) = O(n) - defined by number of lines in the file
+	public void loadDictionary() {// Big(O) = O(n) - defined by number of lines in the file
+
+		readDictionary();
+		if (!endrun)
+			finishDictionary();
+	}
+
+	/**
+	 * Method to read the dictionary, from it's snapshot if there is an up to date
+	 * one, or otherwise from the dictionary file. Words read from the file are
+	 * left out if they are in the exclusions list, though it need not have
+	 * finished loading yet (see finishDictionary()).
+	 */
+	private void readDictionary() { // Big(O) = O(n) - defined by number of lines in the file
 
-		// Load the dictionary file and pass to the exclusions list through a virtual
-		// thread
 		System.out.println("Opening dictionary...");
-		try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
-			Files.lines(Paths.get(dictionary)).forEach(text -> pool.execute(() -> addToDictionary(text))); // pass each
-																											// line of
-																											// the file
-																											// to a
-																											// threaded
-																											// addToDictionary
-			System.out.println("Dictionary processed! - " + myDictionary.size() + " words defined.");
+		Path snap = DictionarySnapshot.pathFor(dictionary, commonWords);
+		Dictionary saved = DictionarySnapshot.load(snap, Paths.get(dictionary), Paths.get(commonWords));
+		if (saved != null) {
+			myDictionary = saved;
+			metrics.add(Metrics.DICTIONARY_WORDS, myDictionary.size());
+			System.out.println("Dictionary snapshot loaded! - " + myDictionary.size() + " words defined.");
+			return;
+		}
+
+		// Read the dictionary file straight from it's bytes. Malformed rows are
+		// reported and skipped, the first few of them one by one
+		int[] malformed = { 0 };
+		CsvReader.ProblemHandler report = (line, reason) -> {
+			if (malformed[0]++ < MALFORMED_ROWS_SHOWN) {
+				System.out.println("Warning: dictionary line " + line + " skipped - " + reason);
+			}
+		};
+		try (CsvReader csv = new CsvReader(Paths.get(dictionary), report)) {
+			while (csv.next()) {
+				addToDictionary(csv, report);
+			}
+			metrics.add(Metrics.LINES, csv.lines());
+			metrics.add(Metrics.MALFORMED_ROWS, malformed[0]);
+			malformedRows = malformed[0];
+			if (malformed[0] > MALFORMED_ROWS_SHOWN) {
+				System.out.println("Warning: " + (malformed[0] - MALFORMED_ROWS_SHOWN)
+						+ " more malformed dictionary lines skipped");
+			}
+		} catch (Exception e) {
+			if (!Thread.currentThread().isInterrupted()) // interrupted if loadOverlapped was cancelled by another error
+				System.out.println("Error: " + e.getLocalizedMessage()); // if there was an error in the file write
+																			// process, output the error to the user
+			endrun = true;
+		}
+	}
+
+	/**
+	 * Method to finish loading a dictionary read from the dictionary file, once
+	 * the exclusions list has been loaded. Any excluded words which were read
+	 * before the exclusions list had been loaded are removed, the dictionary is
+	 * frozen, and a snapshot is saved for the next run, unless rows of the file
+	 * were skipped (the snapshot would hide them from the next run, which should
+	 * warn about them again).
+	 */
+	private void finishDictionary() { // Big(O) = O(n) - defined by number of words
+
+		if (myDictionary.isFrozen()) {
+			return; // loaded from a snapshot
+		}
+		myDictionary.removeAll(setExclusions);
+		Path snap = DictionarySnapshot.pathFor(dictionary, commonWords);
+
+		// the dictionary is only read from here on, so freeze it for fast lookups
+		myDictionary.freeze();
+		metrics.add(Metrics.DICTIONARY_WORDS, myDictionary.size());
+		System.out.println("Dictionary processed! - " + myDictionary.size() + " words defined.");
+
+		// save a snapshot so the next run can skip parsing. Failing to save is not
+		// fatal, the next run just parses the file again.
+		if (malformedRows > 0) {
+			System.out.println("Warning: dictionary snapshot not saved - " + malformedRows
+					+ " malformed lines to be fixed");
+			return;
+		}
+		try {
+			DictionarySnapshot.write(snap, myDictionary, Paths.get(dictionary), Paths.get(commonWords));
+		} catch (IOException e) {
+			System.out.println("Warning: dictionary snapshot not saved - " + e.getLocalizedMessage());
+		}
+
+	}
+
+	/**
+	 * Method to add a row of the dictionary file, a word and it's definition, to
+	 * the dictionary object, unless the word is in the exclusions list. The
+	 * definition is the rest of the row after the word, so a definition holding
+	 * commas is kept whole whether or not it is quoted. Rows with no definition
+	 * are reported as malformed, other than empty lines.
+	 * 
+	 * @param row    the CsvReader, on the row to be added
+	 * @param report the action performed on a malformed row
+	 */
+	private void addToDictionary(CsvReader row, CsvReader.ProblemHandler report) { // Big(O) = O(log n) - Map object
+
+		if (row.fieldCount() < 2 || row.join(1).isEmpty()) {
+			if (row.fieldCount() > 1 || !row.field(0).isBlank()) {
+				report.malformed(row.line(), "no definition");
+			}
+			return;
+		}
+
+		// strip and turn to lower case, keeping single spaces between the words of a
+		// phrase
+		String word = Tokenizer.stripAndLowerWords(row.field(0));
+		if (!setExclusions.contains(word)) { // if the word was not in the exclusions list...
+			myDictionary.add(word, row.join(1)); // add the word and it's definition
+		}
+	}
+
+	/**
+	 * Method to load the source/input file for processing. The file is split into
+	 * chunks on line boundaries which are processed in parallel by a
+	 * ChunkedIngester, each line being passed to addToWordPage along with it's
+	 * absolute line number. The content of each page is hashed along the way, so
+	 * that a later incremental run can tell which pages have changed.
+	 * 
+	 * When occurrence counts or positions are wanted, each line is instead passed
+	 * to addToPostings, which records every occurrence of each word. The pages of
+	 * each word are then worked out from it's occurrences.
+	 */
+	public void loadInputFile() { // Big(O) = O(n) - defined by number of lines in the file
+
+		System.out.println("Opening Input File...");
+		try {
+			ChunkedIngester ingester = ingesterFor(Paths.get(inputFile));
+			MemoryBudget budget = newBudget();
+			WordPagesAccumulator found = new WordPagesAccumulator(budget);
+			PostingsAccumulator occurrences = wantsPostings() ? new PostingsAccumulator() : null;
+			PhraseScanner phrases = occurrences != null ? phrasesFor(occurrences) : phrasesFor(found);
+			int lines = ingest(ingester, new ChunkedIngester.LineHandler() {
+				@Override
+				public void begin(int lines) {
+					pageHashes = new PageHashes(lines);
+				}
+
+				@Override
+				public void line(ByteBuffer chunk, int from, int to, int lineNum) {
+					pageHashes.addLine(chunk, from, to, lineNum);
+					if (occurrences != null) {
+						addToPostings(occurrences, phrases, chunk, from, to, lineNum);
+					} else {
+						addToWordPage(found, phrases, chunk, from, to, lineNum);
+					}
+				}
+			});
+			finishPhrases(phrases);
+			String detail = "";
+			if (occurrences != null) {
+				postings = occurrences.toPostings();
+				long count = 0;
+				long bytes = 0;
+				for (Map.Entry<String, PostingList> e : postings.entrySet()) {
+					myWordPages.addAll(e.getKey(), e.getValue().pages());
+					count += e.getValue().size();
+					bytes += e.getValue().encodedSize();
+				}
+				metrics.add(Metrics.OCCURRENCES, count);
+				metrics.add(Metrics.POSTING_BYTES, bytes);
+				detail = ", " + count + " occurrences in " + bytes + " bytes";
+			} else if (found.hasSpilled()) { // merged as the index is written
+				spilled = new WordPagesAccumulator[] { found };
+				detail = spillDetail(budget);
+			} else {
+				found.mergeInto(myWordPages);
+			}
+			metrics.add(Metrics.LINES, lines);
+			metrics.add(Metrics.ENTRIES, myWordPages.size());
+			metrics.max(Metrics.QUEUE_DEPTH, ingester.maxQueueDepth());
+			String entries = spilled == null ? ", " + myWordPages.size() + " entries accepted" : "";
+			System.out.println("Input File processed! - " + lines + " lines read" + entries + detail + ".");
 		} catch (Exception e) {
 			System.out.println("Error: " + e.getLocalizedMessage()); // if there was an error in the file write process,
 																		// output the error to the user
@@ -174,103 +542,558 @@ public class Parser {
 	}
 
 	/**
-	 * Method to add words and their associated definition to the dictionary object.
-	 * The method separated the word from it's definition and then adds them both to
-	 * the dictionary object.
+	 * Method to update the index saved by an earlier run rather than processing
+	 * the whole input file. The input file is first read to hash each page, and
+	 * the hashes compared with those saved by the earlier run. The saved index is
+	 * then loaded, the changed pages removed from it, and only the lines on those
+	 * pages passed to addToWordPage.
 	 * 
-	 * @param text a String object representing both the word and it's definition
-	 *             delimited by ','.
+	 * @return true if the index was updated (or an error ended the run). False if
+	 *         there is no usable saved index, in which case the whole file must be
+	 *         processed.
 	 */
-	private void addToDictionary(String text) { // Big(O) = O(1) - No loops
-		// new string array containing both the word and it's definition (delimited by
-		// ',')
-		String[] wordAndDef = text.split(",");
+	private boolean loadChangedPages() { // Big(O) = O(n) - defined by number of lines in the file
 
-		wordAndDef[0] = StripAndLower(wordAndDef[0]); // strip and turn to lower case
-		if (!setExclusions.contains(wordAndDef[0])) { // if the word was not in the exclusions list...
-			myDictionary.add(wordAndDef[0], wordAndDef[1]); // add the word and it's definition to the dictionary
+		Path input = Paths.get(inputFile);
+		Path index = IndexFile.pathFor(outputFile);
+		PageHashes saved = PageHashes.load(PageHashes.pathFor(outputFile), input, index, myDictionary.fingerprint(),
+				fuzzyDistance);
+		if (saved == null) {
+			System.out.println("No saved index for this input and dictionary - indexing the whole file.");
+			return false;
 		}
+
+		System.out.println("Opening Input File (incremental)...");
+		try {
+			// hash every page, and compare with the hashes saved last time
+			ChunkedIngester ingester = ingesterFor(input);
+			int lines = ingest(ingester, new ChunkedIngester.LineHandler() {
+				@Override
+				public void begin(int lines) {
+					pageHashes = new PageHashes(lines);
+				}
+
+				@Override
+				public void line(ByteBuffer chunk, int from, int to, int lineNum) {
+					pageHashes.addLine(chunk, from, to, lineNum);
+				}
+			});
+			BitSet changed = pageHashes.changedSince(saved);
+
+			// start from the saved index, less the pages that have changed
+			try (IndexFile.Reader reader = new IndexFile.Reader(index)) {
+				reader.forEach(e -> myWordPages.put(e.getWord(), e.getWordPages()));
+			}
+			myWordPages.removePages(changed);
+
+			// read the words on the changed pages again
+			if (!changed.isEmpty()) {
+				WordPagesAccumulator found = new WordPagesAccumulator();
+				PhraseScanner phrases = phrasesFor(found);
+				ingest(ingester, (chunk, from, to, lineNum) -> {
+					if (changed.get(pageOf(lineNum))) {
+						addToWordPage(found, phrases, chunk, from, to, lineNum);
+					}
+				});
+				finishPhrases(phrases);
+				found.mergeInto(myWordPages);
+			}
+			metrics.add(Metrics.LINES, lines);
+			metrics.add(Metrics.ENTRIES, myWordPages.size());
+			metrics.max(Metrics.QUEUE_DEPTH, ingester.maxQueueDepth());
+			System.out.println("Input File processed! - " + lines + " lines read, " + changed.cardinality() + " of "
+					+ pageHashes.pages() + " pages changed, " + myWordPages.size() + " entries accepted.");
+		} catch (Exception e) {
+			System.out.println("Error: " + e.getLocalizedMessage() + " - indexing the whole file.");
+			myWordPages = new WordPages();
+			return false;
+		}
+		return true;
 	}
 
 	/**
-	 * Method to load the source/input file for processing. The method reads each
-	 * line of the file and passes the line to a virtual thread for processing.
+	 * Method to load the exclusions, the dictionary and the input file at the
+	 * same time, so the time taken is close to that of the slowest of the three
+	 * rather than the sum of them. Each is forked as a subtask of a structured
+	 * task scope, which is shut down (cancelling the others) if any of them
+	 * fails.
+	 * 
+	 * As the dictionary isn't ready while the input file is read, each distinct
+	 * token of the input is gathered, with it's pages, into a CandidateTable by
+	 * readCandidates. Once all three have loaded, the dictionary is finished and
+	 * the candidates are filtered against it by filterCandidates. Phrases in the
+	 * dictionary are found by findPhrases.
 	 */
-	private void loadInputFile() { // Big(O) = O(n) - defined by number of lines in the file
+	public void loadOverlapped() { // Big(O) = O(n) - defined by number of lines in the files
 
-		currentLine = 0;
+		ConcurrentLinkedQueue<CandidateTable> tables = new ConcurrentLinkedQueue<CandidateTable>();
+		int lines;
+		try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+			// each loader is timed as it's own stage, so it's lines and rates aren't mixed with the others
+			scope.fork(() -> metrics.timeSubtask("loadCommonWords", () -> checked(this::loadCommonWords)));
+			scope.fork(() -> metrics.timeSubtask("loadDictionary", () -> checked(this::readDictionary)));
+			StructuredTaskScope.Subtask<Integer> input = scope
+					.fork(() -> metrics.timeSubtask("loadInputFile", () -> readCandidates(tables)));
+			scope.join().throwIfFailed();
+			lines = input.get();
+		} catch (ExecutionException e) {
+			if (!(e.getCause() instanceof LoaderFailed)) { // loaders output their own errors
+				System.out.println("Error: " + e.getCause().getLocalizedMessage());
+			}
+			endrun = true;
+			return;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.out.println("Error: interrupted while loading");
+			endrun = true;
+			return;
+		}
+
+		finishDictionary();
+		try {
+			findPhrases();
+		} catch (IOException e) {
+			System.out.println("Error: " + e.getLocalizedMessage());
+			endrun = true;
+			return;
+		}
+		filterCandidates(tables, lines);
+	}
+
+	/**
+	 * Method to find the phrases of the dictionary in the input file, once it has
+	 * been read by readCandidates, and add them and their pages to the myWordPages
+	 * object. The phrases aren't known until the dictionary has loaded, so this
+	 * takes a second pass over the file, made only if the dictionary has phrases.
+	 * 
+	 * @throws IOException if the input file could not be read
+	 */
+	private void findPhrases() throws IOException { // Big(O) = O(n) - defined by number of lines in the file
+
+		WordPagesAccumulator found = new WordPagesAccumulator();
+		PhraseScanner phrases = phrasesFor(found);
+		if (phrases == null) {
+			return;
+		}
+		ingest(ingesterFor(Paths.get(inputFile)), (chunk, from, to, lineNum) -> {
+			Tokenizer tokens = tokenizer.get();
+			tokens.reset(chunk, from, to);
+			PhraseScanner.Run run = phrases.line(lineNum);
+			int hits = 0;
+			while (tokens.next()) {
+				hits += run.word(tokens.buffer(), tokens.offset(), tokens.length(), tokens.column());
+			}
+			metrics.add(Metrics.DICTIONARY_HITS, hits);
+		});
+		finishPhrases(phrases);
+		found.mergeInto(myWordPages);
+	}
+
+	/**
+	 * Creates a ChunkedIngester for a file. On a shared executor the chunks are
+	 * smaller than usual, so that the tasks of other jobs get a turn between
+	 * them.
+	 */
+	private ChunkedIngester ingesterFor(Path file) { // Big(O) = O(1) - No loops
+		return executor != null ? new ChunkedIngester(file, SHARED_CHUNK_SIZE) : new ChunkedIngester(file);
+	}
+
+	/**
+	 * Reads a file with a ChunkedIngester, on the shared executor if one was
+	 * given, or otherwise on a pool of it's own.
+	 * 
+	 * @return the number of lines in the file
+	 */
+	private int ingest(ChunkedIngester ingester, ChunkedIngester.LineHandler handler)
+			throws IOException { // Big(O) = O(n) - defined by number of lines in the file
+		return executor != null ? ingester.run(handler, executor) : ingester.run(handler);
+	}
+
+	/**
+	 * Runs a loader, throwing a LoaderFailed exception if it ended the run, so
+	 * that a structured task scope running it shuts down.
+	 */
+	private Void checked(Runnable loader) { // Big(O) = O(1) - No loops, plus the loader
+
+		loader.run();
+		if (endrun) {
+			throw new LoaderFailed();
+		}
+		return null;
+	}
+
+	/**
+	 * Thrown by checked() when a loader has failed, having already output it's
+	 * error.
+	 */
+	private static class LoaderFailed extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Method to read the input file, without a dictionary. Each line is split into
+	 * tokens by this thread's Tokenizer, and each token added, with the page it
+	 * is on, to this thread's CandidateTable. The content of each page is hashed
+	 * along the way, as in loadInputFile.
+	 * 
+	 * @param tables the queue each thread's CandidateTable is added to
+	 * @return the number of lines in the input file
+	 * @throws IOException if the input file could not be read
+	 */
+	private int readCandidates(ConcurrentLinkedQueue<CandidateTable> tables) throws IOException { // Big(O) = O(n)
 
 		System.out.println("Opening Input File...");
-		try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
-			Files.lines(Paths.get(inputFile)).forEach(text -> pool.execute(() -> addToWordPage(text, ++currentLine))); // pass
-																														// each
-																														// line
-																														// of
-																														// the
-																														// source
-																														// file
-																														// to
-																														// a
-																														// threaded
-																														// addToWordPage
-																														// method,
-																														// also
-																														// pass
-																														// the
-																														// current
-																														// line
-																														// number
-			System.out.println("Input File processed! - " + myWordPages.size() + " entries accepted.");
+		ThreadLocal<CandidateTable> local = ThreadLocal.withInitial(() -> {
+			CandidateTable table = new CandidateTable();
+			tables.add(table);
+			return table;
+		});
+
+		ChunkedIngester ingester = ingesterFor(Paths.get(inputFile));
+		int lines = ingest(ingester, new ChunkedIngester.LineHandler() {
+			@Override
+			public void begin(int lines) {
+				pageHashes = new PageHashes(lines);
+			}
+
+			@Override
+			public void line(ByteBuffer chunk, int from, int to, int lineNum) {
+				pageHashes.addLine(chunk, from, to, lineNum);
+
+				Tokenizer tokens = tokenizer.get();
+				CandidateTable table = local.get();
+				tokens.reset(chunk, from, to);
+				int page = pageOf(lineNum);
+				int count = 0;
+				while (tokens.next()) {
+					count++;
+					table.add(tokens.buffer(), tokens.offset(), tokens.length(), page);
+				}
+				metrics.add(Metrics.TOKENS, count);
+			}
+		});
+		metrics.add(Metrics.LINES, lines);
+		metrics.max(Metrics.QUEUE_DEPTH, ingester.maxQueueDepth());
+		return lines;
+	}
+
+	/**
+	 * Method to look up the candidates read by readCandidates in the dictionary,
+	 * adding those which are defined, and their pages, to the myWordPages object.
+	 * The tables are looked up in parallel, each candidate once, and the results
+	 * merged by a WordPagesAccumulator.
+	 * 
+	 * @param tables the CandidateTable of each thread which read the input
+	 * @param lines  the number of lines in the input file
+	 */
+	private void filterCandidates(Collection<CandidateTable> tables, int lines) { // Big(O) = O(n) - defined by
+																					// the number of candidates
+		WordPagesAccumulator found = new WordPagesAccumulator();
+		tables.parallelStream().forEach(table -> {
+			long[] hits = { 0 };
+			table.forEach((bytes, offset, length, count, pages) -> {
+				int id = myDictionary.lookup(bytes, offset, length);
+				if (id >= 0) {
+					hits[0] += count;
+					found.addAll(myDictionary.wordAt(id), pages);
+				}
+			});
+			metrics.add(Metrics.DICTIONARY_HITS, hits[0]);
+		});
+		found.mergeInto(myWordPages);
+
+		metrics.add(Metrics.ENTRIES, myWordPages.size());
+		System.out.println("Input File processed! - " + lines + " lines read, " + myWordPages.size()
+				+ " entries accepted.");
+	}
+
+	/**
+	 * Method to load a corpus of documents (every file in a directory, or matching
+	 * a glob) for processing. Each document is given it's own virtual thread and
+	 * it's own WordPages, and is read by a ChunkedIngester. The chunks of every
+	 * document share one pool of platform threads, one per core (or the executor
+	 * given by setExecutor()), so the work spreads over all cores however many
+	 * documents there are. The results are
+	 * then merged into a CorpusIndex. Under a memory budget, shared by every
+	 * document, any document may be written to disk in runs; the documents are
+	 * then merged as the index is written instead.
+	 */
+	private void loadCorpus() { // Big(O) = O(n) - defined by number of lines in all documents
+
+		System.out.println("Opening Corpus...");
+		try {
+			List<Path> docs = Corpus.documents(inputFile, outputFile);
+			corpusRoot = Corpus.root(inputFile);
+			WordPages[] perDoc = new WordPages[docs.size()];
+			WordPagesAccumulator[] found = new WordPagesAccumulator[docs.size()];
+			int[] lines = new int[docs.size()];
+			MemoryBudget budget = newBudget();
+
+			try (var files = Executors.newVirtualThreadPerTaskExecutor();
+					var own = executor != null ? null
+							: Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+				Executor cores = executor != null ? executor : own; // the shared executor, if one was given
+				List<Future<?>> tasks = new ArrayList<Future<?>>();
+				for (int d = 0; d < docs.size(); d++) {
+					final int doc = d;
+					found[doc] = new WordPagesAccumulator(budget);
+					tasks.add(files.submit(() -> {
+						ChunkedIngester ingester = ingesterFor(docs.get(doc));
+						PhraseScanner phrases = phrasesFor(found[doc]);
+						lines[doc] = ingester.run((chunk, from, to,
+								lineNum) -> addToWordPage(found[doc], phrases, chunk, from, to, lineNum), cores);
+						finishPhrases(phrases);
+						if (budget == null) {
+							perDoc[doc] = found[doc].toWordPages();
+						}
+						metrics.max(Metrics.QUEUE_DEPTH, ingester.maxQueueDepth());
+						return null;
+					}));
+				}
+				for (Future<?> task : tasks) {
+					task.get(); // wait for each document, passing on any error
+				}
+			}
+
+			if (budget != null && budget.runs() > 0) { // merged as the index is written
+				spilled = found;
+				spilledDocuments = docs;
+				metrics.add(Metrics.LINES, IntStream.of(lines).sum());
+				System.out.println("Corpus processed! - " + docs.size() + " documents, " + IntStream.of(lines).sum()
+						+ " lines read" + spillDetail(budget) + ".");
+				return;
+			}
+			if (budget != null) {
+				for (int doc = 0; doc < docs.size(); doc++) {
+					perDoc[doc] = found[doc].toWordPages();
+				}
+			}
+			corpus = new CorpusIndex(corpusRoot, docs, perDoc);
+			metrics.add(Metrics.LINES, IntStream.of(lines).sum());
+			metrics.add(Metrics.ENTRIES, corpus.size());
+			System.out.println("Corpus processed! - " + docs.size() + " documents, " + IntStream.of(lines).sum()
+					+ " lines read, " + corpus.size() + " entries accepted.");
+		} catch (ExecutionException e) {
+			System.out.println("Error: " + e.getCause().getLocalizedMessage()); // if a document could not be read,
+																				// output the error to the user
+			endrun = true;
 		} catch (Exception e) {
 			System.out.println("Error: " + e.getLocalizedMessage()); // if there was an error in the file write process,
 																		// output the error to the user
 			endrun = true;
 		}
+	}
 
+	/**
+	 * @return a new MemoryBudget for the words and pages of the input, or null if
+	 *         there is no limit
+	 */
+	private MemoryBudget newBudget() { // Big(O) = O(1) - No loops
+		return memoryBudget > 0 ? new MemoryBudget(memoryBudget) : null;
 	}
 
 	/**
-	 * Method to add words contained in the source file and the page they appeared
-	 * on to the myWordPages object. The counts how many lines are being passed and
-	 * increments the page for every 40 lines.
+	 * Records the runs written to disk under a budget.
 	 * 
-	 * @param text    the line of text to be parsed for words and processed
-	 * @param lineNum the current line number for the line being processed.
+	 * @return a description of the runs, for the summary of the load
 	 */
-	private void addToWordPage(String text, int lineNum) { // Big(O) = O(1) - No loops
+	private String spillDetail(MemoryBudget budget) { // Big(O) = O(1) - No loops
+		metrics.add(Metrics.SPILLED_RUNS, budget.runs());
+		metrics.add(Metrics.SPILLED_BYTES, budget.spilledBytes());
+		return ", over the memory budget - " + budget.runs() + " runs (" + budget.spilledBytes()
+				+ " bytes) written to disk";
+	}
 
-		// split the sentence into words
-		String[] words = text.split("\\s+");
+	/**
+	 * Method to add words contained in a line of a source file and the page they
+	 * appeared on to a WordPagesAccumulator, which gives each worker thread it's
+	 * own table so no locks are taken. The line is read straight from the bytes
+	 * of the file by this thread's Tokenizer, and the page is worked out from the
+	 * line number, every 40 lines being a page. Each word is also passed to the
+	 * PhraseScanner, if the dictionary has phrases, which adds any phrase the word
+	 * ends.
+	 * 
+	 * @param target  the accumulator the words are added to
+	 * @param phrases the PhraseScanner adding the phrases found to target, or null
+	 *                if the dictionary has no phrases
+	 * @param chunk   the chunk of the source file containing the line
+	 * @param from    the position of the first byte of the line in the chunk
+	 * @param to      the position just after the last byte of the line
+	 * @param lineNum the line number, in the source file, of the line being
+	 *                processed.
+	 */
+	private void addToWordPage(WordPagesAccumulator target, PhraseScanner phrases, ByteBuffer chunk, int from, int to,
+			int lineNum) { // Big(O) = O(n)
+		Tokenizer tokens = tokenizer.get();
+		tokens.reset(chunk, from, to);
+		PhraseScanner.Run run = phrases == null ? null : phrases.line(lineNum);
 
-		// we consider 40 lines as a page. For each multiple of 40, up the page number.
-		if (lineNum % 40 == 0) {
-			currentPage++;
+		// we consider 40 lines as a page.
+		int page = pageOf(lineNum);
+		int count = 0;
+		int hits = 0;
+		int fuzzyHits = 0;
+
+		while (tokens.next()) {
+			// look the word up straight from the tokenizer's buffer. If it is defined in
+			// the dictionary (or, with fuzzy matching, spelt nearly the same as a word
+			// which is), add the word and it's page to the myWordPages object.
+			count++;
+			int id = myDictionary.lookup(tokens.buffer(), tokens.offset(), tokens.length());
+			if (id < 0 && fuzzy != null) {
+				id = fuzzyLookup(fuzzy, tokens);
+				fuzzyHits += id >= 0 ? 1 : 0;
+			}
+			if (id >= 0) {
+				hits++;
+				target.add(myDictionary.wordAt(id), page);
+			}
+			if (run != null) {
+				hits += run.word(tokens.buffer(), tokens.offset(), tokens.length(), tokens.column());
+			}
+		}
+
+		// counted once per line, not per token, to keep the counters off the hot path
+		metrics.add(Metrics.TOKENS, count);
+		metrics.add(Metrics.DICTIONARY_HITS, hits);
+		if (fuzzyHits > 0) {
+			metrics.add(Metrics.FUZZY_HITS, fuzzyHits);
 		}
+	}
+
+	/**
+	 * Method to add every occurrence of a word of a line which is defined in the
+	 * dictionary, with it's line and column, to a PostingsAccumulator. Otherwise
+	 * as addToWordPage.
+	 * 
+	 * @param target  the accumulator the occurrences are added to
+	 * @param phrases the PhraseScanner adding the phrases found to target, or null
+	 *                if the dictionary has no phrases
+	 * @param chunk   the chunk of the source file containing the line
+	 * @param from    the position of the first byte of the line in the chunk
+	 * @param to      the position just after the last byte of the line
+	 * @param lineNum the line number, in the source file, of the line being
+	 *                processed.
+	 */
+	private void addToPostings(PostingsAccumulator target, PhraseScanner phrases, ByteBuffer chunk, int from, int to,
+			int lineNum) { // Big(O) = O(n)
+		Tokenizer tokens = tokenizer.get();
+		tokens.reset(chunk, from, to);
+		PhraseScanner.Run run = phrases == null ? null : phrases.line(lineNum);
 
-		for (String s : words) {
-			s = StripAndLower(s); // strip and convert the string to lowercase
-			if (!s.isEmpty() && myDictionary.isDefined(s)) { // if the word is not empty, and the string is defined in
-																// the dictionary, add the word and it's page to the
-																// myWordPages object.
-				myWordPages.add(s, String.valueOf(currentPage));
+		int count = 0;
+		int hits = 0;
+		int fuzzyHits = 0;
+		while (tokens.next()) {
+			count++;
+			int id = myDictionary.lookup(tokens.buffer(), tokens.offset(), tokens.length());
+			if (id < 0 && fuzzy != null) {
+				id = fuzzyLookup(fuzzy, tokens);
+				fuzzyHits += id >= 0 ? 1 : 0;
 			}
+			if (id >= 0) {
+				hits++;
+				target.add(myDictionary.wordAt(id), lineNum, tokens.column());
+			}
+			if (run != null) {
+				hits += run.word(tokens.buffer(), tokens.offset(), tokens.length(), tokens.column());
+			}
+		}
 
+		metrics.add(Metrics.TOKENS, count);
+		metrics.add(Metrics.DICTIONARY_HITS, hits);
+		if (fuzzyHits > 0) {
+			metrics.add(Metrics.FUZZY_HITS, fuzzyHits);
 		}
 	}
 
 	/**
-	 * Method to write the index to a file. The method gathers each word contained
-	 * in myWordPages and iterates through them, writing an entry on the file
-	 * displaying the word, it's definition, and the number of each page it appears
-	 * on.
+	 * Builds the deletion index used to match words not in the dictionary (see
+	 * setFuzzy()), unless the dictionary has one already, and keeps it for the
+	 * run. Called after the dictionary is loaded, so the index isn't built part
+	 * way through reading the input, nor fetched for every line.
 	 */
-	private void writeToFile() { // Big(O) = O(n) - defined by number of lines to be written to the file
+	public void loadFuzzyIndex() { // Big(O) = O(n * l^d) - defined by the words and their deletions
+		System.out.println("Building fuzzy matching index...");
+		fuzzy = fuzzyDistance == 0 ? null : myDictionary.fuzzy(fuzzyDistance);
+		System.out.println("Fuzzy matching index built! - words within " + fuzzyDistance
+				+ (fuzzyDistance == 1 ? " edit" : " edits") + " of the dictionary are matched.");
+	}
+
+	/**
+	 * Matches the tokenizer's current word, which is not in the dictionary, to
+	 * the closest word which is, unless it's too short or is an excluded word.
+	 * 
+	 * @return the id of the dictionary word, or -1 if there is none
+	 */
+	private int fuzzyLookup(FuzzyMatcher fuzzy, Tokenizer tokens) { // Big(O) = O(1) once the word has been seen
+		if (tokens.length() < FuzzyMatcher.MIN_LENGTH) {
+			return -1; // before a String is made for it
+		}
+		String word = tokens.token();
+		return setExclusions.contains(word) ? -1 : fuzzy.lookup(word);
+	}
+
+	/**
+	 * Creates a PhraseScanner which adds each phrase found, and the page it
+	 * starts on, to a WordPagesAccumulator.
+	 * 
+	 * @param target the accumulator the phrases are added to
+	 * @return the scanner, or null if the dictionary has no phrases
+	 */
+	private PhraseScanner phrasesFor(WordPagesAccumulator target) { // Big(O) = O(1) - No loops
+		PhraseMatcher matcher = myDictionary.phrases();
+		return matcher.isEmpty() ? null
+				: new PhraseScanner(matcher, (id, line, column) -> target.add(myDictionary.wordAt(id), pageOf(line)));
+	}
+
+	/**
+	 * Creates a PhraseScanner which adds each phrase found, with the line and
+	 * column it starts at, to a PostingsAccumulator.
+	 * 
+	 * @param target the accumulator the phrases are added to
+	 * @return the scanner, or null if the dictionary has no phrases
+	 */
+	private PhraseScanner phrasesFor(PostingsAccumulator target) { // Big(O) = O(1) - No loops
+		PhraseMatcher matcher = myDictionary.phrases();
+		return matcher.isEmpty() ? null
+				: new PhraseScanner(matcher, (id, line, column) -> target.add(myDictionary.wordAt(id), line, column));
+	}
+
+	/**
+	 * Finishes a read of a file by a PhraseScanner, adding the phrases which ran
+	 * across the chunks of the file.
+	 * 
+	 * @param phrases the scanner, or null if the dictionary has no phrases
+	 */
+	private void finishPhrases(PhraseScanner phrases) { // Big(O) = O(c) - defined by the number of chunks
+		if (phrases != null) {
+			metrics.add(Metrics.DICTIONARY_HITS, phrases.finish());
+		}
+	}
+
+	/**
+	 * Works out the page a line of the source file falls on. Lines are numbered
+	 * from 1, and the page number goes up on each multiple of 40 lines, so lines
+	 * 1-39 are on page 1, lines 40-79 on page 2, and so on.
+	 * 
+	 * @param lineNum the line number in the source file
+	 * @return the page the line is on
+	 */
+	public static int pageOf(int lineNum) { // Big(O) = O(1) - No loops
+		return lineNum / LINES_PER_PAGE + 1;
+	}
+
+	/**
+	 * Method to write the index to a file. The index is first saved as an
+	 * IndexFile alongside the output file (the output file's name with ".idx"
+	 * added), which can later be searched by word without re-running the parser.
+	 * The text index, displaying each word, it's definition, and the number of
+	 * each page it appears on, is then exported from that IndexFile.
+	 */
+	public void writeToFile() { // Big(O) = O(n) - defined by number of lines to be written to the file
 
-		ArrayList<String> ar = new ArrayList<String>();
 		int wordCount = 0;
-		StringBuilder sb = new StringBuilder();
-		String nl = new String("\n");
-		ar = myWordPages.returnWords();
 		try {
 
 			File f = new File(outputFile);
@@ -282,19 +1105,40 @@ public class Parser {
 				System.out.println(f.getName() + " exists; overwriting"); // if the file already existed, overwrite and
 																			// notify user
 			}
-			FileWriter fr = new FileWriter(outputFile);
 
-			// gather and write each index entry in turn to the file
-			for (String s : ar) {
-				sb = new StringBuilder();
-				sb.append("-------------------------------------" + nl + "Word: " + s + nl);
-				sb.append("Definition: " + myDictionary.getDefinition(s) + nl);
-				sb.append("Pages: " + myWordPages.getPages(s) + nl);
-				fr.write(sb.toString());
-				wordCount++;
+			// a corpus gets a combined index, and an index of each document
+			if (corpus != null || spilledDocuments != null) {
+				wordCount = spilledDocuments != null ? writeSpilledCorpus(f.toPath()) : writeCorpus(f.toPath());
+				metrics.add(Metrics.ENTRIES_WRITTEN, wordCount);
+				System.out.println("Parsing complete! - " + wordCount + " unique words parsed.");
+				return;
+			}
+
+			Path index = IndexFile.pathFor(outputFile);
+			if (spilled != null) {
+				writeIndex(spilled[0], index);
+			} else {
+				writeIndex(myWordPages, index);
+			}
+
+			// export the text index from the saved index file
+			IndexExporter exporter = IndexExporter.acquire(); // reuses the buffers of an earlier export
+			try (IndexFile.Reader reader = new IndexFile.Reader(index)) {
+				exporter.setPostings(postings, counts, positions);
+				wordCount = exporter.export(reader, f.toPath());
+				metrics.add(Metrics.BYTES_WRITTEN, exporter.bytesWritten());
+			} finally {
+				exporter.release();
+			}
+			metrics.add(Metrics.ENTRIES_WRITTEN, wordCount);
+
+			// save the hashes of each page, for the next incremental run
+			if (pageHashes != null) {
+				Path hashes = PageHashes.pathFor(outputFile);
+				pageHashes.save(hashes, Paths.get(inputFile), index, myDictionary.fingerprint(), fuzzyDistance);
+				metrics.add(Metrics.BYTES_WRITTEN, Files.size(hashes));
 			}
 
-			fr.close();
 			System.out.println("Parsing complete! - " + wordCount + " unique words parsed.");
 		} catch (IOException e) {
 			System.out.println("Error: " + e.getLocalizedMessage()); // if there was an error in the file write process,
@@ -304,6 +1148,180 @@ public class Parser {
 
 	}
 
+	/**
+	 * Method to save an index as an IndexFile. Each word in the WordPages object
+	 * is saved, in order, with it's definition and the pages it appears on. The
+	 * words are taken in one ordered pass, and their definitions picked up by
+	 * walking through the dictionary alongside them, so no word is looked up.
+	 * 
+	 * @param wordPages the index to be saved
+	 * @param index     the location of the IndexFile
+	 * @throws IOException if the IndexFile could not be written
+	 */
+	private void writeIndex(WordPages wordPages, Path index) throws IOException { // Big(O) = O(n) - defined by
+																					// number of words
+		try (IndexFile.Writer writer = new IndexFile.Writer(index, myDictionary)) {
+			wordPages.forEach(writer::add);
+		}
+		metrics.add(Metrics.BYTES_WRITTEN, Files.size(index));
+		System.out.println("Index saved to " + index);
+	}
+
+	/**
+	 * Method to save an index which has been written to disk in runs as an
+	 * IndexFile. The runs are merged, in order of word, straight into the
+	 * IndexFile, so the index is never held in memory.
+	 * 
+	 * @param found the words and pages of the input
+	 * @param index the location of the IndexFile
+	 * @throws IOException if the runs could not be read or the IndexFile written
+	 */
+	private void writeIndex(WordPagesAccumulator found, Path index) throws IOException { // Big(O) = O(n log r) -
+																							// defined by words and runs
+		try (IndexFile.Writer writer = new IndexFile.Writer(index, myDictionary)) {
+			found.forEachSorted(writer::add);
+		}
+		metrics.add(Metrics.BYTES_WRITTEN, Files.size(index));
+		System.out.println("Index saved to " + index);
+	}
+
+	/**
+	 * Method to write the index of a corpus. The index of each document on it's
+	 * own is saved and exported beside the output file, then the combined index,
+	 * listing the pages of each document every word appears on, is exported to
+	 * the output file from those IndexFiles (see writeCombined).
+	 * 
+	 * @param output the output file
+	 * @return the number of entries in the combined index
+	 * @throws IOException if an index could not be written
+	 */
+	private int writeCorpus(Path output) throws IOException { // Big(O) = O(n * d) - defined by words and documents
+
+		List<Path> docs = corpus.documents();
+		Path[] indexes = new Path[docs.size()];
+		IndexExporter exporter = IndexExporter.acquire(); // one exporter, so it's buffers are shared by every document
+		try {
+			for (int doc = 0; doc < docs.size(); doc++) {
+				Path docOutput = corpus.documentOutput(output, doc);
+				indexes[doc] = IndexFile.pathFor(docOutput.toString());
+				writeIndex(corpus.document(doc), indexes[doc]);
+				try (IndexFile.Reader reader = new IndexFile.Reader(indexes[doc])) {
+					exporter.export(reader, docOutput);
+				}
+				metrics.add(Metrics.BYTES_WRITTEN, exporter.bytesWritten());
+			}
+			return writeCombined(exporter, output, docs, indexes);
+		} finally {
+			exporter.release();
+		}
+	}
+
+	/**
+	 * Method to write the index of a corpus which has been written to disk in
+	 * runs. The runs of every document are merged together, in order of word,
+	 * and each word is added to the IndexFile of each document it appears in as
+	 * it comes, so the index is never held in memory. The index of each document
+	 * is then exported from it's IndexFile, and the combined index from all of
+	 * them (see writeCombined).
+	 * 
+	 * @param output the output file
+	 * @return the number of entries in the combined index
+	 * @throws IOException if the runs could not be read or an index written
+	 */
+	private int writeSpilledCorpus(Path output) throws IOException { // Big(O) = O(n log r) - defined by words and
+																		// runs
+		List<Path> docs = spilledDocuments;
+		Path[] indexes = new Path[docs.size()];
+		IndexFile.Writer[] writers = new IndexFile.Writer[docs.size()];
+		try {
+			for (int doc = 0; doc < docs.size(); doc++) {
+				indexes[doc] = IndexFile.pathFor(CorpusIndex.documentOutput(output, corpusRoot, docs, doc).toString());
+				writers[doc] = new IndexFile.Writer(indexes[doc], myDictionary);
+			}
+			WordPagesAccumulator.forEachSorted(spilled, (word, pages) -> {
+				for (int doc = 0; doc < pages.length; doc++) {
+					if (pages[doc] != null) {
+						writers[doc].add(word, pages[doc]);
+					}
+				}
+			});
+		} finally {
+			for (IndexFile.Writer writer : writers) {
+				if (writer != null) {
+					writer.close();
+				}
+			}
+		}
+
+		IndexExporter exporter = IndexExporter.acquire(); // one exporter, so it's buffers are shared by every document
+		try {
+			for (int doc = 0; doc < docs.size(); doc++) {
+				metrics.add(Metrics.BYTES_WRITTEN, Files.size(indexes[doc]));
+				System.out.println("Index saved to " + indexes[doc]);
+				try (IndexFile.Reader reader = new IndexFile.Reader(indexes[doc])) {
+					exporter.export(reader, CorpusIndex.documentOutput(output, corpusRoot, docs, doc));
+				}
+				metrics.add(Metrics.BYTES_WRITTEN, exporter.bytesWritten());
+			}
+			return writeCombined(exporter, output, docs, indexes);
+		} finally {
+			exporter.release();
+		}
+	}
+
+	/**
+	 * Method to export the combined index of a corpus to the output file from the
+	 * saved IndexFile of each of it's documents, read side by side in order of
+	 * word (see IndexExporter.exportCorpus). The definitions are copied from the
+	 * IndexFiles, so none are looked up again.
+	 * 
+	 * @param exporter the exporter to write with
+	 * @param output   the output file
+	 * @param docs     the documents of the corpus
+	 * @param indexes  the IndexFile of each document, in the same order
+	 * @return the number of entries in the combined index
+	 * @throws IOException if an index could not be read or the output written
+	 */
+	private int writeCombined(IndexExporter exporter, Path output, List<Path> docs, Path[] indexes)
+			throws IOException { // Big(O) = O(n * d) - defined by words and documents
+
+		List<IndexFile.Reader> readers = new ArrayList<IndexFile.Reader>(docs.size());
+		List<String> labels = new ArrayList<String>(docs.size());
+		try {
+			for (int doc = 0; doc < docs.size(); doc++) {
+				readers.add(new IndexFile.Reader(indexes[doc]));
+				labels.add(CorpusIndex.label(corpusRoot, docs, doc));
+			}
+			int wordCount = exporter.exportCorpus(readers, labels, output);
+			metrics.add(Metrics.BYTES_WRITTEN, exporter.bytesWritten());
+			return wordCount;
+		} finally {
+			for (IndexFile.Reader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Merges an index written to disk in runs back into memory: into myWordPages,
+	 * or a CorpusIndex when the input is a corpus.
+	 */
+	private void mergeSpilled() throws IOException { // Big(O) = O(n log r) - defined by words and runs
+
+		if (spilledDocuments == null) {
+			spilled[0].mergeInto(myWordPages);
+		} else {
+			WordPages[] perDoc = new WordPages[spilled.length];
+			for (int doc = 0; doc < spilled.length; doc++) {
+				perDoc[doc] = new WordPages();
+				spilled[doc].forEachSorted(perDoc[doc]::addAll);
+			}
+			corpus = new CorpusIndex(corpusRoot, spilledDocuments, perDoc);
+		}
+		spilled = null;
+		spilledDocuments = null;
+	}
+
 	/**
 	 * Method to write the index to the screen. The method gathers each word
 	 * contained in myWordPages and iterates through them, writing an entry to the
@@ -318,15 +1336,26 @@ public class Parser {
 		String nl = new String("\n");
 
 		try {
+			// an index written to disk in runs is merged back into memory to be shown
+			if (spilled != null) {
+				mergeSpilled();
+			}
 			// gather a list of stored words in the myWordPages object (used to iterate the
 			// results)
-			ar = myWordPages.returnWords();
+			ar = corpus == null ? myWordPages.returnWords() : corpus.returnWords();
 			// gather and write each index entry in turn to the System.out
 			for (String s : ar) {
 				sb = new StringBuilder();
 				sb.append("-------------------------------------" + nl + "Word: " + s + nl);
 				sb.append("Definition: " + myDictionary.getDefinition(s) + nl);
-				sb.append("Pages: " + myWordPages.getPages(s) + nl);
+				sb.append("Pages: " + (corpus == null ? myWordPages.getPages(s) : corpus.describe(s)) + nl);
+				PostingList occurrences = postings == null ? null : postings.get(s);
+				if (occurrences != null && counts) {
+					sb.append("Counts: " + occurrences.describeCounts() + nl);
+				}
+				if (occurrences != null && positions) {
+					sb.append("Positions: " + occurrences.describePositions() + nl);
+				}
 				if (++wordCount % 4 == 0) {
 					System.out.println("<Enter to Continue>");
 					System.in.read();
@@ -334,6 +1363,7 @@ public class Parser {
 				;
 				System.out.println(sb.toString());
 			}
+			metrics.add(Metrics.ENTRIES_WRITTEN, wordCount);
 			System.out.println("Parsing complete! - " + wordCount + " unique words parsed.");
 		} catch (Exception e) {
 			System.out.println("Error: " + e.getLocalizedMessage()); // if there was an error in the file write process,
@@ -343,18 +1373,4 @@ public class Parser {
 
 	}
 
-	/**
-	 * A method which trims and converts a String object to lower case.
-	 * 
-	 * @param s the String object to be processed
-	 * @return a trimmed and converted to lower case representation of the
-	 *         Stringobject passed to the routine.
-	 */
-	private String StripAndLower(String s) { // Big(O) = O(n) - defined by number of characters in the string
-
-		// simply assures that the string is only alphabetic and is lower case
-		return s.replaceAll("[^a-zA-Z]", "").toLowerCase();
-
-	}
-
 }
@@ -0,0 +1,257 @@
+package ie.atu.sw;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The PhraseMatcher object finds the phrases of a dictionary (entries
+ *          of more than one word, such as "holy spirit") in a stream of words,
+ *          with an Aho-Corasick automaton. The words of every phrase are given
+ *          a number (their symbol), and the phrases are added to a trie of
+ *          symbols. Each state of the trie also has a failure link to the state
+ *          for the longest suffix of it's words which is also the start of a
+ *          phrase, and an output link to the nearest state along the failure
+ *          links which ends a phrase.
+ *
+ *          Words are fed in one at a time with step(), each moving the
+ *          automaton on by one state (or a few failure links, which are paid for
+ *          by the words moving it forward), and every phrase ending on that word
+ *          is found by following the output links. The work is therefore linear
+ *          in the number of words read, however many phrases there are. A word
+ *          found in no phrase sends the automaton straight back to it's start.
+ *
+ *          A PhraseMatcher is read only once built, so may be shared between
+ *          threads; the state reached is held by the caller (see
+ *          PhraseScanner).
+ */
+public class PhraseMatcher {
+
+	private static final PhraseMatcher NONE = new PhraseMatcher(new Dictionary(), 1, new long[] { -1, -1 }, new int[2],
+			new int[1], new int[] { -1 }, new int[] { 0 }, new int[1], 0);
+
+	private final Dictionary symbols; // the words used in phrases: the id of each is it's symbol
+	private final int states; // number of states, 0 being the start
+	private final long[] edges; // open-addressing slots: (state << 32) | symbol, -1 being an empty slot
+	private final int[] targets; // state reached by the edge in the same slot of edges
+	private final int[] fail; // failure link of each state
+	private final int[] phrase; // dictionary id of the phrase ending at each state, or -1
+	private final int[] output; // output link of each state: next state along the failure links ending a phrase, or 0
+	private final int[] depth; // number of words from the start to each state
+	private final int longest; // words in the longest phrase
+
+	/**
+	 * Callback which receives each phrase found.
+	 */
+	@FunctionalInterface
+	public interface PhraseConsumer {
+		/**
+		 * @param id     the dictionary id of the phrase
+		 * @param length the number of words in the phrase
+		 */
+		void accept(int id, int length);
+	}
+
+	private PhraseMatcher(Dictionary newSymbols, int newStates, long[] newEdges, int[] newTargets, int[] newFail,
+			int[] newPhrase, int[] newOutput, int[] newDepth, int newLongest) { // Big(O) = O(1) - No loops
+		symbols = newSymbols;
+		states = newStates;
+		edges = newEdges;
+		targets = newTargets;
+		fail = newFail;
+		phrase = newPhrase;
+		output = newOutput;
+		depth = newDepth;
+		longest = newLongest;
+	}
+
+	/**
+	 * Builds the automaton for the phrases of a frozen dictionary: every word
+	 * holding a space.
+	 *
+	 * @param dictionary the frozen dictionary
+	 * @return the matcher, which finds nothing if the dictionary has no phrases
+	 */
+	public static PhraseMatcher build(Dictionary dictionary) { // Big(O) = O(n + w) - defined by the words of the
+																// dictionary and of it's phrases
+		// find the phrases, and the words they are made of
+		List<Integer> ids = new ArrayList<Integer>();
+		List<String[]> phrases = new ArrayList<String[]>();
+		Dictionary symbols = new Dictionary();
+		int total = 0;
+		for (int id = 0; id < dictionary.size(); id++) {
+			String w = dictionary.wordAt(id);
+			if (w.indexOf(' ') >= 0) {
+				String[] words = w.split(" ");
+				ids.add(id);
+				phrases.add(words);
+				total += words.length;
+				for (String word : words) {
+					symbols.add(word, "");
+				}
+			}
+		}
+		if (phrases.isEmpty()) {
+			return NONE;
+		}
+		symbols.freeze();
+
+		// the trie: at most one state per word of every phrase, plus the start
+		int max = total + 1;
+		int capacity = Integer.highestOneBit(Math.max(2, max) * 2 - 1) << 1;
+		long[] edges = new long[capacity];
+		Arrays.fill(edges, -1);
+		int[] targets = new int[capacity];
+		int[] phrase = new int[max];
+		Arrays.fill(phrase, -1);
+		int[] depth = new int[max];
+		int[] firstChild = new int[max]; // children of each state, as linked lists, for the breadth first walk
+		int[] nextSibling = new int[max];
+		int[] viaSymbol = new int[max]; // the symbol of the edge into each state
+		Arrays.fill(firstChild, -1);
+		int states = 1;
+		int longest = 0;
+		for (int p = 0; p < phrases.size(); p++) {
+			int s = 0;
+			for (String word : phrases.get(p)) {
+				int symbol = symbols.lookup(word);
+				int next = find(edges, targets, s, symbol);
+				if (next < 0) {
+					next = states++;
+					put(edges, targets, s, symbol, next);
+					depth[next] = depth[s] + 1;
+					viaSymbol[next] = symbol;
+					nextSibling[next] = firstChild[s];
+					firstChild[s] = next;
+				}
+				s = next;
+			}
+			phrase[s] = ids.get(p);
+			longest = Math.max(longest, depth[s]);
+		}
+
+		// failure and output links, a level of the trie at a time
+		int[] fail = new int[states];
+		int[] output = new int[states];
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		for (int c = firstChild[0]; c >= 0; c = nextSibling[c]) {
+			queue.add(c); // the states one word in fail back to the start
+		}
+		while (!queue.isEmpty()) {
+			int s = queue.poll();
+			for (int c = firstChild[s]; c >= 0; c = nextSibling[c]) {
+				int f = fail[s];
+				int g = find(edges, targets, f, viaSymbol[c]);
+				while (g < 0 && f != 0) {
+					f = fail[f];
+					g = find(edges, targets, f, viaSymbol[c]);
+				}
+				fail[c] = g < 0 ? 0 : g;
+				output[c] = phrase[fail[c]] >= 0 ? fail[c] : output[fail[c]];
+				queue.add(c);
+			}
+		}
+		return new PhraseMatcher(symbols, states, edges, targets, fail, Arrays.copyOf(phrase, states),
+				output, Arrays.copyOf(depth, states), longest);
+	}
+
+	/**
+	 * @return true if there are no phrases to be found
+	 */
+	public boolean isEmpty() { // Big(O) = O(1) - No loops
+		return longest == 0;
+	}
+
+	/**
+	 * @return the number of words in the longest phrase
+	 */
+	public int longest() { // Big(O) = O(1) - No loops
+		return longest;
+	}
+
+	/**
+	 * @return the number of states of the automaton
+	 */
+	public int states() { // Big(O) = O(1) - No loops
+		return states;
+	}
+
+	/**
+	 * Finds the symbol of a word, held as ASCII/Latin-1 bytes.
+	 *
+	 * @param buf the bytes holding the word
+	 * @param off the position of the first byte of the word
+	 * @param len the number of bytes of the word
+	 * @return the symbol of the word, or -1 if it is in no phrase
+	 */
+	public int symbolOf(byte[] buf, int off, int len) { // Big(O) = O(1) - hash table
+		return isEmpty() ? -1 : symbols.lookup(buf, off, len);
+	}
+
+	/**
+	 * Moves the automaton on by one word, passing every phrase which ends on that
+	 * word to action.
+	 *
+	 * @param state  the state before the word, 0 at the start
+	 * @param symbol the symbol of the word, or -1 if it is in no phrase
+	 * @param action the action performed on each phrase found
+	 * @return the state after the word
+	 */
+	public int step(int state, int symbol, PhraseConsumer action) { // Big(O) = O(1) amortised, plus the phrases found
+
+		if (symbol < 0) {
+			return 0;
+		}
+		int next = find(edges, targets, state, symbol);
+		while (next < 0 && state != 0) {
+			state = fail[state];
+			next = find(edges, targets, state, symbol);
+		}
+		if (next < 0) {
+			return 0;
+		}
+		for (int m = phrase[next] >= 0 ? next : output[next]; m != 0; m = output[m]) {
+			action.accept(phrase[m], depth[m]);
+		}
+		return next;
+	}
+
+	/**
+	 * @return the state reached from state by symbol's edge, or -1 if it has none
+	 */
+	private static int find(long[] edges, int[] targets, int state, int symbol) { // Big(O) = O(1) - hash table
+
+		long key = ((long) state << 32) | symbol;
+		int mask = edges.length - 1;
+		for (int slot = mix(key) & mask;; slot = (slot + 1) & mask) {
+			if (edges[slot] == key) {
+				return targets[slot];
+			}
+			if (edges[slot] == -1) {
+				return -1;
+			}
+		}
+	}
+
+	private static void put(long[] edges, int[] targets, int state, int symbol, int target) { // Big(O) = O(1)
+
+		long key = ((long) state << 32) | symbol;
+		int mask = edges.length - 1;
+		int slot = mix(key) & mask;
+		while (edges[slot] != -1) {
+			slot = (slot + 1) & mask;
+		}
+		edges[slot] = key;
+		targets[slot] = target;
+	}
+
+	private static int mix(long key) { // Big(O) = O(1) - No loops
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+}
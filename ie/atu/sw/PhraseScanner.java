@@ -0,0 +1,258 @@
+package ie.atu.sw;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The PhraseScanner object runs a PhraseMatcher over the words of a
+ *          source file as it is read by many threads, so that phrases are found
+ *          in the same single pass over the file as single words. A phrase may
+ *          run over the end of a line onto the next, as long as both lines are
+ *          on the same page.
+ *
+ *          Each thread keeps it's own state of the automaton, carried from one
+ *          line to the next while it reads consecutive lines of a page. When a
+ *          thread moves on to a line which doesn't follow the last one it read
+ *          (the start of a new chunk of the file), it starts again from the
+ *          start of the automaton. In case a phrase runs across the two chunks,
+ *          the last few words read before the break, and the first few read
+ *          after it, are kept; once every line has been read, finish() runs the
+ *          automaton over the words either side of each break, reporting only
+ *          phrases which cross it. As no phrase is longer than the longest
+ *          phrase, only that many words less one need be kept on each side.
+ *
+ *          A PhraseScanner is used for one read of one file.
+ */
+public class PhraseScanner {
+
+	private final PhraseMatcher matcher;
+	private final HitConsumer action;
+	private final int keep; // words kept either side of a break
+	private final ConcurrentLinkedQueue<Run> runs = new ConcurrentLinkedQueue<Run>();
+	private final ThreadLocal<Run> local = ThreadLocal.withInitial(() -> {
+		Run run = new Run();
+		runs.add(run); // registered so finish() can find it's breaks
+		return run;
+	});
+
+	/**
+	 * Callback which receives each phrase found.
+	 */
+	@FunctionalInterface
+	public interface HitConsumer {
+		/**
+		 * @param id     the dictionary id of the phrase
+		 * @param line   the line the first word of the phrase is on
+		 * @param column the column of the line the first word starts at
+		 */
+		void accept(int id, int line, int column);
+	}
+
+	/**
+	 * Constructor for the PhraseScanner object
+	 *
+	 * @param newMatcher the automaton of the phrases to be found
+	 * @param newAction  the action performed on each phrase found. Called on the
+	 *                   thread reading the phrase's last word, or by finish()
+	 */
+	public PhraseScanner(PhraseMatcher newMatcher, HitConsumer newAction) { // Big(O) = O(1) - No loops
+		matcher = newMatcher;
+		action = newAction;
+		keep = Math.max(0, newMatcher.longest() - 1);
+	}
+
+	/**
+	 * Moves the calling thread on to a line. Must be called before the words of
+	 * each line are passed to the Run returned.
+	 *
+	 * @param lineNum the line number, in the source file
+	 * @return the calling thread's Run
+	 */
+	public Run line(int lineNum) { // Big(O) = O(1) - No loops
+		Run run = local.get();
+		run.moveTo(lineNum);
+		return run;
+	}
+
+	/**
+	 * Finds the phrases running across each break between the lines read by one
+	 * thread and the next. Must be called once every line has been read, and only
+	 * once.
+	 *
+	 * @return the number of phrases found
+	 */
+	public int finish() { // Big(O) = O(b * k) - defined by the breaks and the words kept either side
+		Map<Integer, Edge> tails = new HashMap<Integer, Edge>();
+		List<Edge> heads = new ArrayList<Edge>();
+		for (Run run : runs) {
+			run.end();
+			for (Edge tail : run.tails) {
+				tails.put(tail.line, tail);
+			}
+			heads.addAll(run.heads);
+		}
+		runs.clear();
+		local.remove();
+
+		int[] hits = { 0 };
+		for (Edge head : heads) {
+			Edge tail = tails.get(head.line - 1);
+			if (tail == null || tail.size == 0 || head.size == 0) {
+				continue;
+			}
+			// replay the words either side of the break, keeping phrases which cross it
+			int state = 0;
+			for (int i = 0; i < tail.size + head.size; i++) {
+				final int last = i;
+				int symbol = i < tail.size ? tail.symbols[i] : head.symbols[i - tail.size];
+				state = matcher.step(state, symbol, (id, length) -> {
+					int first = last - length + 1;
+					if (last >= tail.size && first < tail.size) {
+						hits[0]++;
+						action.accept(id, tail.lines[first], tail.columns[first]);
+					}
+				});
+			}
+		}
+		return hits[0];
+	}
+
+	/**
+	 * The words kept on one side of a break.
+	 */
+	private static class Edge {
+
+		private final int line; // the line just before (for a tail) or just after (for a head) the break
+		private final int[] symbols;
+		private final int[] lines;
+		private final int[] columns;
+		private int size;
+
+		private Edge(int newLine, int capacity) { // Big(O) = O(k) - defined by the words kept
+			line = newLine;
+			symbols = new int[capacity];
+			lines = new int[capacity];
+			columns = new int[capacity];
+		}
+
+		private void add(int symbol, int line, int column) { // Big(O) = O(1) - No loops
+			symbols[size] = symbol;
+			lines[size] = line;
+			columns[size] = column;
+			size++;
+		}
+	}
+
+	/**
+	 * The state of one thread's read: where the automaton is, the last few words
+	 * of the current page, and the breaks met so far. Only used by the thread
+	 * it belongs to.
+	 */
+	public final class Run implements PhraseMatcher.PhraseConsumer {
+
+		private int state; // state of the automaton
+		private int lastLine = -1; // the last line moved to, -1 before the first
+		private int page; // page of the last line
+		private final int[] symbols = new int[keep + 1]; // the last keep + 1 words of the page, by word number
+		private final int[] lines = new int[keep + 1];
+		private final int[] columns = new int[keep + 1];
+		private int words; // words read since the start of the page, or of the run if it started part way through
+		private Edge head; // the first words after a break, while being gathered
+		private final List<Edge> heads = new ArrayList<Edge>();
+		private final List<Edge> tails = new ArrayList<Edge>();
+		private int hits; // phrases found on the current line
+
+		private Run() {
+		}
+
+		/**
+		 * Passes a word of the current line to the automaton, performing the
+		 * scanner's action on any phrase it ends.
+		 *
+		 * @param buf    the bytes of the word
+		 * @param off    the position of the first byte of the word
+		 * @param len    the number of bytes of the word
+		 * @param column the column of the line the word starts at
+		 * @return the number of phrases ended by the word
+		 */
+		public int word(byte[] buf, int off, int len, int column) { // Big(O) = O(1) amortised, plus the phrases found
+
+			int symbol = matcher.symbolOf(buf, off, len);
+			int slot = words++ % symbols.length;
+			symbols[slot] = symbol;
+			lines[slot] = lastLine;
+			columns[slot] = column;
+			if (head != null) {
+				head.add(symbol, lastLine, column);
+				if (head.size == keep) {
+					head = null; // enough words gathered
+				}
+			}
+			hits = 0;
+			state = matcher.step(state, symbol, this);
+			return hits;
+		}
+
+		/**
+		 * Receives each phrase found by the automaton, finding the line and column
+		 * of it's first word among the words kept.
+		 */
+		@Override
+		public void accept(int id, int length) { // Big(O) = O(1) - No loops
+			int slot = (words - length) % symbols.length;
+			hits++;
+			action.accept(id, lines[slot], columns[slot]);
+		}
+
+		/**
+		 * Moves on to a line, carrying the state of the automaton over from the
+		 * line before if it is the next line of the same page.
+		 */
+		private void moveTo(int lineNum) { // Big(O) = O(k) - defined by the words kept
+			int newPage = Parser.pageOf(lineNum);
+			if (lineNum == lastLine + 1 && newPage == page) {
+				lastLine = lineNum; // carry on where the last line left off
+				return;
+			}
+			if (lineNum != lastLine + 1) {
+				end(); // a break: keep the last words before it
+				if (lineNum > 1 && Parser.pageOf(lineNum - 1) == newPage && keep > 0) {
+					head = new Edge(lineNum, keep); // started part way through a page
+					heads.add(head);
+				}
+			} else {
+				head = null; // a new page: phrases never cross onto it
+			}
+			state = 0;
+			words = 0;
+			page = newPage;
+			lastLine = lineNum;
+		}
+
+		/**
+		 * Ends the run of lines read so far, keeping the last words read on it's
+		 * last page.
+		 */
+		private void end() { // Big(O) = O(k) - defined by the words kept
+			if (lastLine < 0) {
+				return;
+			}
+			int n = Math.min(words, keep);
+			Edge tail = new Edge(lastLine, n);
+			for (int w = words - n; w < words; w++) {
+				int slot = w % symbols.length;
+				tail.add(symbols[slot], lines[slot], columns[slot]);
+			}
+			tails.add(tail);
+			head = null;
+			lastLine = -1;
+		}
+	}
+}
@@ -0,0 +1,292 @@
+package ie.atu.sw;
+
+import java.util.Arrays;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The PostingList object holds every occurrence of one word in a
+ *          source file: the line it was read on and the column of the line it
+ *          starts at. Occurrences are kept in the order they appear in the
+ *          file, as a stream of variable length integers (see Varint) rather
+ *          than as objects:
+ *
+ *          > line gap - the line of the occurrence less the line of the one
+ *          before (0 for an occurrence on the same line). > column - the column
+ *          itself if the line gap is not 0, otherwise the gap from the column
+ *          of the occurrence before.
+ *
+ *          Both gaps are usually small, so most occurrences take 2 or 3 bytes.
+ *          The pages a word is on, and how often it appears on each, are worked
+ *          out from the lines as the list is read back with a Cursor.
+ *
+ *          Occurrences read by different threads are gathered in separate
+ *          lists, each covering part of the file, and joined with append(). Only
+ *          the first occurrence of the appended list is written again (as it's
+ *          line gap is now from the end of this list); the rest of it's bytes
+ *          are copied as they are.
+ *
+ *          A PostingList is not thread safe.
+ */
+public class PostingList {
+
+	private byte[] data = new byte[8]; // the encoded occurrences
+	private int used; // number of bytes of data in use
+	private int size; // number of occurrences
+	private int firstLine; // line and column of the first occurrence
+	private int firstColumn;
+	private int afterFirst; // position in data just after the first occurrence
+	private int lastLine; // line and column of the last occurrence
+	private int lastColumn;
+
+	/**
+	 * Callback which receives the pages of a list, in order, with the number of
+	 * occurrences on each.
+	 */
+	@FunctionalInterface
+	public interface PageCountConsumer {
+		void accept(int page, int count);
+	}
+
+	/**
+	 * Adds an occurrence to the end of the list. Occurrences must be added in the
+	 * order they appear in the file.
+	 *
+	 * @param line   the line the word was read on, from 1
+	 * @param column the column of the line the word starts at, from 1
+	 */
+	public void add(int line, int column) { // Big(O) = O(1) - amortised
+
+		if (!follows(line, column)) {
+			throw new IllegalArgumentException("Occurrence " + line + ":" + column + " is before " + lastLine + ":"
+					+ lastColumn);
+		}
+		ensure(10);
+		if (line == lastLine) {
+			used = Varint.write(data, used, 0);
+			used = Varint.write(data, used, column - lastColumn);
+		} else {
+			used = Varint.write(data, used, line - lastLine);
+			used = Varint.write(data, used, column);
+		}
+		if (size++ == 0) {
+			firstLine = line;
+			firstColumn = column;
+			afterFirst = used;
+		}
+		lastLine = line;
+		lastColumn = column;
+	}
+
+	/**
+	 * Checks if an occurrence comes after the last occurrence of the list, so can
+	 * be added to it.
+	 *
+	 * @param line   the line of the occurrence
+	 * @param column the column of the occurrence
+	 * @return true if the occurrence can be added
+	 */
+	public boolean follows(int line, int column) { // Big(O) = O(1) - No loops
+		return size == 0 || line > lastLine || (line == lastLine && column > lastColumn);
+	}
+
+	/**
+	 * Adds every occurrence of another list to the end of this list. The other
+	 * list must start after this list ends. The other list is not changed.
+	 *
+	 * @param other the list to be appended
+	 */
+	public void append(PostingList other) { // Big(O) = O(m) - defined by the bytes of other
+
+		if (other.size == 0) {
+			return;
+		}
+		add(other.firstLine, other.firstColumn); // the only occurrence whose gaps change
+		int rest = other.used - other.afterFirst;
+		ensure(rest);
+		System.arraycopy(other.data, other.afterFirst, data, used, rest);
+		used += rest;
+		size += other.size - 1;
+		lastLine = other.lastLine;
+		lastColumn = other.lastColumn;
+	}
+
+	/**
+	 * @return the number of occurrences in the list
+	 */
+	public int size() { // Big(O) = O(1) - No loops
+		return size;
+	}
+
+	/**
+	 * @return the number of bytes the occurrences take up
+	 */
+	public int encodedSize() { // Big(O) = O(1) - No loops
+		return used;
+	}
+
+	/**
+	 * @return the line of the first occurrence, or 0 if the list is empty
+	 */
+	public int firstLine() { // Big(O) = O(1) - No loops
+		return firstLine;
+	}
+
+	/**
+	 * @return the column of the first occurrence, or 0 if the list is empty
+	 */
+	public int firstColumn() { // Big(O) = O(1) - No loops
+		return firstColumn;
+	}
+
+	/**
+	 * Shrinks the storage of the list to the bytes in use, once nothing more is
+	 * to be added.
+	 */
+	public void trim() { // Big(O) = O(n) - defined by the bytes of the list
+		if (data.length > used) {
+			data = Arrays.copyOf(data, used);
+		}
+	}
+
+	/**
+	 * @return a Cursor positioned before the first occurrence
+	 */
+	public Cursor cursor() { // Big(O) = O(1) - No loops
+		return new Cursor();
+	}
+
+	/**
+	 * Passes each page of the list to action, in numeric order, with the number
+	 * of occurrences on that page.
+	 *
+	 * @param action the action to perform on each page
+	 */
+	public void forEachPage(PageCountConsumer action) { // Big(O) = O(n) - defined by the number of occurrences
+
+		Cursor c = cursor();
+		int page = 0;
+		int count = 0;
+		while (c.next()) {
+			int p = c.page();
+			if (p != page && count > 0) {
+				action.accept(page, count);
+				count = 0;
+			}
+			page = p;
+			count++;
+		}
+		if (count > 0) {
+			action.accept(page, count);
+		}
+	}
+
+	/**
+	 * @return the set of pages the word occurs on
+	 */
+	public PageSet pages() { // Big(O) = O(n) - defined by the number of occurrences
+		PageSet pages = new PageSet();
+		forEachPage((page, count) -> pages.add(page));
+		return pages;
+	}
+
+	/**
+	 * @return the number of occurrences on each page, in page order, e.g. "[2,
+	 *         1]"
+	 */
+	public String describeCounts() { // Big(O) = O(n) - defined by the number of occurrences
+		StringBuilder sb = new StringBuilder("[");
+		forEachPage((page, count) -> sb.append(sb.length() > 1 ? ", " : "").append(count));
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * @return the line and column of each occurrence, in order, e.g. "[41:3,
+	 *         41:17, 85:1]"
+	 */
+	public String describePositions() { // Big(O) = O(n) - defined by the number of occurrences
+		StringBuilder sb = new StringBuilder("[");
+		for (Cursor c = cursor(); c.next();) {
+			sb.append(sb.length() > 1 ? ", " : "").append(c.line()).append(':').append(c.column());
+		}
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Makes room for at least n more bytes.
+	 */
+	private void ensure(int n) { // Big(O) = O(n) - amortised O(1) per byte
+		if (used + n > data.length) {
+			data = Arrays.copyOf(data, Math.max(used + n, data.length * 2));
+		}
+	}
+
+	/**
+	 * Reads the occurrences of a list one at a time, decoding them as it goes.
+	 * The list must not be changed while being read.
+	 */
+	public final class Cursor {
+
+		private int pos; // position in data of the next occurrence
+		private int left = size; // occurrences not yet read
+		private int line;
+		private int column;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Moves to the next occurrence.
+		 *
+		 * @return true if there was another occurrence
+		 */
+		public boolean next() { // Big(O) = O(1) - at most 10 bytes
+			if (left == 0) {
+				return false;
+			}
+			left--;
+			int gap = read();
+			if (gap == 0) {
+				column += read();
+			} else {
+				line += gap;
+				column = read();
+			}
+			return true;
+		}
+
+		/**
+		 * @return the line of the current occurrence
+		 */
+		public int line() { // Big(O) = O(1) - No loops
+			return line;
+		}
+
+		/**
+		 * @return the column of the current occurrence
+		 */
+		public int column() { // Big(O) = O(1) - No loops
+			return column;
+		}
+
+		/**
+		 * @return the page of the current occurrence
+		 */
+		public int page() { // Big(O) = O(1) - No loops
+			return Parser.pageOf(line);
+		}
+
+		private int read() { // Big(O) = O(1) - at most 5 bytes
+			int value = 0;
+			for (int shift = 0;; shift += 7) {
+				byte b = data[pos++];
+				value |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+		}
+	}
+}
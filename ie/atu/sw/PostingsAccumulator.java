@@ -0,0 +1,136 @@
+package ie.atu.sw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The PostingsAccumulator object gathers every occurrence of each word,
+ *          with it's line and column, from many threads at once, as
+ *          WordPagesAccumulator does for pages. Each thread adds to it's own
+ *          unsynchronised table of word to PostingLists, so adding takes no
+ *          locks.
+ *
+ *          A thread reads the lines of a chunk in order, but may read a later
+ *          chunk before an earlier one. Each word's occurrences are therefore
+ *          kept as a list of segments: a new segment is started whenever an
+ *          occurrence comes before the last one added. Once every thread has
+ *          finished, the segments of each word are put in file order and
+ *          appended into a single PostingList.
+ */
+public class PostingsAccumulator {
+
+	private final ConcurrentLinkedQueue<Map<String, List<PostingList>>> tables = new ConcurrentLinkedQueue<Map<String, List<PostingList>>>();
+	private final ThreadLocal<Map<String, List<PostingList>>> local = ThreadLocal.withInitial(() -> {
+		Map<String, List<PostingList>> table = new HashMap<String, List<PostingList>>();
+		tables.add(table); // registered so it can be found again when merging
+		return table;
+	});
+
+	/**
+	 * Adds an occurrence of a word to the calling thread's table.
+	 *
+	 * @param word   the word
+	 * @param line   the line the word was read on
+	 * @param column the column of the line the word starts at
+	 */
+	public void add(String word, int line, int column) { // Big(O) = O(1) - hash table
+
+		List<PostingList> segments = local.get().computeIfAbsent(word, k -> new ArrayList<PostingList>(1));
+		PostingList last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if (last == null || !last.follows(line, column)) {
+			last = new PostingList(); // a chunk earlier in the file than the last one read by this thread
+			segments.add(last);
+		}
+		last.add(line, column);
+	}
+
+	/**
+	 * Merges the tables of every thread, joining the segments of each word in
+	 * file order. Must only be called once all adding has finished, and only
+	 * once.
+	 *
+	 * @return the PostingList of each word, in alphabetical order
+	 */
+	public Map<String, PostingList> toPostings() { // Big(O) = O(n + s log s) - defined by the bytes and segments
+
+		// gather the segments of each word from every table
+		Map<String, List<PostingList>> all = new HashMap<String, List<PostingList>>();
+		for (Map<String, List<PostingList>> table : tables) {
+			table.forEach((word, segments) -> all.merge(word, segments, (x, y) -> {
+				x.addAll(y);
+				return x;
+			}));
+		}
+		tables.clear();
+		local.remove();
+
+		// join them, a word at a time, in parallel
+		Map<String, PostingList> joined = new TreeMap<String, PostingList>();
+		all.entrySet().parallelStream().map(e -> Map.entry(e.getKey(), join(e.getValue()))).toList()
+				.forEach(e -> joined.put(e.getKey(), e.getValue()));
+		return joined;
+	}
+
+	/**
+	 * Appends segments of a word's occurrences together, in the order they come
+	 * in the file.
+	 */
+	private static PostingList join(List<PostingList> segments) { // Big(O) = O(n + s log s) - bytes and segments
+
+		if (segments.size() > 1) {
+			segments.sort(Comparator.comparingInt(PostingList::firstLine).thenComparingInt(PostingList::firstColumn));
+		}
+		PostingList first = segments.get(0);
+		for (int i = 1; i < segments.size(); i++) {
+			PostingList next = segments.get(i);
+			if (!first.follows(next.firstLine(), next.firstColumn())) {
+				// segments which overlap, such as phrases found by PhraseScanner.finish()
+				return rebuild(segments.subList(i, segments.size()), first);
+			}
+			first.append(next);
+		}
+		first.trim();
+		return first;
+	}
+
+	/**
+	 * Builds a PostingList from segments whose occurrences may interleave, by
+	 * decoding and sorting every occurrence.
+	 *
+	 * @param rest   the segments not yet joined
+	 * @param joined the segments joined so far
+	 */
+	private static PostingList rebuild(List<PostingList> rest, PostingList joined) { // Big(O) = O(n log n) -
+																					// defined by the occurrences
+		List<PostingList> segments = new ArrayList<PostingList>(rest);
+		segments.add(joined);
+		int total = 0;
+		for (PostingList segment : segments) {
+			total += segment.size();
+		}
+		long[] all = new long[total];
+		int n = 0;
+		for (PostingList segment : segments) {
+			for (PostingList.Cursor c = segment.cursor(); c.next();) {
+				all[n++] = ((long) c.line() << 32) | c.column();
+			}
+		}
+		Arrays.sort(all);
+		PostingList list = new PostingList();
+		for (long position : all) {
+			list.add((int) (position >>> 32), (int) position);
+		}
+		list.trim();
+		return list;
+	}
+}
@@ -0,0 +1,225 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The ResourceCache object keeps the exclusions and frozen dictionary
+ *          loaded for each pair of dictionary and common words files, so that a
+ *          long running process (see IndexDaemon) loads them once rather than
+ *          for every file it indexes.
+ *
+ *          What is loaded is kept as a snapshot (Resources) which is never
+ *          changed. When either file changes (it's size or last modified time
+ *          no longer matches the snapshot), a new snapshot is built on a
+ *          background thread, from the files as they are then, and swapped in
+ *          with a single atomic write once it's ready. Until then, and for any
+ *          job which already has the old snapshot, the old snapshot is used, so
+ *          getting the resources never waits for a reload (only for the first
+ *          load of a pair of files) and a job runs on the same dictionary from
+ *          start to finish. Changes are noticed when the resources are asked
+ *          for, or when refresh() is called.
+ *
+ *          Loading is done by a Parser (loadCommonWords() and loadDictionary()),
+ *          so the dictionary snapshot file is used and kept up to date as usual.
+ *          The resources of the last few pairs of files used are kept; the least
+ *          recently used is dropped when another is loaded.
+ */
+public class ResourceCache {
+
+	private static final int MAX_ENTRIES = 4; // pairs of files kept loaded
+
+	private final ConcurrentHashMap<List<Path>, Entry> cache = new ConcurrentHashMap<List<Path>, Entry>();
+	private final AtomicInteger loads = new AtomicInteger(); // number of times resources have been loaded
+
+	/**
+	 * A snapshot of the exclusions and dictionary loaded from a pair of files,
+	 * with the size and last modified time of each file when they were loaded,
+	 * and it's version (1 for the first load of the pair, 2 for the next, and so
+	 * on).
+	 */
+	public record Resources(Dictionary dictionary, Set<String> exclusions, List<Long> stamps, int version) {
+	}
+
+	/**
+	 * The current snapshot of a pair of files, and the reload in progress, if
+	 * any.
+	 */
+	private static final class Entry {
+		private final String dictionary;
+		private final String commonWords;
+		private final List<Path> files;
+		private final AtomicReference<Resources> current = new AtomicReference<Resources>();
+		private final AtomicReference<CompletableFuture<Resources>> loading = new AtomicReference<CompletableFuture<Resources>>();
+		private volatile List<Long> failed; // stamps of the files when a reload last failed
+		private volatile long used; // when last asked for
+
+		private Entry(String newDictionary, String newCommonWords, List<Path> newFiles) { // Big(O) = O(1)
+			dictionary = newDictionary;
+			commonWords = newCommonWords;
+			files = newFiles;
+		}
+	}
+
+	/**
+	 * Returns the current snapshot of the exclusions and dictionary of a pair of
+	 * files. If either file has changed since, a new snapshot is built in the
+	 * background and the current one returned; only the first load of a pair of
+	 * files is waited for.
+	 *
+	 * @param dictionary  the path to the dictionary CSV
+	 * @param commonWords the path to the common words file
+	 * @return the exclusions and frozen dictionary
+	 * @throws IOException if either file could not be read the first time
+	 */
+	public Resources get(String dictionary, String commonWords) throws IOException { // Big(O) = O(1), O(n) on the
+																						// first load
+		List<Path> key = List.of(Paths.get(dictionary).toAbsolutePath(), Paths.get(commonWords).toAbsolutePath());
+		Entry entry = cache.computeIfAbsent(key, k -> new Entry(dictionary, commonWords, k));
+		entry.used = System.nanoTime();
+		evict();
+
+		Resources snapshot = entry.current.get();
+		if (snapshot != null) {
+			try {
+				List<Long> stamps = stamps(entry.files);
+				if (!stamps.equals(snapshot.stamps()) && !stamps.equals(entry.failed)) {
+					reload(entry, stamps);
+				}
+			} catch (IOException e) {
+				// the files are being replaced, or gone; keep using what was loaded
+			}
+			return snapshot;
+		}
+
+		try {
+			return reload(entry, stamps(entry.files)).get();
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause().getLocalizedMessage(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading the dictionary", e);
+		}
+	}
+
+	/**
+	 * Checks every pair of files loaded, starting a reload in the background for
+	 * those which have changed.
+	 */
+	public void refresh() { // Big(O) = O(e) - defined by the entries
+		for (Entry entry : cache.values()) {
+			Resources snapshot = entry.current.get();
+			if (snapshot == null) {
+				continue; // still being loaded for the first time
+			}
+			try {
+				List<Long> stamps = stamps(entry.files);
+				if (!stamps.equals(snapshot.stamps()) && !stamps.equals(entry.failed)) {
+					reload(entry, stamps);
+				}
+			} catch (IOException e) {
+				// the files are being replaced, or gone; checked again next time
+			}
+		}
+	}
+
+	/**
+	 * @return the number of times resources have been loaded, rather than found
+	 *         in the cache
+	 */
+	public int loads() { // Big(O) = O(1) - No loops
+		return loads.get();
+	}
+
+	/**
+	 * Starts building a new snapshot of a pair of files on a background thread,
+	 * unless one is being built already. The snapshot is swapped in once built;
+	 * if it fails, the old one is kept until the files change again.
+	 *
+	 * @return the snapshot being built
+	 */
+	private CompletableFuture<Resources> reload(Entry entry, List<Long> stamps) { // Big(O) = O(1) - the load
+																					// runs in the background
+		CompletableFuture<Resources> next = new CompletableFuture<Resources>();
+		CompletableFuture<Resources> running = entry.loading.compareAndExchange(null, next);
+		if (running != null) {
+			return running; // one reload at a time
+		}
+
+		// the loader prints to the console, not to the log of the job which noticed
+		// the change
+		Thread.ofVirtual().name("resource-reload").inheritInheritableThreadLocals(false).start(() -> {
+			try {
+				Resources old = entry.current.get();
+				Parser loader = new Parser(null, null, entry.dictionary, entry.commonWords);
+				loader.loadCommonWords();
+				if (!loader.hasFailed())
+					loader.loadDictionary();
+				if (loader.hasFailed()) {
+					throw new IOException("Dictionary or common words file could not be loaded");
+				}
+				Resources loaded = new Resources(loader.getDictionary(), Set.copyOf(loader.getExclusions()), stamps,
+						old == null ? 1 : old.version() + 1);
+				entry.current.set(loaded); // the swap: jobs from here on get the new snapshot
+				loads.incrementAndGet();
+				if (old != null) {
+					System.out.println("Dictionary reloaded - version " + loaded.version() + ", "
+							+ loaded.dictionary().size() + " words defined.");
+				}
+				entry.loading.set(null);
+				next.complete(loaded);
+			} catch (Throwable t) {
+				entry.failed = stamps;
+				if (entry.current.get() != null) {
+					System.out.println("Warning: dictionary not reloaded, still using version "
+							+ entry.current.get().version() + " - " + t.getLocalizedMessage());
+				} else {
+					cache.remove(entry.files, entry); // tried again by the next get()
+				}
+				entry.loading.set(null);
+				next.completeExceptionally(t);
+			}
+		});
+		return next;
+	}
+
+	/**
+	 * Drops the least recently used pairs of files while more than MAX_ENTRIES
+	 * are kept. Jobs using them keep their snapshots.
+	 */
+	private void evict() { // Big(O) = O(e) - defined by the entries
+		while (cache.size() > MAX_ENTRIES) {
+			cache.values().stream().min(Comparator.comparingLong((Entry e) -> e.used))
+					.ifPresent(e -> cache.remove(e.files, e));
+		}
+	}
+
+	/**
+	 * @return the size and last modified time of each file
+	 */
+	private static List<Long> stamps(List<Path> files) throws IOException { // Big(O) = O(1) - two files
+
+		Long[] stamps = new Long[2 * files.size()];
+		for (int i = 0; i < files.size(); i++) {
+			BasicFileAttributes attr = Files.readAttributes(files.get(i), BasicFileAttributes.class);
+			stamps[2 * i] = attr.size();
+			stamps[2 * i + 1] = attr.lastModifiedTime().toMillis();
+		}
+		return List.of(stamps);
+	}
+}
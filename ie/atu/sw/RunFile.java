@@ -0,0 +1,158 @@
+package ie.atu.sw;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The RunFile class defines the temporary files a WordPagesAccumulator
+ *          writes it's tables to when over it's MemoryBudget. A run holds words
+ *          and their pages, sorted by word, each entry being the word (length
+ *          prefixed UTF-8), the number of pages, and the pages as varint gaps
+ *          from the previous page, as in an IndexFile block. Runs are written
+ *          and read straight through, once each, so are not compressed and have
+ *          no directory.
+ */
+public class RunFile {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private RunFile() {
+	}
+
+	/**
+	 * Writes the words of a table, sorted, to a run file.
+	 *
+	 * @param file  the file to be written
+	 * @param table the words and their pages
+	 * @return the size of the file
+	 * @throws IOException if the file could not be written
+	 */
+	public static long write(Path file, Map<String, PageSet> table) throws IOException { // Big(O) = O(n log n) -
+																							// sorting the words
+		String[] words = table.keySet().toArray(new String[0]);
+		Arrays.sort(words);
+		ByteArrayOutputStream entry = new ByteArrayOutputStream();
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+			for (String word : words) {
+				PageSet pages = table.get(word);
+				byte[] w = word.getBytes(StandardCharsets.UTF_8);
+				entry.reset();
+				Varint.write(entry, w.length);
+				entry.write(w, 0, w.length);
+				Varint.write(entry, pages.size());
+				int[] previous = { 0 };
+				pages.forEach(p -> {
+					Varint.write(entry, p - previous[0]);
+					previous[0] = p;
+				});
+				entry.writeTo(out);
+			}
+		}
+		return Files.size(file);
+	}
+
+	/**
+	 * Reads the entries of a run file one at a time, in order of word.
+	 */
+	public static final class Cursor implements Closeable {
+
+		private final InputStream in;
+		private byte[] buf = new byte[64];
+		private String word;
+		private PageSet pages;
+
+		/**
+		 * Opens a run file, positioned before the first entry.
+		 *
+		 * @param file the file to be read
+		 * @throws IOException if the file could not be opened
+		 */
+		public Cursor(Path file) throws IOException { // Big(O) = O(1) - No loops
+			in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+		}
+
+		/**
+		 * Moves to the next entry.
+		 *
+		 * @return true if there was another entry
+		 * @throws IOException if the file could not be read
+		 */
+		public boolean next() throws IOException { // Big(O) = O(p) - defined by the pages of the entry
+
+			int first = in.read();
+			if (first < 0) {
+				word = null;
+				pages = null;
+				return false;
+			}
+			int len = readVarint(first);
+			if (buf.length < len) {
+				buf = new byte[Math.max(len, buf.length * 2)];
+			}
+			if (in.readNBytes(buf, 0, len) != len) {
+				throw new EOFException("Run file ends part way through an entry");
+			}
+			word = new String(buf, 0, len, StandardCharsets.UTF_8);
+			int count = readVarint(in.read());
+			pages = new PageSet();
+			int page = 0;
+			for (int i = 0; i < count; i++) {
+				page += readVarint(in.read());
+				pages.add(page);
+			}
+			return true;
+		}
+
+		/**
+		 * @return the word of the current entry
+		 */
+		public String word() { // Big(O) = O(1) - No loops
+			return word;
+		}
+
+		/**
+		 * @return the pages of the current entry
+		 */
+		public PageSet pages() { // Big(O) = O(1) - No loops
+			return pages;
+		}
+
+		@Override
+		public void close() throws IOException { // Big(O) = O(1) - No loops
+			in.close();
+		}
+
+		/**
+		 * Reads a varint whose first byte has already been read.
+		 */
+		private int readVarint(int b) throws IOException { // Big(O) = O(1) - at most 5 bytes
+
+			int value = 0;
+			for (int shift = 0;; shift += 7) {
+				if (b < 0) {
+					throw new EOFException("Run file ends part way through an entry");
+				}
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+				b = in.read();
+			}
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package ie.atu.sw;
 
+import java.nio.file.Paths;
+
 /**
  * @author Brian Scott
  * @version 1.0
@@ -9,11 +11,25 @@ package ie.atu.sw;
  *          method for the application which simply insatntiates a menu object
  *          and calls it's show() method.
  *
+ *          Started with "--daemon spool [dictionary] [commonWords]" it instead
+ *          runs an IndexDaemon, indexing the jobs placed in the spool directory
+ *          without the menu. The dictionary and common words default to those
+ *          in the working directory.
+ *
  */
 public class Runner { // Big(O) = O(1) - No loops
 
 	public static void main(String[] args) throws Exception {
 
+		if (args.length >= 2 && args[0].equals("--daemon")) {
+			// run headless, taking jobs from the spool directory
+			String dir = System.getProperty("user.dir");
+			String dictionary = args.length > 2 ? args[2] : Paths.get(dir, "dictionary.csv").toString();
+			String commonWords = args.length > 3 ? args[3] : Paths.get(dir, "google-1000.txt").toString();
+			new IndexDaemon(Paths.get(args[1]), dictionary, commonWords).run();
+			return;
+		}
+
 		// Create a menu object and show it.
 		Menu myMenu = new Menu();
 		myMenu.show();
@@ -0,0 +1,309 @@
+package ie.atu.sw;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The Tokenizer object breaks a line of raw bytes into words in a
+ *          single pass. Words are separated by whitespace (space, tab, line
+ *          feed, vertical tab, form feed and carriage return, as matched by the
+ *          regex "\s"). As each word is read, every character that is not an
+ *          ASCII letter is dropped and upper case letters are folded to lower
+ *          case, straight into a buffer which is reused for every word. The
+ *          words produced are therefore exactly those of splitting the line on
+ *          "\s+" and stripping each part with replaceAll("[^a-zA-Z]", "") and
+ *          toLowerCase(), but without a regex or any String being created. A
+ *          String is only created when token() is called.
+ *
+ *          There are two backends: the scalar one, which reads a byte at a
+ *          time, and a SIMD one (see VectorScan) which reads the whole line in
+ *          blocks of 16 to 64 bytes with the incubating Vector API. Both give
+ *          exactly the same words. The SIMD backend needs the JVM to be run
+ *          with "--add-modules jdk.incubator.vector"; which backend is used is
+ *          set with the system property indexer.tokenizer: "scalar", "vector",
+ *          or "auto" (the default) to use the SIMD backend when it is
+ *          available. Words read by the SIMD backend are not at the start of
+ *          buffer(), so callers must use offset().
+ *
+ *          A Tokenizer holds state for the line it is reading, so each thread
+ *          must use it's own instance.
+ */
+public class Tokenizer {
+
+	public static final String BACKEND_PROPERTY = "indexer.tokenizer"; // "scalar", "vector" or "auto"
+
+	private static final boolean[] SPACE = new boolean[256]; // bytes treated as word separators
+	private static final boolean VECTOR_BY_DEFAULT = chooseBackend();
+
+	static {
+		SPACE[' '] = true;
+		SPACE['\t'] = true;
+		SPACE['\n'] = true;
+		SPACE[0x0B] = true;
+		SPACE['\f'] = true;
+		SPACE['\r'] = true;
+	}
+
+	private ByteBuffer src; // the line being read
+	private int pos; // position of the next byte to be read
+	private int end; // position just after the last byte of the line
+	private int lineStart; // position of the first byte of the line
+	private int start; // position of the first byte of the current word
+	private byte[] buf = new byte[64]; // stripped and lower cased characters of the current word
+	private int len; // number of characters of the current word held in buf
+	private int off; // position of the current word in buffer(), always 0 for the scalar backend
+	private final VectorScan vector; // the SIMD backend, or null for the scalar one
+	private byte[] copy = new byte[256]; // SIMD backend: the line being read, copied out of it's buffer
+	private int token; // SIMD backend: the number of the current word in the line
+
+	/**
+	 * Constructor for the Tokenizer object, using the backend chosen by the
+	 * indexer.tokenizer system property.
+	 */
+	public Tokenizer() { // Big(O) = O(1) - No loops
+		this(VECTOR_BY_DEFAULT);
+	}
+
+	/**
+	 * Constructor for the Tokenizer object, using the given backend.
+	 *
+	 * @param useVector true for the SIMD backend, false for the scalar one
+	 * @throws IllegalStateException if the SIMD backend is asked for but the
+	 *                               Vector API is not available
+	 */
+	public Tokenizer(boolean useVector) { // Big(O) = O(1) - No loops
+		if (useVector && !isVectorAvailable()) {
+			throw new IllegalStateException("The Vector API is not available - run with --add-modules jdk.incubator.vector");
+		}
+		vector = useVector ? new VectorScan() : null;
+	}
+
+	/**
+	 * @return true if the SIMD backend can be used: the jdk.incubator.vector
+	 *         module is present, and the CPU's vectors hold 8 to 64 bytes
+	 */
+	public static boolean isVectorAvailable() { // Big(O) = O(1) - No loops
+		// VectorScan is only loaded once the module is known to be there
+		return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VectorScan.isAvailable();
+	}
+
+	/**
+	 * @return a description of the backend used by default, e.g. "vector (32
+	 *         bytes)"
+	 */
+	public static String defaultBackend() { // Big(O) = O(1) - No loops
+		return VECTOR_BY_DEFAULT ? "vector (" + VectorScan.lanes() + " bytes)" : "scalar";
+	}
+
+	/**
+	 * Works out the default backend from the indexer.tokenizer system property.
+	 */
+	private static boolean chooseBackend() { // Big(O) = O(1) - No loops
+
+		String backend = System.getProperty(BACKEND_PROPERTY, "auto");
+		boolean available = isVectorAvailable();
+		if (backend.equalsIgnoreCase("vector") && !available) {
+			System.out.println("Warning: the Vector API is not available - using the scalar tokenizer");
+		}
+		return !backend.equalsIgnoreCase("scalar") && available;
+	}
+
+	/**
+	 * Sets the line to be read. The line is the range [from, to) of src; only
+	 * absolute gets are used on src.
+	 *
+	 * @param newSrc the buffer containing the line
+	 * @param from   the position of the first byte of the line
+	 * @param to     the position just after the last byte of the line
+	 */
+	public void reset(ByteBuffer newSrc, int from, int to) { // Big(O) = O(1) scalar, O(n) SIMD - the line is read
+																// at once
+		src = newSrc;
+		pos = from;
+		end = to;
+		lineStart = from;
+		len = 0;
+		if (vector != null) {
+			int n = to - from;
+			if (copy.length < n) {
+				copy = new byte[Math.max(n, copy.length * 2)];
+			}
+			newSrc.get(from, copy, 0, n);
+			vector.scan(copy, n);
+			token = -1;
+		}
+	}
+
+	/**
+	 * Sets the line to be read from an array of bytes.
+	 *
+	 * @param line the bytes of the line
+	 */
+	public void reset(byte[] line) { // Big(O) = O(1) scalar, O(n) SIMD - the line is read at once
+		if (vector != null) {
+			len = 0;
+			vector.scan(line, line.length);
+			token = -1;
+			return;
+		}
+		reset(ByteBuffer.wrap(line), 0, line.length);
+	}
+
+	/**
+	 * Moves to the next word in the line which is not empty once stripped.
+	 *
+	 * @return true if there was another word. False if the end of the line has
+	 *         been reached.
+	 */
+	public boolean next() { // Big(O) = O(n) - defined by the length of the word
+
+		if (vector != null) {
+			if (++token < vector.count()) {
+				off = vector.offset(token);
+				len = vector.length(token);
+				return true;
+			}
+			token = vector.count();
+			len = 0;
+			return false;
+		}
+
+		while (pos < end) {
+			// skip the separators before the word
+			while (pos < end && SPACE[src.get(pos) & 0xFF]) {
+				pos++;
+			}
+			start = pos;
+
+			// strip and lower case the word into the buffer
+			len = 0;
+			while (pos < end) {
+				int b = src.get(pos) & 0xFF;
+				if (SPACE[b]) {
+					break;
+				}
+				int lower = b | 0x20; // ASCII letters differ from their lower case only in bit 0x20
+				if (lower >= 'a' && lower <= 'z') {
+					append((byte) lower);
+				}
+				pos++;
+			}
+			if (len > 0) {
+				return true;
+			}
+		}
+		len = 0;
+		return false;
+	}
+
+	/**
+	 * @return the buffer holding the current word. Only the length() bytes from
+	 *         offset() are valid, and the content may change on the next call to
+	 *         next() or reset().
+	 */
+	public byte[] buffer() { // Big(O) = O(1) - No loops
+		return vector != null ? vector.buffer() : buf;
+	}
+
+	/**
+	 * @return the position of the first byte of the current word in buffer()
+	 */
+	public int offset() { // Big(O) = O(1) - No loops
+		return off;
+	}
+
+	/**
+	 * @return the length of the current word
+	 */
+	public int length() { // Big(O) = O(1) - No loops
+		return len;
+	}
+
+	/**
+	 * @return the column of the line the current word starts at, counting bytes
+	 *         from 1. Characters stripped from the start of the word are
+	 *         counted, so this is where the word starts in the raw line.
+	 */
+	public int column() { // Big(O) = O(1) - No loops
+		return vector != null ? vector.column(token) : start - lineStart + 1;
+	}
+
+	/**
+	 * Creates a String holding the current word.
+	 *
+	 * @return the current word
+	 */
+	public String token() { // Big(O) = O(n) - defined by the length of the word
+		return new String(buffer(), off, len, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Adds a character to the current word, growing the buffer if needed.
+	 */
+	private void append(byte b) { // Big(O) = O(1) - amortised
+		if (len == buf.length) {
+			byte[] bigger = new byte[buf.length * 2];
+			System.arraycopy(buf, 0, bigger, 0, len);
+			buf = bigger;
+		}
+		buf[len++] = b;
+	}
+
+	/**
+	 * Strips every character which is not an ASCII letter from a String and
+	 * converts it to lower case. Gives the same result as replaceAll("[^a-zA-Z]",
+	 * "").toLowerCase() in a single pass.
+	 *
+	 * @param s the String object to be processed
+	 * @return a stripped and lower case copy of s
+	 */
+	public static String stripAndLower(String s) { // Big(O) = O(n) - defined by number of characters in the string
+
+		byte[] out = new byte[s.length()];
+		int n = 0;
+		for (int i = 0; i < s.length(); i++) {
+			int lower = s.charAt(i) | 0x20;
+			if (lower >= 'a' && lower <= 'z') {
+				out[n++] = (byte) lower;
+			}
+		}
+		return new String(out, 0, n, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Splits a String into words on whitespace, strips and lower cases each word
+	 * as stripAndLower() does, and joins the words left with single spaces. Used
+	 * for dictionary entries, which may be phrases of several words, such as
+	 * "Holy Spirit". A String holding a single word gives the same result as
+	 * stripAndLower().
+	 *
+	 * @param s the String object to be processed
+	 * @return the stripped and lower case words of s, separated by single spaces
+	 */
+	public static String stripAndLowerWords(String s) { // Big(O) = O(n) - defined by number of characters in the
+														// string
+		byte[] out = new byte[s.length()];
+		int n = 0;
+		boolean gap = false; // a space is due before the next letter
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < 256 && SPACE[c]) {
+				gap = n > 0;
+				continue;
+			}
+			int lower = c | 0x20;
+			if (lower >= 'a' && lower <= 'z') {
+				if (gap) {
+					out[n++] = ' ';
+					gap = false;
+				}
+				out[n++] = (byte) lower;
+			}
+		}
+		return new String(out, 0, n, StandardCharsets.ISO_8859_1);
+	}
+}
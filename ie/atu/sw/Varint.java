@@ -0,0 +1,73 @@
+package ie.atu.sw;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Helpers for reading and writing variable length integers (LEB128):
+ *          seven bits of the value per byte, lowest bits first, with the top
+ *          bit of each byte set when more bytes follow. Small values, such as
+ *          the gaps between sorted page numbers, take a single byte. Only
+ *          non-negative values are supported.
+ */
+public final class Varint {
+
+	private Varint() {
+	}
+
+	/**
+	 * Writes a value to a stream.
+	 *
+	 * @param out   the stream to write to
+	 * @param value the non-negative value to be written
+	 */
+	public static void write(ByteArrayOutputStream out, int value) { // Big(O) = O(1) - at most 5 bytes
+
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * Writes a value into an array. The array must have room for 5 bytes at pos.
+	 *
+	 * @param buf   the array to write to
+	 * @param pos   the position to write at
+	 * @param value the non-negative value to be written
+	 * @return the position just after the value
+	 */
+	public static int write(byte[] buf, int pos, int value) { // Big(O) = O(1) - at most 5 bytes
+
+		while ((value & ~0x7F) != 0) {
+			buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buf[pos++] = (byte) value;
+		return pos;
+	}
+
+	/**
+	 * Reads a value from the current position of a buffer, moving the position
+	 * past it.
+	 *
+	 * @param in the buffer to read from
+	 * @return the value
+	 */
+	public static int read(ByteBuffer in) { // Big(O) = O(1) - at most 5 bytes
+
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = in.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+}
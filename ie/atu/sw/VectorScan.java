@@ -0,0 +1,190 @@
+package ie.atu.sw;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The VectorScan object is the SIMD backend of the Tokenizer. It reads
+ *          a whole line at once, a block of 16 to 64 bytes at a time (as many
+ *          as the CPU's vector registers hold), using the incubating Vector
+ *          API:
+ *
+ *          > every byte of the block is compared with the separators and the
+ *          letters at once, giving a bit mask of each. > the bytes are lower
+ *          cased by setting bit 0x20 of all of them, and the letters are packed
+ *          together (compress) and stored in one go. > the token boundaries are
+ *          then found from the separator mask with bit counting, rather than by
+ *          looking at each byte.
+ *
+ *          Blocks holding any byte outside ASCII, and the last few bytes of the
+ *          line, are read a byte at a time instead. Either way the tokens are
+ *          exactly those of the scalar Tokenizer.
+ *
+ *          Only loaded when jdk.incubator.vector is present (see Tokenizer);
+ *          each Tokenizer has it's own.
+ */
+final class VectorScan {
+
+	private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+	private static final long LANE_BITS = LANES == 64 ? -1L : (1L << LANES) - 1;
+
+	private byte[] out = new byte[256]; // the letters of the line, lower cased and packed together
+	private int[] tokens = new int[96]; // for each token: it's offset in out, length and column
+	private int count; // number of tokens in the line
+	private int written; // bytes of out in use
+	private int tokenStart; // position in the line of the current token's first byte, -1 between tokens
+	private int tokenOut; // position in out of the current token's first letter
+
+	/**
+	 * @return true if the Vector API can be used
+	 */
+	static boolean isAvailable() { // Big(O) = O(1) - No loops
+		return LANES >= 8 && LANES <= 64;
+	}
+
+	/**
+	 * @return the number of bytes read per block
+	 */
+	static int lanes() { // Big(O) = O(1) - No loops
+		return LANES;
+	}
+
+	/**
+	 * Splits a line into tokens, replacing those of the last line.
+	 *
+	 * @param line the bytes of the line
+	 * @param n    the number of bytes of line holding the line
+	 */
+	void scan(byte[] line, int n) { // Big(O) = O(n / l + t) - defined by the blocks and tokens of the line
+
+		if (out.length < n + LANES) {
+			out = new byte[Math.max(n + LANES, out.length * 2)];
+		}
+		if (tokens.length < 3 * (n / 2 + 1)) { // a token takes at least 2 bytes, with it's separator
+			tokens = new int[Math.max(3 * (n / 2 + 1), tokens.length * 2)];
+		}
+		count = 0;
+		written = 0;
+		tokenStart = -1;
+
+		int i = 0;
+		for (; i + LANES <= n; i += LANES) {
+			ByteVector v = ByteVector.fromArray(SPECIES, line, i);
+			if (v.compare(VectorOperators.LT, (byte) 0).anyTrue()) {
+				scalar(line, i, i + LANES); // not ASCII
+				continue;
+			}
+			// separators are ' ' and '\t' to '\r'; letters are 'a' to 'z' once bit 0x20 is set
+			VectorMask<Byte> space = v.compare(VectorOperators.EQ, (byte) ' ')
+					.or(v.compare(VectorOperators.GE, (byte) '\t').and(v.compare(VectorOperators.LE, (byte) '\r')));
+			ByteVector lower = v.or((byte) 0x20);
+			VectorMask<Byte> letter = lower.compare(VectorOperators.GE, (byte) 'a')
+					.and(lower.compare(VectorOperators.LE, (byte) 'z'));
+			lower.compress(letter).intoArray(out, written);
+			boundaries(i, space.toLong(), letter.toLong());
+		}
+		scalar(line, i, n);
+		if (tokenStart >= 0) {
+			endToken(written);
+		}
+	}
+
+	/**
+	 * @return the number of tokens in the line
+	 */
+	int count() { // Big(O) = O(1) - No loops
+		return count;
+	}
+
+	/**
+	 * @return the array holding the letters of every token
+	 */
+	byte[] buffer() { // Big(O) = O(1) - No loops
+		return out;
+	}
+
+	int offset(int token) { // Big(O) = O(1) - No loops
+		return tokens[3 * token];
+	}
+
+	int length(int token) { // Big(O) = O(1) - No loops
+		return tokens[3 * token + 1];
+	}
+
+	int column(int token) { // Big(O) = O(1) - No loops
+		return tokens[3 * token + 2];
+	}
+
+	/**
+	 * Finds the starts and ends of tokens in a block from it's masks, bit i of
+	 * each mask being byte i of the block. The letters of the block have already
+	 * been stored at written.
+	 */
+	private void boundaries(int block, long space, long letter) { // Big(O) = O(t) - defined by the tokens of the
+																	// block
+		int pos = 0;
+		while (pos < LANES) {
+			if (tokenStart < 0) {
+				long starts = ~space & LANE_BITS & (-1L << pos);
+				if (starts == 0) {
+					break;
+				}
+				pos = Long.numberOfTrailingZeros(starts);
+				tokenStart = block + pos;
+				tokenOut = written + Long.bitCount(letter & ((1L << pos) - 1));
+			} else {
+				long ends = space & (-1L << pos);
+				if (ends == 0) {
+					break;
+				}
+				pos = Long.numberOfTrailingZeros(ends);
+				endToken(written + Long.bitCount(letter & ((1L << pos) - 1)));
+			}
+		}
+		written += Long.bitCount(letter);
+	}
+
+	/**
+	 * Reads the bytes [from, to) of a line one at a time.
+	 */
+	private void scalar(byte[] line, int from, int to) { // Big(O) = O(n) - defined by the bytes read
+
+		for (int j = from; j < to; j++) {
+			int b = line[j] & 0xFF;
+			if (b == ' ' || (b >= '\t' && b <= '\r')) {
+				if (tokenStart >= 0) {
+					endToken(written);
+				}
+				continue;
+			}
+			if (tokenStart < 0) {
+				tokenStart = j;
+				tokenOut = written;
+			}
+			int lower = b | 0x20;
+			if (lower >= 'a' && lower <= 'z') {
+				out[written++] = (byte) lower;
+			}
+		}
+	}
+
+	/**
+	 * Ends the current token, keeping it if it has any letters.
+	 */
+	private void endToken(int end) { // Big(O) = O(1) - No loops
+		if (end > tokenOut) {
+			tokens[3 * count] = tokenOut;
+			tokens[3 * count + 1] = end - tokenOut;
+			tokens[3 * count + 2] = tokenStart + 1;
+			count++;
+		}
+		tokenStart = -1;
+	}
+}
@@ -1,9 +1,12 @@
 package ie.atu.sw;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.*;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
 
 /**
  * @author Brian Scott
@@ -20,7 +23,7 @@ import java.util.ArrayList;
  */
 public class WordPages {
 
-	private Map<String, ConcurrentSkipListSet<String>> mapWordPages = new ConcurrentSkipListMap<String, ConcurrentSkipListSet<String>>();
+	private Map<String, PageSet> mapWordPages = new ConcurrentSkipListMap<String, PageSet>();
 
 	/**
 	 * Adds a word and it's current page to the object. If the word already exists,
@@ -31,18 +34,66 @@ public class WordPages {
 	 * @param word the word to be added to the object
 	 * @param page the page associated with that word
 	 */
-	public void add(String word, String page) { // Big(O) = O(log n) - Contains on a map object
+	public void add(String word, int page) { // Big(O) = O(log n) - Contains on a map object
+
+		// find the word's set of pages, creating it if the word is new, then add this
+		// page to it if it's not already there. PageSet is not thread safe, so
+		// threads adding to the same word take turns.
+		PageSet pages = mapWordPages.computeIfAbsent(word, k -> new PageSet());
+		synchronized (pages) {
+			pages.add(page);
+		}
+	}
 
-		ConcurrentSkipListSet<String> newPages = new ConcurrentSkipListSet<String>();
+	/**
+	 * Adds a word and a set of pages to the object. If the word already exists,
+	 * the pages are added to the existing set of pages in the entry. Otherwise the
+	 * set itself is kept, so must not be changed by the caller afterwards.
+	 * 
+	 * @param word  the word to be added to the object
+	 * @param pages the pages associated with that word
+	 */
+	public void addAll(String word, PageSet pages) { // Big(O) = O(log n + p) - put on a map object, plus the pages
 
-		// if the word already exists, add this page to the set of pages if it's not
-		// already there.
-		if (mapWordPages.containsKey(word)) {
-			newPages = mapWordPages.get(word);
+		PageSet existing = mapWordPages.putIfAbsent(word, pages);
+		if (existing != null && existing != pages) {
+			synchronized (existing) {
+				existing.addAll(pages);
+			}
 		}
+	}
 
-		newPages.add(page);
-		mapWordPages.put(word, newPages);
+	/**
+	 * Adds a word together with a complete set of pages, replacing any pages
+	 * already held for the word. Used when loading a saved index.
+	 * 
+	 * @param word  the word to be added to the object
+	 * @param pages the pages associated with that word
+	 */
+	public void put(String word, PageSet pages) { // Big(O) = O(log n) - put on a map object
+		mapWordPages.put(word, pages);
+	}
+
+	/**
+	 * Removes the given pages from every word, dropping any word left with no
+	 * pages. Used when the content of those pages has changed and is to be read
+	 * again.
+	 * 
+	 * @param pages the pages to be removed, bit n being set to remove page n
+	 */
+	public void removePages(BitSet pages) { // Big(O) = O(n * p) - defined by the words and pages removed
+
+		for (Iterator<PageSet> it = mapWordPages.values().iterator(); it.hasNext();) {
+			PageSet set = it.next();
+			synchronized (set) {
+				for (int p = pages.nextSetBit(0); p >= 0; p = pages.nextSetBit(p + 1)) {
+					set.remove(p);
+				}
+				if (set.isEmpty()) {
+					it.remove();
+				}
+			}
+		}
 	}
 
 	/**
@@ -66,7 +117,7 @@ public class WordPages {
 		StringBuilder result = new StringBuilder();
 
 		// Build a string containing a list of all words and their pages in this object
-		for (Map.Entry<String, ConcurrentSkipListSet<String>> i : mapWordPages.entrySet()) {
+		for (Map.Entry<String, PageSet> i : mapWordPages.entrySet()) {
 			result.append(i.getKey() + " : " + i.getValue() + "\n");
 		}
 
@@ -83,7 +134,7 @@ public class WordPages {
 		ArrayList<String> ar = new ArrayList<String>();
 
 		// build an ArrayList containing a list of all words in this object
-		for (Map.Entry<String, ConcurrentSkipListSet<String>> i : mapWordPages.entrySet()) {
+		for (Map.Entry<String, PageSet> i : mapWordPages.entrySet()) {
 			ar.add(i.getKey());
 		}
 
@@ -91,13 +142,27 @@ public class WordPages {
 
 	}
 
+	/**
+	 * Passes each word and it's pages to action, in order of word, in one pass
+	 * over the object rather than a lookup for each word.
+	 * 
+	 * @param action the action to perform on each word and it's pages
+	 * @throws IOException if action throws it
+	 */
+	public void forEach(WordPagesAccumulator.EntryAction action) throws IOException { // Big(O) = O(n) - defined
+																						// by the number of words
+		for (Map.Entry<String, PageSet> i : mapWordPages.entrySet()) {
+			action.accept(i.getKey(), i.getValue());
+		}
+	}
+
 	/**
 	 * Returns the pages associated with a word
 	 * 
 	 * @param s the word to be searched for
-	 * @return the set of pages the word appears on
+	 * @return the set of pages the word appears on, in numeric order
 	 */
-	public ConcurrentSkipListSet<String> getPages(String s) { // Big(O) = O(1) - no loops
+	public PageSet getPages(String s) { // Big(O) = O(1) - no loops
 
 		return mapWordPages.get(s);
 
@@ -0,0 +1,403 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The WordPagesAccumulator object gathers words and the pages they
+ *          appear on from many threads at once, without the threads sharing
+ *          anything while they do. Each thread adds to it's own private,
+ *          unsynchronised table of word to pages, so adding takes no locks and
+ *          threads never wait on each other.
+ *
+ *          Once every thread has finished adding, the tables are combined by a
+ *          merge tree: each round merges the tables in pairs, in parallel,
+ *          halving the number of tables, until one is left. The result is
+ *          then added to a WordPages object.
+ *
+ *          Given a MemoryBudget, the tables are kept within it: once the tables
+ *          (of this and any other accumulator sharing the budget) take up more
+ *          than the budget allows, the thread adding at the time writes it's
+ *          table to disk as a sorted run and starts an empty one. The words and
+ *          pages are then read back by forEachSorted(), which merges the runs
+ *          (a k-way merge, reading one entry of each run at a time) so the
+ *          whole index is never held in memory at once.
+ *
+ *          The tables must only be merged once all adding has finished (for
+ *          example, after the ChunkedIngester reading the file has returned),
+ *          and an accumulator is merged only once.
+ */
+public class WordPagesAccumulator {
+
+	private static final long ENTRY_BYTES = 48; // estimated heap taken by an entry of a table, besides it's pages
+	private static final long REPORT_BYTES = 1 << 16; // growth of a table reported to the budget at once
+
+	private final MemoryBudget budget; // null: the tables may grow without limit
+	private final long report; // growth of a table reported to the budget at once
+	private final ConcurrentLinkedQueue<Table> tables = new ConcurrentLinkedQueue<Table>();
+	private final ConcurrentLinkedQueue<Path> runs = new ConcurrentLinkedQueue<Path>(); // tables written to disk
+	private final ThreadLocal<Table> local = ThreadLocal.withInitial(() -> {
+		Table table = new Table();
+		tables.add(table); // registered so it can be found again when merging
+		return table;
+	});
+
+	/**
+	 * A thread's table, and the heap it's estimated to take up.
+	 */
+	private static final class Table {
+		private Map<String, PageSet> map = new HashMap<String, PageSet>();
+		private long bytes; // estimated heap taken by map
+		private long unreported; // part of bytes not yet reported to the budget
+	}
+
+	/**
+	 * Callback which receives each word and it's pages, in order of word.
+	 */
+	@FunctionalInterface
+	public interface EntryAction {
+		void accept(String word, PageSet pages) throws IOException;
+	}
+
+	/**
+	 * Callback which receives each word and it's pages in each of several
+	 * accumulators, in order of word.
+	 */
+	@FunctionalInterface
+	public interface MergedEntryAction {
+		/**
+		 * @param word  the word
+		 * @param pages the pages of the word in each accumulator, in the order the
+		 *              accumulators were given, with null for those the word is not
+		 *              in. The array is reused for the next word.
+		 */
+		void accept(String word, PageSet[] pages) throws IOException;
+	}
+
+	/**
+	 * Constructor for a WordPagesAccumulator whose tables may grow without limit.
+	 */
+	public WordPagesAccumulator() { // Big(O) = O(1) - No loops
+		this(null);
+	}
+
+	/**
+	 * Constructor for a WordPagesAccumulator whose tables are kept within a
+	 * budget.
+	 *
+	 * @param newBudget the budget, which may be shared with other accumulators,
+	 *                  or null for no limit
+	 */
+	public WordPagesAccumulator(MemoryBudget newBudget) { // Big(O) = O(1) - No loops
+		budget = newBudget;
+		report = budget == null ? 0 : Math.max(1, Math.min(REPORT_BYTES, budget.limit() / 16));
+	}
+
+	/**
+	 * Adds a word and the page it was found on to the calling thread's table.
+	 *
+	 * @param word the word
+	 * @param page the page the word was found on
+	 */
+	public void add(String word, int page) { // Big(O) = O(1) - hash table
+		Table table = local.get();
+		if (budget == null) {
+			table.map.computeIfAbsent(word, k -> new PageSet()).add(page);
+			return;
+		}
+		PageSet pages = table.map.get(word);
+		long before;
+		if (pages == null) {
+			pages = new PageSet();
+			table.map.put(word, pages);
+			before = -ENTRY_BYTES;
+		} else {
+			before = pages.bytes();
+		}
+		pages.add(page);
+		grow(table, pages.bytes() - before);
+	}
+
+	/**
+	 * Adds a word and a set of pages it was found on to the calling thread's
+	 * table. The set may be kept by the table, so must not be changed by the
+	 * caller afterwards.
+	 *
+	 * @param word  the word
+	 * @param pages the pages the word was found on
+	 */
+	public void addAll(String word, PageSet pages) { // Big(O) = O(p) - defined by the number of pages
+		Table table = local.get();
+		if (budget == null) {
+			table.map.merge(word, pages, (x, y) -> {
+				x.addAll(y);
+				return x;
+			});
+			return;
+		}
+		PageSet existing = table.map.get(word);
+		if (existing == null) {
+			table.map.put(word, pages);
+			grow(table, ENTRY_BYTES + pages.bytes());
+		} else {
+			long before = existing.bytes();
+			existing.addAll(pages);
+			grow(table, existing.bytes() - before);
+		}
+	}
+
+	/**
+	 * @return true if any table has been written to disk
+	 */
+	public boolean hasSpilled() { // Big(O) = O(1) - No loops
+		return !runs.isEmpty();
+	}
+
+	/**
+	 * Merges the tables of every thread and adds the result to a WordPages object.
+	 * If any table has been written to disk, the runs are merged back in as well
+	 * (see forEachSorted()).
+	 *
+	 * @param target the WordPages object the words and pages are added to
+	 * @return target
+	 */
+	public WordPages mergeInto(WordPages target) { // Big(O) = O(n log t) - defined by the entries and tables
+
+		if (hasSpilled()) {
+			try {
+				forEachSorted(target::addAll);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return target;
+		}
+		Map<String, PageSet> merged = merge().map;
+		merged.forEach(target::addAll);
+		return target;
+	}
+
+	/**
+	 * Passes every word and it's pages to action, in order of word, reading back
+	 * any tables written to disk. What is still in memory is written out as one
+	 * more run first, so the entries come from a k-way merge of the runs, one
+	 * entry of each run being held at a time. The runs are deleted afterwards.
+	 *
+	 * @param action the action performed on each word and it's pages
+	 * @throws IOException if a run could not be written or read
+	 */
+	public void forEachSorted(EntryAction action) throws IOException { // Big(O) = O(n log r) - defined by the
+																		// entries and runs
+		forEachSorted(new WordPagesAccumulator[] { this }, (word, pages) -> action.accept(word, pages[0]));
+	}
+
+	/**
+	 * Passes every word and it's pages in each of several accumulators (the
+	 * documents of a corpus, say) to action, in order of word, with one k-way
+	 * merge of the runs of all of them. Each accumulator is merged only once.
+	 *
+	 * @param sources the accumulators
+	 * @param action  the action performed on each word and it's pages
+	 * @throws IOException if a run could not be written or read
+	 */
+	public static void forEachSorted(WordPagesAccumulator[] sources, MergedEntryAction action)
+			throws IOException { // Big(O) = O(n log r) - defined by the entries and runs
+
+		record Head(RunFile.Cursor cursor, int source) {
+		}
+		List<RunFile.Cursor> open = new ArrayList<RunFile.Cursor>();
+		PriorityQueue<Head> queue = new PriorityQueue<Head>(Comparator.comparing((Head h) -> h.cursor().word()));
+		try {
+			for (int i = 0; i < sources.length; i++) {
+				sources[i].spillRest();
+				for (Path run : sources[i].runs) {
+					RunFile.Cursor cursor = new RunFile.Cursor(run);
+					open.add(cursor);
+					if (cursor.next()) {
+						queue.add(new Head(cursor, i));
+					}
+				}
+			}
+
+			PageSet[] pages = new PageSet[sources.length];
+			while (!queue.isEmpty()) {
+				String word = queue.peek().cursor().word();
+				Arrays.fill(pages, null);
+				while (!queue.isEmpty() && queue.peek().cursor().word().equals(word)) {
+					Head head = queue.poll();
+					PageSet p = head.cursor().pages();
+					PageSet have = pages[head.source()];
+					if (have == null) {
+						pages[head.source()] = p;
+					} else if (have.size() < p.size()) { // the smaller set is added into the larger
+						p.addAll(have);
+						pages[head.source()] = p;
+					} else {
+						have.addAll(p);
+					}
+					if (head.cursor().next()) {
+						queue.add(head);
+					}
+				}
+				action.accept(word, pages);
+			}
+		} finally {
+			for (RunFile.Cursor cursor : open) {
+				cursor.close();
+			}
+			for (WordPagesAccumulator source : sources) {
+				source.deleteRuns();
+			}
+		}
+	}
+
+	/**
+	 * Merges the tables of every thread and adds the result to a new WordPages
+	 * object.
+	 *
+	 * @return the words and pages added to this object
+	 */
+	public WordPages toWordPages() { // Big(O) = O(n log t) - defined by the entries and tables
+		return mergeInto(new WordPages());
+	}
+
+	/**
+	 * Merges the tables of every thread into one, with a merge tree. Each round
+	 * merges table i with table i + half, in parallel, until one table is left.
+	 * The tables are emptied as they are merged.
+	 *
+	 * @return the merged table
+	 */
+	private Table merge() { // Big(O) = O(n log t) - defined by the entries and tables
+
+		List<Table> level = List.copyOf(tables);
+		tables.clear();
+		local.remove();
+		if (level.isEmpty()) {
+			return new Table();
+		}
+
+		while (level.size() > 1) {
+			List<Table> round = level;
+			int half = (round.size() + 1) / 2;
+			level = IntStream.range(0, half).parallel()
+					.mapToObj(i -> i + half < round.size() ? merge(round.get(i), round.get(i + half)) : round.get(i))
+					.toList();
+		}
+		return level.get(0);
+	}
+
+	/**
+	 * Merges two tables, adding the smaller into the larger. Where a word is in
+	 * both, the smaller set of pages is added into the larger.
+	 *
+	 * @return the merged table (one of ta and tb)
+	 */
+	private static Table merge(Table ta, Table tb) { // Big(O) = O(n) - smaller table
+
+		Map<String, PageSet> a = ta.map;
+		Map<String, PageSet> b = tb.map;
+		if (a.size() < b.size()) {
+			Map<String, PageSet> t = a;
+			a = b;
+			b = t;
+		}
+		for (Map.Entry<String, PageSet> e : b.entrySet()) {
+			a.merge(e.getKey(), e.getValue(), (x, y) -> {
+				if (x.size() < y.size()) {
+					y.addAll(x);
+					return y;
+				}
+				x.addAll(y);
+				return x;
+			});
+		}
+		b.clear();
+		ta.map = a;
+		ta.bytes += tb.bytes; // an estimate; shared words are counted twice
+		ta.unreported += tb.unreported;
+		tb.bytes = 0;
+		tb.unreported = 0;
+		return ta;
+	}
+
+	/**
+	 * Records that a table has grown, reporting the growth to the budget once
+	 * enough has built up, and writes the table to disk if the budget is then
+	 * exceeded.
+	 */
+	private void grow(Table table, long bytes) { // Big(O) = O(1), O(n log n) when the table is written
+		table.bytes += bytes;
+		table.unreported += bytes;
+		if (table.unreported >= report) {
+			boolean over = budget.grow(table.unreported);
+			table.unreported = 0;
+			if (over) {
+				try {
+					spill(table);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a table to disk as a sorted run, and empties it.
+	 */
+	private void spill(Table table) throws IOException { // Big(O) = O(n log n) - sorting the table
+
+		if (table.map.isEmpty()) {
+			return;
+		}
+		Path run = budget.newRun();
+		runs.add(run);
+		budget.written(RunFile.write(run, table.map));
+		budget.grow(table.unreported - table.bytes); // what had been reported
+		table.map = new HashMap<String, PageSet>();
+		table.bytes = 0;
+		table.unreported = 0;
+	}
+
+	/**
+	 * Writes what is left in memory to disk as one more run, once all adding has
+	 * finished.
+	 */
+	private void spillRest() throws IOException { // Big(O) = O(n log n) - sorting the table
+
+		Table rest = merge();
+		if (rest.map.isEmpty()) {
+			return;
+		}
+		Path run = budget != null ? budget.newRun() : Files.createTempFile("indexer-run-", ".tmp");
+		runs.add(run);
+		long size = RunFile.write(run, rest.map);
+		if (budget != null) {
+			budget.written(size);
+			budget.grow(rest.unreported - rest.bytes);
+		}
+	}
+
+	/**
+	 * Deletes the runs written to disk, once they have been read.
+	 */
+	private void deleteRuns() throws IOException { // Big(O) = O(r) - defined by the number of runs
+		for (Path run; (run = runs.poll()) != null;) {
+			Files.deleteIfExists(run);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package ie.atu.sw.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Helpers shared by the benchmarks: building synthetic corpora and
+ *          timing a piece of work while recording how many bytes were allocated
+ *          while doing it, and how many garbage collections it caused. These
+ *          are the kind of figures JMH's GC profiler ("-prof gc") gives, but
+ *          measure() is only a simple timing loop: it runs in the same JVM as
+ *          everything else, with no forks and no guard against dead code, so
+ *          it's figures are a rough guide and won't match JMH's. The Parser
+ *          stages are measured with JMH (see ParserBenchmark). Allocation is
+ *          read from the HotSpot counter of bytes allocated by all threads, so
+ *          work spread over thread pools is counted, and the figures are only
+ *          meaningful on a HotSpot JVM.
+ *
+ *          Runs are sized with system properties: bench.warmups and
+ *          bench.iterations (unmeasured and measured calls of each benchmark).
+ */
+public class Bench {
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	private static final int WARMUPS = intProperty("bench.warmups", 3);
+	private static final int ITERATIONS = intProperty("bench.iterations", 5);
+
+	/**
+	 * The result of the measured calls of a benchmark.
+	 */
+	public record Result(String name, long ops, long nanos, long bytes, long gcCount, long gcMillis) {
+
+		/**
+		 * @return a single line summary of throughput, allocation and GC activity
+		 */
+		@Override
+		public String toString() { // Big(O) = O(1) - No loops
+			double secs = nanos / 1e9;
+			return String.format("%-30s %13.0f ops/s %10.1f ns/op %10.1f B/op %9.1f MB/s alloc %4d gc %6d ms gc",
+					name, ops / secs, (double) nanos / ops, (double) bytes / ops, bytes / secs / (1024 * 1024), gcCount,
+					gcMillis);
+		}
+	}
+
+	/**
+	 * Measures a piece of work which needs no set up. See measure(String, long,
+	 * Supplier, Consumer).
+	 */
+	public static Result measure(String name, long ops, Runnable work) { // Big(O) = O(i) - number of iterations
+		return measure(name, ops, () -> null, x -> work.run());
+	}
+
+	/**
+	 * Calls work bench.warmups times to warm it up, then bench.iterations times
+	 * while measuring elapsed time, bytes allocated and garbage collections. The
+	 * setup for each call is made before it and is not measured. Anything printed
+	 * to System.out by the setup or work is discarded.
+	 *
+	 * @param name  the name to report the result under
+	 * @param ops   the number of operations one call of work performs
+	 * @param setup creates the state each call of work is given
+	 * @param work  the work to be measured
+	 * @return the measured result
+	 */
+	public static <T> Result measure(String name, long ops, Supplier<T> setup, Consumer<T> work) { // Big(O) = O(i)
+
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			for (int i = 0; i < WARMUPS; i++) {
+				work.accept(setup.get());
+			}
+
+			long nanos = 0;
+			long bytes = 0;
+			long gcCount = 0;
+			long gcMillis = 0;
+			for (int i = 0; i < ITERATIONS; i++) {
+				T state = setup.get();
+				long gcCountBefore = gcCount();
+				long gcMillisBefore = gcMillis();
+				long bytesBefore = THREADS.getTotalThreadAllocatedBytes();
+				long start = System.nanoTime();
+				work.accept(state);
+				nanos += System.nanoTime() - start;
+				bytes += THREADS.getTotalThreadAllocatedBytes() - bytesBefore;
+				gcCount += gcCount() - gcCountBefore;
+				gcMillis += gcMillis() - gcMillisBefore;
+			}
+			return new Result(name, ops * ITERATIONS, nanos, bytes, gcCount, gcMillis);
+		} finally {
+			System.setOut(console);
+		}
+	}
+
+	/**
+	 * Gets a value with anything printed to System.out while getting it
+	 * discarded, for setting up a benchmark outside of measure().
+	 *
+	 * @param setup creates the value
+	 * @return the value
+	 */
+	public static <T> T quietly(Supplier<T> setup) { // Big(O) = O(1) - No loops
+
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			return setup.get();
+		} finally {
+			System.setOut(console);
+		}
+	}
+
+	/**
+	 * @return the number of garbage collections so far, across all collectors
+	 */
+	private static long gcCount() { // Big(O) = O(c) - defined by the number of collectors
+		long n = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			n += Math.max(0, gc.getCollectionCount());
+		}
+		return n;
+	}
+
+	/**
+	 * @return the time spent in garbage collection so far, across all collectors
+	 */
+	private static long gcMillis() { // Big(O) = O(c) - defined by the number of collectors
+		long n = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			n += Math.max(0, gc.getCollectionTime());
+		}
+		return n;
+	}
+
+	/**
+	 * Creates a vocabulary of random lower case words.
+	 *
+	 * @param size the number of words
+	 * @param seed the seed for the random number generator
+	 * @return the words
+	 */
+	public static String[] vocabulary(int size, long seed) { // Big(O) = O(n) - defined by the size
+		Random r = new Random(seed);
+		String[] words = new String[size];
+		for (int i = 0; i < size; i++) {
+			char[] c = new char[2 + r.nextInt(9)];
+			for (int j = 0; j < c.length; j++) {
+				c[j] = (char) ('a' + r.nextInt(26));
+			}
+			words[i] = new String(c);
+		}
+		return words;
+	}
+
+	/**
+	 * Creates a corpus of lines of text drawn from a vocabulary, with a mix of
+	 * capitalisation and punctuation.
+	 *
+	 * @param vocab        the words to draw from
+	 * @param lines        the number of lines
+	 * @param wordsPerLine the average number of words on each line
+	 * @param seed         the seed for the random number generator
+	 * @return the lines, encoded as UTF-8
+	 */
+	public static byte[][] corpus(String[] vocab, int lines, int wordsPerLine, long seed) { // Big(O) = O(n) - defined
+																							// by the size
+		Random r = new Random(seed);
+		String[] punctuation = { "", "", "", ",", ".", ";", "!", "'s", "--" };
+		byte[][] out = new byte[lines][];
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			sb.setLength(0);
+			int n = r.nextInt(wordsPerLine * 2 + 1);
+			for (int j = 0; j < n; j++) {
+				String w = vocab[r.nextInt(vocab.length)];
+				if (r.nextInt(8) == 0) {
+					w = Character.toUpperCase(w.charAt(0)) + w.substring(1);
+				}
+				sb.append(j == 0 ? "" : (r.nextInt(10) == 0 ? "\t" : " ")).append(w)
+						.append(punctuation[r.nextInt(punctuation.length)]);
+			}
+			out[i] = sb.toString().getBytes(StandardCharsets.UTF_8);
+		}
+		return out;
+	}
+
+	/**
+	 * Writes lines to a file, each followed by a line feed.
+	 *
+	 * @param file  the file to write
+	 * @param lines the lines, already encoded
+	 * @return the number of bytes written
+	 * @throws IOException if the file could not be written
+	 */
+	public static long writeLines(Path file, byte[][] lines) throws IOException { // Big(O) = O(n) - size of the lines
+
+		try (var out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+			for (byte[] line : lines) {
+				out.write(line);
+				out.write('\n');
+			}
+		}
+		return Files.size(file);
+	}
+
+	/**
+	 * @return the named system property as an int, or def if it is not set
+	 */
+	public static int intProperty(String name, int def) { // Big(O) = O(1) - No loops
+		return Integer.getInteger(name, def);
+	}
+}
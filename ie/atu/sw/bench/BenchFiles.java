@@ -0,0 +1,191 @@
+package ie.atu.sw.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import ie.atu.sw.Dictionary;
+import ie.atu.sw.DictionarySnapshot;
+import ie.atu.sw.Parser;
+import ie.atu.sw.Tokenizer;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          The synthetic files the JMH benchmarks run the Parser over, written
+ *          to a temporary directory once for each trial and deleted after it:
+ *          an input file, a dictionary CSV and a common words file, drawn from
+ *          the same vocabulary so some dictionary words are excluded and some
+ *          input words are in neither.
+ *
+ *          The files are sized with JMH parameters (-p name=value): lines
+ *          (lines of input), wordsPerLine (average words per line), vocabSize
+ *          (distinct words in the input), dictSize (dictionary entries) and
+ *          commonSize (common words).
+ *
+ *          The Parser reports it's progress on System.out, which would bury the
+ *          results, so System.out is discarded while the files are in use.
+ */
+@State(Scope.Benchmark)
+public class BenchFiles {
+
+	@Param("200000")
+	public int lines;
+	@Param("10")
+	public int wordsPerLine;
+	@Param("50000")
+	public int vocabSize;
+	@Param("40000")
+	public int dictSize;
+	@Param("1000")
+	public int commonSize;
+
+	Path dir;
+	Path input;
+	Path dictionary;
+	Path common;
+	Path output;
+	byte[][] corpus;
+	String[] vocab;
+	long tokens; // tokens in the input file
+
+	private PrintStream console;
+
+	/**
+	 * Writes the files for a trial.
+	 *
+	 * @throws IOException if a file could not be written
+	 */
+	@Setup(Level.Trial)
+	public void write() throws IOException { // Big(O) = O(n) - defined by the size of the files
+
+		console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+		dir = Files.createTempDirectory("indexer-bench");
+		input = dir.resolve("input.txt");
+		dictionary = dir.resolve("dictionary.csv");
+		common = dir.resolve("common.txt");
+		output = dir.resolve("index.txt");
+
+		vocab = Bench.vocabulary(vocabSize, 1);
+		corpus = Bench.corpus(vocab, lines, wordsPerLine, 2);
+		Bench.writeLines(input, corpus);
+
+		byte[][] commonLines = new byte[Math.min(commonSize, vocab.length)][];
+		for (int i = 0; i < commonLines.length; i++) {
+			commonLines[i] = vocab[i].getBytes(StandardCharsets.UTF_8);
+		}
+		Bench.writeLines(common, commonLines);
+
+		Random r = new Random(3);
+		byte[][] dictLines = new byte[Math.min(dictSize, vocab.length)][];
+		for (int i = 0; i < dictLines.length; i++) {
+			String word = vocab[(i + commonLines.length / 2) % vocab.length];
+			String def = "the " + vocab[r.nextInt(vocab.length)] + " of " + vocab[r.nextInt(vocab.length)];
+			dictLines[i] = (Character.toUpperCase(word.charAt(0)) + word.substring(1) + "," + def)
+					.getBytes(StandardCharsets.UTF_8);
+		}
+		Bench.writeLines(dictionary, dictLines);
+
+		Tokenizer tokenizer = new Tokenizer();
+		for (byte[] line : corpus) {
+			tokenizer.reset(line);
+			while (tokenizer.next()) {
+				tokens++;
+			}
+		}
+	}
+
+	/**
+	 * Deletes the temporary directory and everything written to it.
+	 *
+	 * @throws IOException if a file could not be deleted
+	 */
+	@TearDown(Level.Trial)
+	public void delete() throws IOException { // Big(O) = O(f) - defined by the number of files
+
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path f : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.deleteIfExists(f);
+			}
+		} finally {
+			System.setOut(console);
+		}
+	}
+
+	/**
+	 * @return a Parser of the files, with nothing loaded
+	 */
+	Parser newParser() { // Big(O) = O(1) - No loops
+		return new Parser(output.toString(), input.toString(), dictionary.toString(), common.toString());
+	}
+
+	/**
+	 * @return a Parser of the files with the common words loaded, and the
+	 *         dictionary too if dictionary is true
+	 */
+	Parser loadedParser(boolean dictionary) { // Big(O) = O(n) - defined by the size of the files
+		Parser p = newParser();
+		p.loadCommonWords();
+		if (dictionary) {
+			p.loadDictionary();
+		}
+		return check(p);
+	}
+
+	/**
+	 * @return the frozen dictionary, as loaded by a Parser
+	 */
+	Dictionary loadDictionary() { // Big(O) = O(n) - defined by the size of the dictionary
+
+		loadedParser(true); // saves the snapshot
+		Dictionary dict = DictionarySnapshot.load(snapshot(), dictionary, common);
+		if (dict == null) {
+			throw new IllegalStateException("Dictionary snapshot was not saved");
+		}
+		return dict;
+	}
+
+	/**
+	 * @return the path of the snapshot of the dictionary
+	 */
+	Path snapshot() { // Big(O) = O(1) - No loops
+		return DictionarySnapshot.pathFor(dictionary.toString(), common.toString());
+	}
+
+	void deleteSnapshot() { // Big(O) = O(1) - No loops
+		try {
+			Files.deleteIfExists(snapshot());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return p
+	 * @throws IllegalStateException if the parser found an error
+	 */
+	static Parser check(Parser p) { // Big(O) = O(1) - No loops
+		if (p.hasFailed()) {
+			throw new IllegalStateException("Parser stage failed");
+		}
+		return p;
+	}
+}
@@ -0,0 +1,179 @@
+package ie.atu.sw.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ie.atu.sw.Dictionary;
+import ie.atu.sw.FuzzyMatcher;
+import ie.atu.sw.PhraseMatcher;
+import ie.atu.sw.Tokenizer;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          JMH benchmarks of the lookups the Parser makes for each word:
+ *          tokenizing the input and looking each token up, looking up words
+ *          which are and are not in the dictionary, matching misspelt words to
+ *          the dictionary (the first time, and from the cache) and finding
+ *          phrases of several words (with few and with many phrases). Each call
+ *          goes over the whole of the input or word list, so the score is the
+ *          time a pass takes.
+ *
+ *          Run as ParserBenchmark says.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "--enable-preview", "--add-modules", "jdk.incubator.vector" })
+public class LookupBenchmark {
+
+	/**
+	 * The frozen dictionary of the files, with every word of it and a misspelling
+	 * of each.
+	 */
+	@State(Scope.Benchmark)
+	public static class Words {
+		Dictionary dict;
+		byte[][] hits; // words in the dictionary
+		byte[][] misses; // words not in it, turned away by it's BloomFilter
+		List<String> misspelt; // words with two letters swapped, within 2 edits of a dictionary word
+		FuzzyMatcher cached; // a matcher which has seen every misspelt word
+
+		@Setup(Level.Trial)
+		public void setUp(BenchFiles files) { // Big(O) = O(n) - defined by the size of the dictionary
+
+			dict = files.loadDictionary();
+			hits = new byte[dict.size()][];
+			misses = new byte[dict.size()][];
+			misspelt = new ArrayList<String>();
+			for (int i = 0; i < dict.size(); i++) {
+				String w = dict.wordAt(i);
+				hits[i] = w.getBytes(StandardCharsets.ISO_8859_1);
+				misses[i] = (w + "q").getBytes(StandardCharsets.ISO_8859_1);
+				if (w.length() >= 2 * FuzzyMatcher.MIN_LENGTH) {
+					misspelt.add(w.substring(0, 2) + w.charAt(3) + w.charAt(2) + w.substring(4));
+				}
+			}
+			cached = dict.fuzzy(2);
+			for (String word : misspelt) {
+				cached.lookup(word);
+			}
+		}
+	}
+
+	/**
+	 * A FuzzyMatcher with nothing cached, built before each call.
+	 */
+	@State(Scope.Thread)
+	public static class FreshMatcher {
+		FuzzyMatcher matcher;
+
+		@Setup(Level.Invocation)
+		public void setUp(Words words) { // Big(O) = O(n * l^d) - defined by the words and their deletions
+			matcher = new FuzzyMatcher(words.dict, 2);
+		}
+	}
+
+	/**
+	 * A PhraseMatcher for phrases of two to four words of the vocabulary. The
+	 * cost per word should not depend on the number of phrases.
+	 */
+	@State(Scope.Benchmark)
+	public static class Phrases {
+		@Param({ "100", "100000" })
+		public int phrases;
+		PhraseMatcher matcher;
+
+		@Setup(Level.Trial)
+		public void setUp(BenchFiles files) { // Big(O) = O(p) - defined by the number of phrases
+
+			Dictionary dict = new Dictionary();
+			Random r = new Random(5);
+			while (dict.size() < phrases) {
+				StringBuilder phrase = new StringBuilder(files.vocab[r.nextInt(files.vocab.length)]);
+				for (int w = 1 + r.nextInt(3); w > 0; w--) {
+					phrase.append(' ').append(files.vocab[r.nextInt(files.vocab.length)]);
+				}
+				dict.add(phrase.toString(), "");
+			}
+			dict.freeze();
+			matcher = dict.phrases();
+		}
+	}
+
+	@Benchmark
+	public void tokenizeLookup(BenchFiles files, Words words, Blackhole bh) { // Big(O) = O(n) - defined by the
+																				// size of the input
+		Tokenizer tokenizer = new Tokenizer();
+		for (byte[] line : files.corpus) {
+			tokenizer.reset(line);
+			while (tokenizer.next()) {
+				bh.consume(words.dict.lookup(tokenizer.buffer(), tokenizer.offset(), tokenizer.length()));
+			}
+		}
+	}
+
+	@Benchmark
+	public void dictionaryLookupHit(Words words, Blackhole bh) { // Big(O) = O(n) - defined by the number of words
+		for (byte[] word : words.hits) {
+			bh.consume(words.dict.lookup(word, word.length));
+		}
+	}
+
+	@Benchmark
+	public void dictionaryLookupMiss(Words words, Blackhole bh) { // Big(O) = O(n) - defined by the number of words
+		for (byte[] word : words.misses) {
+			bh.consume(words.dict.lookup(word, word.length));
+		}
+	}
+
+	@Benchmark
+	public void fuzzyLookupFirst(Words words, FreshMatcher fresh, Blackhole bh) { // Big(O) = O(n * l^d * c)
+		for (String word : words.misspelt) {
+			bh.consume(fresh.matcher.lookup(word));
+		}
+	}
+
+	@Benchmark
+	public void fuzzyLookupCached(Words words, Blackhole bh) { // Big(O) = O(n) - defined by the number of words
+		for (String word : words.misspelt) {
+			bh.consume(words.cached.lookup(word));
+		}
+	}
+
+	@Benchmark
+	public int phraseScan(BenchFiles files, Phrases phrases, Blackhole bh) { // Big(O) = O(n) - defined by the
+																				// size of the input
+		Tokenizer tokenizer = new Tokenizer();
+		PhraseMatcher matcher = phrases.matcher;
+		int state = 0;
+		for (byte[] line : files.corpus) {
+			tokenizer.reset(line);
+			while (tokenizer.next()) {
+				int symbol = matcher.symbolOf(tokenizer.buffer(), tokenizer.offset(), tokenizer.length());
+				state = matcher.step(state, symbol, (id, length) -> bh.consume(id));
+			}
+		}
+		return state;
+	}
+}
@@ -0,0 +1,215 @@
+package ie.atu.sw.bench;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ie.atu.sw.Parser;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          JMH benchmarks of each loading stage of the Parser over the
+ *          synthetic files of BenchFiles: loading the exclusions, loading the
+ *          dictionary (from the CSV file and from it's snapshot), tokenizing
+ *          and looking up the input file (by page, and recording every
+ *          occurrence with it's position), all three loads in sequence and
+ *          overlapped, and writing the index to a file. Each call is a whole
+ *          stage, so the score is the time a stage takes; the Parser for it is
+ *          set up before each call, unmeasured.
+ *
+ *          The lookups inside a stage are benchmarked by LookupBenchmark, and
+ *          adding to the word pages by WordPagesBenchmark.
+ *
+ *          Run with: java -jar target/benchmarks.jar (built by mvn package), or
+ *          java --enable-preview -cp target/benchmarks.jar
+ *          ie.atu.sw.bench.ParserBenchmark [names...] to run every benchmark
+ *          of the package (or only those matching the names) with JMH's GC
+ *          profiler, reporting bytes allocated per call and garbage
+ *          collections.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "--enable-preview", "--add-modules", "jdk.incubator.vector" })
+public class ParserBenchmark {
+
+	/**
+	 * A Parser with nothing loaded, made before each call.
+	 */
+	@State(Scope.Thread)
+	public static class Fresh {
+		Parser parser;
+
+		@Setup(Level.Invocation)
+		public void setUp(BenchFiles files) { // Big(O) = O(1) - No loops
+			parser = files.newParser();
+		}
+	}
+
+	/**
+	 * A Parser with the common words loaded and no dictionary snapshot, so the
+	 * dictionary is parsed from the CSV.
+	 */
+	@State(Scope.Thread)
+	public static class NoSnapshot {
+		Parser parser;
+
+		@Setup(Level.Invocation)
+		public void setUp(BenchFiles files) { // Big(O) = O(n) - defined by the number of common words
+			files.deleteSnapshot();
+			parser = files.loadedParser(false);
+		}
+	}
+
+	/**
+	 * A Parser with the common words loaded and a dictionary snapshot saved.
+	 */
+	@State(Scope.Thread)
+	public static class WithSnapshot {
+		Parser parser;
+
+		@Setup(Level.Invocation)
+		public void setUp(BenchFiles files) { // Big(O) = O(n) - defined by the size of the files
+			if (!Files.exists(files.snapshot())) {
+				files.loadedParser(true); // writes the snapshot the measured call loads
+			}
+			parser = files.loadedParser(false);
+		}
+	}
+
+	/**
+	 * A Parser with the common words and dictionary loaded.
+	 */
+	@State(Scope.Thread)
+	public static class WithDictionary {
+		Parser parser;
+
+		@Setup(Level.Invocation)
+		public void setUp(BenchFiles files) { // Big(O) = O(n) - defined by the size of the files
+			parser = files.loadedParser(true);
+		}
+	}
+
+	/**
+	 * A Parser with the common words and dictionary loaded, recording every
+	 * occurrence of each word.
+	 */
+	@State(Scope.Thread)
+	public static class WithPostings {
+		Parser parser;
+
+		@Setup(Level.Invocation)
+		public void setUp(BenchFiles files) { // Big(O) = O(n) - defined by the size of the files
+			parser = files.newParser();
+			parser.setCounts(true);
+			parser.setPositions(true);
+			parser.loadCommonWords();
+			parser.loadDictionary();
+		}
+	}
+
+	/**
+	 * A Parser with everything loaded, which has written it's index once.
+	 */
+	@State(Scope.Thread)
+	public static class Loaded {
+		Parser parser;
+
+		@Setup(Level.Trial)
+		public void setUp(BenchFiles files) { // Big(O) = O(n) - defined by the size of the files
+			parser = files.loadedParser(true);
+			parser.loadInputFile();
+			parser.writeToFile();
+			BenchFiles.check(parser);
+		}
+	}
+
+	@Benchmark
+	public Parser exclusions(Fresh s) { // Big(O) = O(n) - defined by the number of common words
+		s.parser.loadCommonWords();
+		return BenchFiles.check(s.parser);
+	}
+
+	@Benchmark
+	public Parser dictionaryCsv(NoSnapshot s) { // Big(O) = O(n) - defined by the size of the dictionary
+		s.parser.loadDictionary();
+		return BenchFiles.check(s.parser);
+	}
+
+	@Benchmark
+	public Parser dictionarySnapshot(WithSnapshot s) { // Big(O) = O(n) - defined by the size of the dictionary
+		s.parser.loadDictionary();
+		return BenchFiles.check(s.parser);
+	}
+
+	@Benchmark
+	public Parser input(WithDictionary s) { // Big(O) = O(n) - defined by the size of the input
+		s.parser.loadInputFile();
+		return BenchFiles.check(s.parser);
+	}
+
+	@Benchmark
+	public Parser inputPostings(WithPostings s) { // Big(O) = O(n) - defined by the size of the input
+		s.parser.loadInputFile();
+		return BenchFiles.check(s.parser);
+	}
+
+	@Benchmark
+	public Parser loadSequential(Fresh s) { // Big(O) = O(n) - defined by the size of the files
+		s.parser.loadCommonWords();
+		s.parser.loadDictionary();
+		s.parser.loadInputFile();
+		return BenchFiles.check(s.parser);
+	}
+
+	@Benchmark
+	public Parser loadOverlapped(Fresh s) { // Big(O) = O(n) - defined by the size of the files
+		s.parser.loadOverlapped();
+		return BenchFiles.check(s.parser);
+	}
+
+	@Benchmark
+	public Parser writeFile(Loaded s) { // Big(O) = O(n) - defined by the size of the index
+		s.parser.writeToFile();
+		return BenchFiles.check(s.parser);
+	}
+
+	/**
+	 * Runs the benchmarks of this package with JMH's GC profiler.
+	 *
+	 * @param args the names of the benchmarks to run (regular expressions
+	 *             matched against their class and method), or none to run all
+	 * @throws RunnerException if JMH could not run them
+	 */
+	public static void main(String[] args) throws RunnerException { // Big(O) = O(b) - defined by the benchmarks
+
+		ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class);
+		if (args.length == 0) {
+			options.include(ParserBenchmark.class.getPackageName() + "\\.");
+		}
+		for (String name : args) {
+			options.include(name);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,120 @@
+package ie.atu.sw.bench;
+
+import java.nio.charset.StandardCharsets;
+
+import ie.atu.sw.Tokenizer;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Compares the original split/regex word normalisation with the
+ *          byte-level Tokenizer over a synthetic corpus, reporting throughput
+ *          and bytes allocated per token. The two paths are first checked to
+ *          produce exactly the same tokens. The corpus is sized with the system
+ *          properties bench.lines and bench.words (average words per line).
+ *
+ *          The scalar and SIMD (Vector API) backends of the Tokenizer are
+ *          measured side by side; the SIMD one is skipped unless the Vector API
+ *          is available.
+ * 
+ *          Run with: java --add-modules jdk.incubator.vector -cp ./indexer.jar
+ *          ie.atu.sw.bench.TokenizerBenchmark
+ */
+public class TokenizerBenchmark {
+
+	private static long sink; // consumed results, so the JIT cannot remove the work
+
+	public static void main(String[] args) { // Big(O) = O(n) - defined by the size of the corpus
+
+		int lines = Bench.intProperty("bench.lines", 200_000);
+		byte[][] corpus = Bench.corpus(Bench.vocabulary(20_000, 1), lines, Bench.intProperty("bench.words", 10), 2);
+		String[] text = new String[lines];
+		for (int i = 0; i < lines; i++) {
+			text[i] = new String(corpus[i], StandardCharsets.UTF_8);
+		}
+
+		int tokens = verify(corpus, text);
+		System.out.println(lines + " lines, " + tokens + " tokens");
+
+		System.out.println(Bench.measure("split + regex (original)", tokens, () -> {
+			for (String line : text) {
+				for (String s : line.split("\\s+")) {
+					s = s.replaceAll("[^a-zA-Z]", "").toLowerCase();
+					sink += s.length();
+				}
+			}
+		}));
+
+		measure("Tokenizer", new Tokenizer(false), corpus, tokens);
+		if (Tokenizer.isVectorAvailable()) {
+			measure("Tokenizer SIMD", new Tokenizer(true), corpus, tokens);
+		} else {
+			System.out.println("Tokenizer SIMD skipped - run with --add-modules jdk.incubator.vector");
+		}
+
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Measures a Tokenizer reading the corpus, both alone and creating the key
+	 * of each token.
+	 */
+	private static void measure(String name, Tokenizer tokenizer, byte[][] corpus, int tokens) { // Big(O) = O(n)
+		System.out.println(Bench.measure(name + " (no key)", tokens, () -> {
+			for (byte[] line : corpus) {
+				tokenizer.reset(line);
+				while (tokenizer.next()) {
+					sink += tokenizer.length();
+				}
+			}
+		}));
+		System.out.println(Bench.measure(name + " + token()", tokens, () -> {
+			for (byte[] line : corpus) {
+				tokenizer.reset(line);
+				while (tokenizer.next()) {
+					sink += tokenizer.token().length();
+				}
+			}
+		}));
+	}
+
+	/**
+	 * Checks each Tokenizer backend gives the same (non empty) tokens as the original
+	 * normalisation for every line of the corpus.
+	 *
+	 * @return the number of tokens in the corpus
+	 */
+	private static int verify(byte[][] corpus, String[] text) { // Big(O) = O(n) - defined by the size of the corpus
+
+		Tokenizer[] tokenizers = Tokenizer.isVectorAvailable() ? new Tokenizer[] { new Tokenizer(false), new Tokenizer(true) }
+				: new Tokenizer[] { new Tokenizer(false) };
+		int tokens = 0;
+		for (int i = 0; i < corpus.length; i++) {
+			for (Tokenizer tokenizer : tokenizers) {
+				tokenizer.reset(corpus[i]);
+			}
+			for (String s : text[i].split("\\s+")) {
+				s = s.replaceAll("[^a-zA-Z]", "").toLowerCase();
+				if (s.isEmpty()) {
+					continue;
+				}
+				for (Tokenizer tokenizer : tokenizers) {
+					if (!tokenizer.next() || !tokenizer.token().equals(s)) {
+						throw new IllegalStateException("Tokenizer differs from original on line " + (i + 1));
+					}
+				}
+				tokens++;
+			}
+			for (Tokenizer tokenizer : tokenizers) {
+				if (tokenizer.next()) {
+					throw new IllegalStateException("Tokenizer differs from original on line " + (i + 1));
+				}
+			}
+		}
+		return tokens;
+	}
+}
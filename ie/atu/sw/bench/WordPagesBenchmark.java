@@ -0,0 +1,136 @@
+package ie.atu.sw.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ie.atu.sw.MemoryBudget;
+import ie.atu.sw.WordPages;
+import ie.atu.sw.WordPagesAccumulator;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          JMH benchmarks of adding the words of the input, with their pages,
+ *          from several threads at once, as the workers of the ingester do: to
+ *          a WordPages object, and to a WordPagesAccumulator, including merging
+ *          it, with and without a memory budget which sends it to disk in runs.
+ *          Each call adds as many words as there are tokens in the input,
+ *          shared between the threads.
+ *
+ *          The threads are set with the JMH parameter threads (0, the default,
+ *          for one per processor), and the memory budget with budget (bytes).
+ *
+ *          Run as ParserBenchmark says.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "--enable-preview", "--add-modules", "jdk.incubator.vector" })
+public class WordPagesBenchmark {
+
+	/**
+	 * The words each thread adds, page by page.
+	 */
+	@State(Scope.Benchmark)
+	public static class Words {
+		@Param("0")
+		public int threads;
+		@Param("1048576")
+		public int budget;
+		int workers;
+		int perThread;
+		String[] words;
+
+		@Setup(Level.Trial)
+		public void setUp(BenchFiles files) { // Big(O) = O(w) - defined by the number of words
+
+			workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+			perThread = (int) Math.max(1, files.tokens / workers);
+			words = new String[Math.min(perThread, 1 << 16)];
+			Random r = new Random(4);
+			for (int i = 0; i < words.length; i++) {
+				words[i] = files.vocab[r.nextInt(files.vocab.length)];
+			}
+		}
+	}
+
+	/**
+	 * Empty word pages, made before each call.
+	 */
+	@State(Scope.Thread)
+	public static class Targets {
+		WordPages pages;
+		WordPagesAccumulator accumulator;
+		WordPagesAccumulator spilling;
+
+		@Setup(Level.Invocation)
+		public void setUp(BenchFiles files, Words words) { // Big(O) = O(1) - No loops
+			pages = new WordPages();
+			accumulator = new WordPagesAccumulator();
+			spilling = new WordPagesAccumulator(new MemoryBudget(words.budget, files.dir));
+		}
+	}
+
+	@Benchmark
+	public WordPages wordPagesAdd(Words words, Targets t) { // Big(O) = O(n) - defined by the number of words
+		addConcurrently(t.pages::add, words);
+		return t.pages;
+	}
+
+	@Benchmark
+	public int accumulatorAdd(Words words, Targets t) { // Big(O) = O(n) - defined by the number of words
+		addConcurrently(t.accumulator::add, words);
+		return t.accumulator.toWordPages().size(); // the merge is part of the cost
+	}
+
+	@Benchmark
+	public void accumulatorSpill(Words words, Targets t, Blackhole bh) throws IOException { // Big(O) = O(n log r)
+		addConcurrently(t.spilling::add, words);
+		t.spilling.forEachSorted((word, p) -> bh.consume(p.size())); // the runs and merge are part of the cost
+	}
+
+	/**
+	 * Adds words to pages from several threads at once.
+	 */
+	private static void addConcurrently(ObjIntConsumer<String> pages, Words w) { // Big(O) = O(n)
+
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int t = 0; t < w.workers; t++) {
+			final int offset = t * 7919;
+			workers.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < w.perThread; i++) {
+					pages.accept(w.words[(i + offset) % w.words.length], i / 400 + 1);
+				}
+			}));
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -6,4 +6,7 @@
  *
  */
 module indexer {
-}
\ No newline at end of file
+	requires jdk.jfr;
+	requires jdk.management;
+	requires static jdk.incubator.vector;
+}
@@ -0,0 +1,73 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of the naming of the documents of a corpus: documents of the
+ *          same name in different directories are listed, and exported, apart.
+ */
+class CorpusTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void namesDocumentsFromTheRootOfAGlob() throws IOException { // Big(O) = O(1) - No loops
+		Path a = write("texts/a/ch1.txt", "honour");
+		Path b = write("texts/b/ch1.txt", "zion");
+		String input = dir.resolve("texts").toString() + "/**.txt";
+		List<Path> docs = Corpus.documents(input);
+		Path root = Corpus.root(input);
+
+		assertEquals(List.of(a, b), docs);
+		assertEquals("a/ch1.txt", Corpus.name(root, docs.get(0)));
+		assertEquals("b/ch1.txt", Corpus.name(root, docs.get(1)));
+	}
+
+	@Test
+	void namesDocumentsOfADirectoryByFile() throws IOException { // Big(O) = O(1) - No loops
+		write("texts/Genesis.txt", "honour");
+		String input = dir.resolve("texts").toString();
+		assertEquals("Genesis.txt", Corpus.name(Corpus.root(input), Corpus.documents(input).get(0)));
+	}
+
+	@Test
+	void documentsOfTheSameNameAreKeptApart() throws IOException { // Big(O) = O(1) - No loops
+		write("texts/a/ch1.txt", "honour");
+		write("texts/b/ch1.txt", "honour");
+		String input = dir.resolve("texts").toString() + "/**.txt";
+		List<Path> docs = Corpus.documents(input);
+		WordPages[] perDoc = new WordPages[docs.size()];
+		for (int doc = 0; doc < perDoc.length; doc++) {
+			perDoc[doc] = new WordPages();
+			perDoc[doc].add("honour", doc + 1);
+		}
+		CorpusIndex corpus = new CorpusIndex(Corpus.root(input), docs, perDoc);
+
+		assertEquals("a/ch1.txt [1]; b/ch1.txt [2]", corpus.describe("honour"));
+		Path output = dir.resolve("Output.txt");
+		assertEquals(dir.resolve("Output-1-a-ch1.txt"), corpus.documentOutput(output, 0));
+		assertEquals(dir.resolve("Output-2-b-ch1.txt"), corpus.documentOutput(output, 1));
+	}
+
+	/**
+	 * @return a file under the test directory, holding the text given
+	 */
+	private Path write(String name, String text) throws IOException { // Big(O) = O(n) - defined by the text
+		Path file = dir.resolve(name);
+		Files.createDirectories(file.getParent());
+		return Files.writeString(file, text);
+	}
+}
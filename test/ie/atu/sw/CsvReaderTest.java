@@ -0,0 +1,136 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of the CsvReader: quoted fields, line breaks inside them, and
+ *          malformed rows being skipped without losing the rows after them.
+ */
+class CsvReaderTest {
+
+	@TempDir
+	Path dir;
+
+	private final List<String> problems = new ArrayList<String>();
+
+	@Test
+	void readsPlainAndQuotedFields() throws IOException { // Big(O) = O(1) - No loops
+		try (CsvReader csv = reader("Abba,Father\r\nZion,\"A hill, \"\"the city\"\"\"\n")) {
+			assertTrue(csv.next());
+			assertEquals(2, csv.fieldCount());
+			assertEquals("Abba", csv.field(0));
+			assertEquals("Father", csv.field(1));
+			assertTrue(csv.next());
+			assertEquals("A hill, \"the city\"", csv.field(1));
+			assertFalse(csv.next());
+		}
+		assertTrue(problems.isEmpty());
+	}
+
+	@Test
+	void joinsUnquotedFieldsHoldingCommas() throws IOException { // Big(O) = O(1) - No loops
+		try (CsvReader csv = reader("Ark,a chest, or a boat\n")) {
+			assertTrue(csv.next());
+			assertEquals(3, csv.fieldCount());
+			assertEquals("a chest, or a boat", csv.join(1));
+		}
+	}
+
+	@Test
+	void quotedFieldMayHoldLineBreaks() throws IOException { // Big(O) = O(1) - No loops
+		try (CsvReader csv = reader("Word,\"two\nlines\"\nNext,def\n")) {
+			assertTrue(csv.next());
+			assertEquals("two\nlines", csv.field(1));
+			assertTrue(csv.next());
+			assertEquals(3, csv.line());
+			assertEquals("Next", csv.field(0));
+		}
+	}
+
+	@Test
+	void unclosedQuoteOnlySkipsItsOwnRow() throws IOException { // Big(O) = O(1) - No loops
+		List<String> words = new ArrayList<String>();
+		try (CsvReader csv = reader("A,one\nB,\"broken\nC,three\nD,four\n")) {
+			while (csv.next()) {
+				words.add(csv.field(0));
+			}
+		}
+		assertEquals(List.of("A", "C", "D"), words);
+		assertEquals(List.of("2: quoted field is never closed"), problems);
+	}
+
+	@Test
+	void textAfterClosingQuoteIsMalformed() throws IOException { // Big(O) = O(1) - No loops
+		List<String> words = new ArrayList<String>();
+		try (CsvReader csv = reader("A,\"one\" two\nB,three\n")) {
+			while (csv.next()) {
+				words.add(csv.field(0));
+			}
+		}
+		assertEquals(List.of("B"), words);
+		assertEquals(1, problems.size());
+		assertTrue(problems.get(0).startsWith("1: "));
+	}
+
+	@Test
+	void readsRowsLongerThanTheBuffer() throws IOException { // Big(O) = O(n) - defined by the length of the row
+		String def = "x".repeat(200_000);
+		try (CsvReader csv = reader("Long,\"" + def + "\"\nShort,y\n")) {
+			assertTrue(csv.next());
+			assertEquals(def, csv.field(1));
+			assertTrue(csv.next());
+			assertEquals("Short", csv.field(0));
+		}
+	}
+
+	@Test
+	void quotedFieldIsOnlyReadAsFarAsTheLimit() throws IOException { // Big(O) = O(1) - No loops
+		List<String> words = new ArrayList<String>();
+		String text = "A,\"12345678\"\nB,\"broken\nC,\"123456789\"\nD,\"123456\nE,\"two\nline\"\nF,\"never\n";
+		try (CsvReader csv = reader(text, 8)) {
+			while (csv.next()) {
+				words.add(csv.field(0) + " " + csv.field(1));
+			}
+		}
+		// B's and D's quotes are only closed by the next row's, too far on to be looked for
+		assertEquals(List.of("A 12345678", "E two\nline"), words);
+		assertEquals(List.of("2: quoted field is not closed within 8 bytes",
+				"3: quoted field is not closed within 8 bytes", "4: quoted field is not closed within 8 bytes",
+				"7: quoted field is never closed"), problems);
+	}
+
+	/**
+	 * @return a CsvReader of a file holding text, adding it's problems to
+	 *         problems
+	 */
+	private CsvReader reader(String text) throws IOException { // Big(O) = O(n) - defined by the length of the text
+		return reader(text, CsvReader.MAX_QUOTED);
+	}
+
+	/**
+	 * @return a CsvReader of a file holding text, allowing quoted fields of up to
+	 *         maxQuoted bytes
+	 */
+	private CsvReader reader(String text, int maxQuoted) throws IOException { // Big(O) = O(n) - defined by the
+																				// length of the text
+		Path file = dir.resolve("dictionary.csv");
+		Files.writeString(file, text, StandardCharsets.UTF_8);
+		return new CsvReader(file, (line, reason) -> problems.add(line + ": " + reason), maxQuoted);
+	}
+}
@@ -0,0 +1,78 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of a Dictionary made from the arrays of it's frozen form, as
+ *          a DictionarySnapshot loads it: a sound form gives the same lookups,
+ *          and a damaged one is rejected, so the CSV is read instead.
+ */
+class DictionaryTest {
+
+	private Dictionary dictionary;
+
+	@BeforeEach
+	void setUp() { // Big(O) = O(1) - No loops
+		dictionary = new Dictionary();
+		dictionary.add("abide", "To stay");
+		dictionary.add("honour", "Respect");
+		dictionary.add("zion", "A hill");
+		dictionary.freeze();
+	}
+
+	@Test
+	void frozenFormGivesTheSameLookups() { // Big(O) = O(1) - No loops
+		Dictionary copy = frozen(dictionary.frozenTable().clone());
+		assertEquals("Respect", copy.getDefinition("honour"));
+		assertEquals(-1, copy.lookup("mercy"));
+	}
+
+	@Test
+	void rejectsAnIdPastTheLastWord() { // Big(O) = O(1) - No loops
+		long[] table = dictionary.frozenTable().clone();
+		for (int slot = 0; slot < table.length; slot++) {
+			if (table[slot] != 0) {
+				table[slot] = (table[slot] & 0xFFFFFFFF00000000L) | 4; // the id 3, of three words
+				break;
+			}
+		}
+		long[] damaged = table;
+		assertThrows(IllegalArgumentException.class, () -> frozen(damaged));
+	}
+
+	@Test
+	void rejectsAFullTable() { // Big(O) = O(1) - No loops
+		long[] table = dictionary.frozenTable().clone();
+		for (int slot = 0; slot < table.length; slot++) {
+			if (table[slot] == 0) {
+				table[slot] = 1; // every empty slot taken, so a missing word would probe forever
+			}
+		}
+		assertThrows(IllegalArgumentException.class, () -> frozen(table));
+	}
+
+	@Test
+	void rejectsDefinitionsPastTheirBytes() { // Big(O) = O(1) - No loops
+		int[] offsets = dictionary.frozenDefOffsets().clone();
+		offsets[offsets.length - 1]++;
+		assertThrows(IllegalArgumentException.class, () -> Dictionary.frozen(dictionary.frozenWords(),
+				dictionary.frozenDefBytes(), offsets, dictionary.frozenTable()));
+	}
+
+	/**
+	 * @return a Dictionary of the frozen form of the test dictionary, with the
+	 *         table given
+	 */
+	private Dictionary frozen(long[] table) { // Big(O) = O(n) - defined by the size of the table
+		return Dictionary.frozen(dictionary.frozenWords(), dictionary.frozenDefBytes(),
+				dictionary.frozenDefOffsets(), table);
+	}
+}
@@ -0,0 +1,98 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of the FuzzyMatcher: each kind of edit, the edits allowed for
+ *          the length of a word, ties, the results it keeps, and the matchers kept
+ *          by the Dictionary.
+ */
+class FuzzyMatcherTest {
+
+	private Dictionary dictionary;
+
+	@BeforeEach
+	void setUp() { // Big(O) = O(1) - No loops
+		dictionary = new Dictionary();
+		for (String word : new String[] { "honour", "colour", "sanctify", "abide", "zion", "holy spirit" }) {
+			dictionary.add(word, "");
+		}
+		dictionary.freeze();
+	}
+
+	@Test
+	void matchesEachKindOfEdit() { // Big(O) = O(1) - No loops
+		FuzzyMatcher fuzzy = new FuzzyMatcher(dictionary, 2);
+		assertEquals("honour", match(fuzzy, "honor")); // deleted
+		assertEquals("honour", match(fuzzy, "honoura")); // inserted
+		assertEquals("colour", match(fuzzy, "coloer")); // changed
+		assertEquals("sanctify", match(fuzzy, "sacntify")); // swapped
+		assertEquals("sanctify", match(fuzzy, "sanktifi")); // two edits
+		assertEquals(null, match(fuzzy, "sxnktifi")); // three edits
+	}
+
+	@Test
+	void allowsEditsByLength() { // Big(O) = O(1) - No loops
+		FuzzyMatcher fuzzy = new FuzzyMatcher(dictionary, 2);
+		assertEquals(null, match(fuzzy, "zio")); // shorter than MIN_LENGTH
+		assertEquals("zion", match(fuzzy, "zoin")); // one edit for four letters
+		assertEquals("abide", match(fuzzy, "abxde"));
+		assertEquals(null, match(fuzzy, "axixe")); // two edits, but only one allowed under eight letters
+		assertEquals(null, match(new FuzzyMatcher(dictionary, 1), "sanktifi"));
+	}
+
+	@Test
+	void neverMatchesPhrases() { // Big(O) = O(1) - No loops
+		assertEquals(null, match(new FuzzyMatcher(dictionary, 2), "holy spirits"));
+	}
+
+	@Test
+	void takesTheClosestWordThenTheFirstAlphabetically() { // Big(O) = O(1) - No loops
+		dictionary = new Dictionary();
+		dictionary.add("clamp", "");
+		dictionary.add("cramp", "");
+		dictionary.add("clamps", "");
+		dictionary.freeze();
+		FuzzyMatcher fuzzy = new FuzzyMatcher(dictionary, 2);
+		assertEquals("clamp", match(fuzzy, "clampz")); // 1 edit from clamp and from clamps
+		assertEquals("cramp", match(fuzzy, "cramq")); // 1 edit from cramp, 2 from clamp
+	}
+
+	@Test
+	void cachesResults() { // Big(O) = O(1) - No loops
+		FuzzyMatcher fuzzy = new FuzzyMatcher(dictionary, 2);
+		match(fuzzy, "honor");
+		match(fuzzy, "honor");
+		match(fuzzy, "qqqqqq");
+		assertEquals(2, fuzzy.cached());
+	}
+
+	@Test
+	void dictionaryKeepsAMatcherForEachDistance() { // Big(O) = O(1) - No loops
+		FuzzyMatcher one = dictionary.fuzzy(1);
+		FuzzyMatcher two = dictionary.fuzzy(2);
+		assertEquals(1, one.maxDistance());
+		assertEquals(2, two.maxDistance());
+		assertSame(one, dictionary.fuzzy(1));
+		assertSame(two, dictionary.fuzzy(2));
+		assertThrows(IllegalArgumentException.class, () -> dictionary.fuzzy(FuzzyMatcher.MAX_DISTANCE + 1));
+		assertThrows(IllegalArgumentException.class, () -> new FuzzyMatcher(dictionary, 0));
+	}
+
+	/**
+	 * @return the dictionary word matched to word, or null if there is none
+	 */
+	private String match(FuzzyMatcher fuzzy, String word) { // Big(O) = O(1) once the word has been seen
+		int id = fuzzy.lookup(word);
+		return id < 0 ? null : dictionary.wordAt(id);
+	}
+}
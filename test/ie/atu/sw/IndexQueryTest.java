@@ -0,0 +1,97 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of the IndexQuery over a small saved index: exact words,
+ *          prefixes, wildcards, pages and ranges of pages.
+ */
+class IndexQueryTest {
+
+	@TempDir
+	Path dir;
+
+	private IndexQuery query;
+
+	@BeforeEach
+	void setUp() throws IOException { // Big(O) = O(1) - No loops
+		Path file = dir.resolve("index.txt.idx");
+		try (IndexFile.Writer writer = new IndexFile.Writer(file)) {
+			writer.add("abba", "Father", pages(1, 140));
+			writer.add("abide", "To stay", pages(2));
+			writer.add("abraham", "A patriarch", pages(3, 100));
+			writer.add("sanctify", "To make holy", pages(120));
+			writer.add("sanctuary", "A holy place", pages(100, 141));
+			writer.add("zion", "A hill", pages(7));
+		}
+		query = IndexQuery.load(file);
+	}
+
+	@Test
+	void findsExactWords() { // Big(O) = O(1) - No loops
+		assertEquals(6, query.size());
+		IndexEntry entry = query.find("abraham");
+		assertEquals("A patriarch", entry.getDefinition());
+		assertEquals("[3, 100]", entry.getWordPages().toString());
+		assertNull(query.find("abr"));
+		assertNull(query.find("abrahams"));
+		assertEquals(List.of("zion"), words(query.search(" zion ")));
+	}
+
+	@Test
+	void findsPrefixes() { // Big(O) = O(1) - No loops
+		assertEquals(List.of("abba", "abide", "abraham"), words(query.prefix("ab")));
+		assertEquals(List.of("sanctify", "sanctuary"), words(query.search("sanct*")));
+		assertEquals(6, query.prefix("").size());
+		assertEquals(List.of(), query.prefix("q"));
+	}
+
+	@Test
+	void matchesWildcards() { // Big(O) = O(1) - No loops
+		assertEquals(List.of("abba", "abide"), words(query.search("ab??*")).subList(0, 2));
+		assertEquals(List.of("sanctify"), words(query.search("s?n*ify")));
+		assertEquals(List.of("abba", "abraham", "sanctuary"), words(query.search("*a*a*")));
+		assertEquals(List.of("abide"), words(query.wildcard("a*e")));
+		assertEquals(List.of(), query.wildcard("z?"));
+	}
+
+	@Test
+	void listsTheWordsOnPages() { // Big(O) = O(1) - No loops
+		assertEquals(List.of("abraham", "sanctuary"), words(query.search("100")));
+		assertEquals(List.of("abba", "abraham", "sanctify", "sanctuary"), words(query.search("100-140")));
+		assertEquals(List.of("abba", "abide", "abraham", "zion"), words(query.pages(1, 7)));
+		assertEquals(List.of(), query.pages(8, 99));
+		assertEquals(List.of(), query.search("99999999999")); // beyond the last page
+	}
+
+	@Test
+	void emptyQueryMatchesNothing() { // Big(O) = O(1) - No loops
+		assertEquals(List.of(), query.search(""));
+		assertEquals(List.of(), query.search("   "));
+	}
+
+	private static PageSet pages(int... pages) { // Big(O) = O(p) - defined by the number of pages
+		PageSet set = new PageSet();
+		for (int p : pages) {
+			set.add(p);
+		}
+		return set;
+	}
+
+	private static List<String> words(List<IndexEntry> entries) { // Big(O) = O(n) - defined by the entries
+		return entries.stream().map(IndexEntry::getWord).toList();
+	}
+}
@@ -0,0 +1,126 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of the JobScheduler: running the tasks of jobs on the shared
+ *          workers, reporting failures, and admitting jobs by number, size and
+ *          priority.
+ */
+@Timeout(30)
+class JobSchedulerTest {
+
+	private JobScheduler scheduler;
+
+	@AfterEach
+	void tearDown() { // Big(O) = O(w) - defined by the workers
+		if (scheduler != null) {
+			scheduler.close();
+		}
+	}
+
+	@Test
+	void runsTheTasksOfEachJob() throws Exception { // Big(O) = O(j * t) - defined by the jobs and their tasks
+		scheduler = new JobScheduler(2, 4, Long.MAX_VALUE);
+		AtomicInteger done = new AtomicInteger();
+		List<JobScheduler.Job> jobs = new ArrayList<JobScheduler.Job>();
+		for (int j = 0; j < 3; j++) {
+			jobs.add(scheduler.submit("job" + j, JobScheduler.NORM_PRIORITY, 0, executor -> {
+				CompletableFuture<?>[] tasks = new CompletableFuture<?>[50];
+				for (int t = 0; t < tasks.length; t++) {
+					tasks[t] = CompletableFuture.runAsync(done::incrementAndGet, executor);
+				}
+				CompletableFuture.allOf(tasks).join();
+			}));
+		}
+		for (JobScheduler.Job job : jobs) {
+			job.await();
+		}
+		assertEquals(150, done.get());
+		assertEquals(0, scheduler.runningJobs());
+	}
+
+	@Test
+	void reportsAJobWhichThrows() { // Big(O) = O(1) - No loops
+		scheduler = new JobScheduler(1, 1, Long.MAX_VALUE);
+		JobScheduler.Job job = scheduler.submit("bad", JobScheduler.NORM_PRIORITY, 0, executor -> {
+			throw new IOException("no such file");
+		});
+		ExecutionException e = assertThrows(ExecutionException.class, job::await);
+		assertInstanceOf(IOException.class, e.getCause());
+		assertTrue(job.result().isCompletedExceptionally());
+	}
+
+	@Test
+	void rejectsPrioritiesOutOfRange() { // Big(O) = O(1) - No loops
+		scheduler = new JobScheduler(1, 1, Long.MAX_VALUE);
+		assertThrows(IllegalArgumentException.class,
+				() -> scheduler.submit("low", JobScheduler.MIN_PRIORITY - 1, 0, executor -> {
+				}));
+		assertThrows(IllegalArgumentException.class,
+				() -> scheduler.submit("high", JobScheduler.MAX_PRIORITY + 1, 0, executor -> {
+				}));
+	}
+
+	@Test
+	void admitsTheHighestPriorityJobFirst() throws Exception { // Big(O) = O(1) - No loops
+		scheduler = new JobScheduler(1, 1, Long.MAX_VALUE);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> started = Collections.synchronizedList(new ArrayList<String>());
+		JobScheduler.Job blocker = scheduler.submit("blocker", JobScheduler.NORM_PRIORITY, 0, executor -> {
+			started.add("blocker");
+			release.await();
+		});
+		JobScheduler.Job low = scheduler.submit("low", JobScheduler.MIN_PRIORITY, 0, executor -> started.add("low"));
+		JobScheduler.Job high = scheduler.submit("high", JobScheduler.MAX_PRIORITY, 0,
+				executor -> started.add("high"));
+		assertEquals(1, scheduler.runningJobs());
+		assertEquals(2, scheduler.waitingJobs());
+
+		release.countDown();
+		blocker.await();
+		low.await();
+		high.await();
+		assertEquals(List.of("blocker", "high", "low"), started);
+	}
+
+	@Test
+	void holdsBackJobsWhileTheInputsRunningAreTooLarge() throws Exception { // Big(O) = O(1) - No loops
+		scheduler = new JobScheduler(2, 4, 100);
+		CountDownLatch release = new CountDownLatch(1);
+		JobScheduler.Job big = scheduler.submit("big", JobScheduler.NORM_PRIORITY, 80, executor -> release.await());
+		JobScheduler.Job small = scheduler.submit("small", JobScheduler.NORM_PRIORITY, 10,
+				executor -> release.await());
+		JobScheduler.Job other = scheduler.submit("other", JobScheduler.NORM_PRIORITY, 50, executor -> {
+		});
+		assertEquals(2, scheduler.runningJobs()); // 80 + 10 fit, another 50 don't
+		assertEquals(1, scheduler.waitingJobs());
+
+		release.countDown();
+		big.await();
+		small.await();
+		other.result().get(10, TimeUnit.SECONDS);
+		assertEquals(0, scheduler.waitingJobs());
+	}
+}
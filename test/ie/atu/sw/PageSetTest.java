@@ -0,0 +1,84 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of the PageSet, checked against a TreeSet of the same pages
+ *          as it moves between it's array, bitmap and runs forms.
+ */
+class PageSetTest {
+
+	@Test
+	void keepsPagesInOrderWithoutDuplicates() { // Big(O) = O(1) - No loops
+		PageSet pages = new PageSet();
+		assertTrue(pages.isEmpty());
+		assertTrue(pages.add(10));
+		assertTrue(pages.add(2));
+		assertFalse(pages.add(10));
+		assertTrue(pages.add(1));
+		assertEquals(3, pages.size());
+		assertEquals("[1, 2, 10]", pages.toString());
+		assertTrue(pages.contains(2));
+		assertFalse(pages.contains(3));
+	}
+
+	@Test
+	void removesPages() { // Big(O) = O(1) - No loops
+		PageSet pages = new PageSet();
+		for (int p = 1; p <= 5; p++) {
+			pages.add(p);
+		}
+		assertTrue(pages.remove(3));
+		assertFalse(pages.remove(3));
+		assertArrayEquals(new int[] { 1, 2, 4, 5 }, pages.toArray());
+	}
+
+	@Test
+	void addAllMergesSets() { // Big(O) = O(1) - No loops
+		PageSet a = new PageSet();
+		PageSet b = new PageSet();
+		a.add(1);
+		a.add(5);
+		b.add(5);
+		b.add(7);
+		assertTrue(a.addAll(b));
+		assertFalse(a.addAll(b));
+		assertEquals("[1, 5, 7]", a.toString());
+	}
+
+	@Test
+	void matchesATreeSetInEveryForm() { // Big(O) = O(n log n) - defined by the pages added
+		Random r = new Random(1);
+		// scattered pages (array), dense pages (bitmap) and long stretches (runs)
+		int[][] spreads = { { 100_000, 200 }, { 2_000, 1_500 }, { 0, 0 } };
+		for (int[] spread : spreads) {
+			PageSet pages = new PageSet();
+			TreeSet<Integer> expected = new TreeSet<Integer>();
+			for (int i = 0; i < 3_000; i++) {
+				int page = spread[0] == 0 ? 1 + i + (i / 500) * 100 : 1 + r.nextInt(spread[0]);
+				assertEquals(expected.add(page), pages.add(page));
+				if (spread[1] > 0 && i % 7 == 0) {
+					int gone = 1 + r.nextInt(spread[0]);
+					assertEquals(expected.remove(gone), pages.remove(gone));
+				}
+			}
+			assertEquals(expected.size(), pages.size());
+			assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), pages.toArray());
+			for (int p = 0; p < 4_000; p++) {
+				assertEquals(expected.contains(p), pages.contains(p));
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of incremental runs of the Parser: after a page of the input
+ *          is edited, the index updated from the one saved last time must be
+ *          exactly the index a full run gives, and a saved index made another
+ *          way (such as with fuzzy matching) must not be updated at all.
+ */
+class ParserTest {
+
+	private static final String[] WORDS = { "abide", "honour", "sanctify", "zion", "the", "grace", "mercy",
+			"light", "water", "stone" };
+
+	@TempDir
+	Path dir;
+
+	private Path input;
+	private Path dictionary;
+	private Path common;
+	private PrintStream out;
+
+	@BeforeEach
+	void setUp() throws IOException { // Big(O) = O(n) - defined by the lines of the input
+		out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the Parser reports as it goes
+		dictionary = Files.writeString(dir.resolve("dictionary.csv"), """
+				abide,To stay
+				honour,Respect
+				sanctify,To make holy
+				zion,A hill
+				grace,Favour
+				mercy,"Compassion, forgiveness"
+				holy spirit,The third person
+				light,Not dark
+				""");
+		common = Files.writeString(dir.resolve("common.txt"), "the\nstone\n");
+		List<String> lines = new ArrayList<String>();
+		for (int i = 0; i < 6 * Parser.LINES_PER_PAGE; i++) {
+			lines.add(WORDS[i % WORDS.length] + " " + WORDS[(i * 7) % WORDS.length] + " holy spirit");
+		}
+		input = Files.write(dir.resolve("input.txt"), lines);
+	}
+
+	@AfterEach
+	void tearDown() { // Big(O) = O(1) - No loops
+		System.setOut(out);
+	}
+
+	@Test
+	void incrementalRunMatchesAFullRun() throws IOException { // Big(O) = O(n) - defined by the input
+		Path updated = dir.resolve("updated.txt");
+		Path full = dir.resolve("full.txt");
+		assertTrue(run(updated, true, 0).contains("loadInputFile")); // nothing saved yet
+
+		// edit page 3: a word found nowhere else, and a word gone from that page
+		List<String> lines = new ArrayList<String>(Files.readAllLines(input));
+		int line = 2 * Parser.LINES_PER_PAGE + 5;
+		lines.set(line, "mercy zion honor");
+		lines.set(line + 1, "water water");
+		Files.write(input, lines);
+
+		List<String> stages = run(updated, true, 0);
+		assertTrue(stages.contains("loadChangedPages"));
+		assertFalse(stages.contains("loadInputFile")); // only the changed page was read again
+		run(full, false, 0);
+		assertEquals(Files.readString(full), Files.readString(updated));
+		assertEquals(entries(full), entries(updated));
+	}
+
+	@Test
+	void exactRunAfterAFuzzyRunReadsTheWholeFile() throws IOException { // Big(O) = O(n) - defined by the input
+		Files.writeString(input, "honor thy father\n", StandardOpenOption.APPEND);
+		Path updated = dir.resolve("updated.txt");
+		Path full = dir.resolve("full.txt");
+		run(updated, true, 1);
+		assertTrue(Files.readString(updated).contains("Respect")); // honor matched to honour
+
+		List<String> stages = run(updated, true, 0);
+		assertTrue(stages.contains("loadInputFile"));
+		run(full, false, 0);
+		assertEquals(Files.readString(full), Files.readString(updated));
+	}
+
+	@Test
+	void indexWrittenWithoutHashesIsNotUpdated() throws IOException { // Big(O) = O(n) - defined by the input
+		Path updated = dir.resolve("updated.txt");
+		run(updated, true, 0);
+
+		// the index is replaced by one of another dictionary, as by a run which failed to save it's hashes
+		Path other = Files.writeString(dir.resolve("other.csv"), "zion,A hill\n");
+		Path saved = dir.resolve("saved.pages");
+		Files.copy(PageHashes.pathFor(updated.toString()), saved);
+		Parser parser = new Parser(updated.toString(), input.toString(), other.toString(), common.toString());
+		parser.run(false);
+		Files.copy(saved, PageHashes.pathFor(updated.toString()), StandardCopyOption.REPLACE_EXISTING);
+
+		List<String> stages = run(updated, true, 0);
+		assertTrue(stages.contains("loadInputFile"));
+		Path full = dir.resolve("full.txt");
+		run(full, false, 0);
+		assertEquals(Files.readString(full), Files.readString(updated));
+	}
+
+	/**
+	 * Indexes the input into an output file.
+	 *
+	 * @return the names of the stages of the run
+	 */
+	private List<String> run(Path output, boolean incremental, int fuzzy) { // Big(O) = O(n) - defined by the input
+		Parser parser = new Parser(output.toString(), input.toString(), dictionary.toString(), common.toString());
+		parser.setIncremental(incremental);
+		parser.setFuzzy(fuzzy);
+		parser.run(false);
+		assertFalse(parser.hasFailed());
+		return parser.getMetrics().stages().stream().map(Metrics.StageResult::name).toList();
+	}
+
+	/**
+	 * @return each entry of the IndexFile saved beside an output file
+	 */
+	private static List<String> entries(Path output) throws IOException { // Big(O) = O(n) - defined by the entries
+		List<String> entries = new ArrayList<String>();
+		try (IndexFile.Reader reader = new IndexFile.Reader(IndexFile.pathFor(output.toString()))) {
+			reader.forEach(e -> entries.add(e.getWord() + " " + e.getDefinition() + " " + e.getWordPages()));
+		}
+		return entries;
+	}
+}
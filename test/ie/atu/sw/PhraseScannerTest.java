@@ -0,0 +1,90 @@
+package ie.atu.sw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Brian Scott
+ * @version 1.0
+ * @since 19.0.1
+ *
+ *          Tests of the PhraseScanner: phrases on one line, running onto the
+ *          next line of the page, across a break between the lines read by two
+ *          threads, and never across pages.
+ */
+class PhraseScannerTest {
+
+	private Dictionary dictionary;
+	private PhraseScanner scanner;
+	private final List<String> found = Collections.synchronizedList(new ArrayList<String>());
+
+	@BeforeEach
+	void setUp() { // Big(O) = O(1) - No loops
+		dictionary = new Dictionary();
+		dictionary.add("holy spirit", "");
+		dictionary.add("the holy city", "");
+		dictionary.add("holy", "");
+		dictionary.freeze();
+		scanner = new PhraseScanner(dictionary.phrases(),
+				(id, line, column) -> found.add(dictionary.wordAt(id) + "@" + line + ":" + column));
+	}
+
+	@Test
+	void findsPhrasesOnALine() { // Big(O) = O(1) - No loops
+		read(1, "and the holy spirit came");
+		assertEquals(0, scanner.finish());
+		assertEquals(List.of("holy spirit@1:9"), found);
+	}
+
+	@Test
+	void findsPhrasesRunningOntoTheNextLine() { // Big(O) = O(1) - No loops
+		read(1, "into the");
+		read(2, "holy city");
+		scanner.finish();
+		assertEquals(List.of("the holy city@1:6"), found);
+	}
+
+	@Test
+	void findsPhrasesAcrossABreakBetweenThreads() throws InterruptedException { // Big(O) = O(1) - No loops
+		Thread first = Thread.ofPlatform().start(() -> read(1, "the word of the holy"));
+		first.join();
+		Thread second = Thread.ofPlatform().start(() -> read(2, "spirit and the"));
+		second.join();
+		assertEquals(List.of(), found);
+		assertEquals(1, scanner.finish());
+		assertEquals(List.of("holy spirit@1:17"), found);
+	}
+
+	@Test
+	void neverMatchesAcrossPages() { // Big(O) = O(1) - No loops
+		int last = 39; // the last line of the first page
+		assertEquals(Parser.pageOf(last) + 1, Parser.pageOf(last + 1));
+		read(last, "the holy");
+		read(last + 1, "spirit");
+		assertEquals(0, scanner.finish());
+		assertEquals(List.of(), found);
+	}
+
+	/**
+	 * Passes the words of a line, separated by single spaces, to the scanner on
+	 * the calling thread.
+	 */
+	private void read(int lineNum, String line) { // Big(O) = O(n) - defined by the length of the line
+		PhraseScanner.Run run = scanner.line(lineNum);
+		byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+		int start = 0;
+		for (int i = 0; i <= bytes.length; i++) {
+			if (i == bytes.length || bytes[i] == ' ') {
+				run.word(bytes, start, i - start, start + 1); // columns count from 1
+				start = i + 1;
+			}
+		}
+	}
+}